@@ -0,0 +1,70 @@
+package com.nacho.creditcards.benchmarks;
+
+import java.time.YearMonth;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nacho.creditcards.entities.CardBrand;
+import com.nacho.creditcards.utilities.CardBrandAttributeConverter;
+import com.nacho.creditcards.utilities.YearMonthAttributeConverter;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AttributeConverterBenchmark {
+
+    private YearMonthAttributeConverter yearMonthConverter;
+
+    private CardBrandAttributeConverter cardBrandConverter;
+
+    private YearMonth yearMonth;
+
+    private Integer yearMonthColumn;
+
+    private CardBrand cardBrand;
+
+    private Short cardBrandColumn;
+
+    @Setup
+    public void setUp() {
+        yearMonthConverter = new YearMonthAttributeConverter();
+        cardBrandConverter = new CardBrandAttributeConverter();
+        yearMonth = YearMonth.of(2027, 11);
+        yearMonthColumn = yearMonthConverter.convertToDatabaseColumn(yearMonth);
+        cardBrand = CardBrand.AMEX;
+        cardBrandColumn = cardBrandConverter.convertToDatabaseColumn(cardBrand);
+    }
+
+    @Benchmark
+    public Integer yearMonthToDatabaseColumn() {
+        return yearMonthConverter.convertToDatabaseColumn(yearMonth);
+    }
+
+    @Benchmark
+    public YearMonth yearMonthToEntityAttribute() {
+        return yearMonthConverter.convertToEntityAttribute(yearMonthColumn);
+    }
+
+    @Benchmark
+    public Short cardBrandToDatabaseColumn() {
+        return cardBrandConverter.convertToDatabaseColumn(cardBrand);
+    }
+
+    @Benchmark
+    public CardBrand cardBrandToEntityAttribute() {
+        return cardBrandConverter.convertToEntityAttribute(cardBrandColumn);
+    }
+}
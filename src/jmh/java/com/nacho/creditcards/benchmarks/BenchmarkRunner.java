@@ -0,0 +1,26 @@
+package com.nacho.creditcards.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs every benchmark in this package with the GC profiler, which reports
+ * allocated bytes per operation next to the timings. Pass a regular expression
+ * as the first argument to run a subset, e.g. {@code -Dbenchmark.include=Fee}.
+ * The forks started by JMH inherit this JVM's java.class.path, so it has to be
+ * launched with the full classpath (exec:exec, not exec:java).
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : BenchmarkRunner.class.getPackageName() + ".*";
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .shouldFailOnError(true);
+        new Runner(options.build()).run();
+    }
+}
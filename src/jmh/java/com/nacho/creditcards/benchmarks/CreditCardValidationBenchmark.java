@@ -0,0 +1,56 @@
+package com.nacho.creditcards.benchmarks;
+
+import java.time.YearMonth;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nacho.creditcards.entities.CardBrand;
+import com.nacho.creditcards.entities.CreditCard;
+import com.nacho.creditcards.services.CreditCardService;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CreditCardValidationBenchmark {
+
+    private CreditCardService creditCardService;
+
+    private CreditCard validCreditCard;
+
+    private String holderName;
+
+    @Setup
+    public void setUp() {
+        creditCardService = new CreditCardService();
+        holderName = "John Ronald Reuel Tolkien";
+        validCreditCard = CreditCard.builder()
+                .cardNumber("4111111111111111")
+                .holderName(holderName)
+                .expirationDate(YearMonth.now().plusYears(2))
+                .brand(CardBrand.VISA)
+                .build();
+    }
+
+    @Benchmark
+    public boolean isValidCreditCard() {
+        return creditCardService.isValidCreditCard(validCreditCard);
+    }
+
+    @Benchmark
+    public boolean isCardHolderNameValid() {
+        return creditCardService.isCardHolderNameValid(holderName);
+    }
+}
@@ -0,0 +1,75 @@
+package com.nacho.creditcards.benchmarks;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.nacho.creditcards.entities.CardBrand;
+import com.nacho.creditcards.entities.CreditCard;
+import com.nacho.creditcards.entities.Transaction;
+import com.nacho.creditcards.services.TransactionService;
+import com.nacho.creditcards.services.fees.AmexFeeRule;
+import com.nacho.creditcards.services.fees.FeeEngine;
+import com.nacho.creditcards.services.fees.NaraFeeRule;
+import com.nacho.creditcards.services.fees.VisaFeeRule;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeeBenchmark {
+
+    @Param({"VISA", "NARA", "AMEX"})
+    public String brand;
+
+    private TransactionService transactionService;
+
+    private Transaction transaction;
+
+    private BigDecimal amount;
+
+    @Setup
+    public void setUp() {
+        transactionService = new TransactionService(null);
+        ReflectionTestUtils.setField(transactionService, "feeEngine",
+                new FeeEngine(List.of(new VisaFeeRule(), new NaraFeeRule(), new AmexFeeRule())));
+        amount = new BigDecimal("125.50");
+        transaction = Transaction.builder()
+                .creditCard(CreditCard.builder()
+                        .brand(CardBrand.valueOf(brand))
+                        .cardNumber("4111111111111111")
+                        .holderName("John Doe")
+                        .expirationDate(YearMonth.of(2030, 1))
+                        .build())
+                .dateTime(LocalDateTime.of(2024, 5, 17, 12, 0))
+                .amount(amount)
+                .build();
+    }
+
+    @Benchmark
+    public BigDecimal calculateFee() {
+        return transactionService.calculateFee(transaction);
+    }
+
+    @Benchmark
+    public BigDecimal simulateTransactionAndGetFee() {
+        return transactionService.simulateTransactionAndGetFee(brand, amount);
+    }
+}
@@ -0,0 +1,87 @@
+package com.nacho.creditcards.benchmarks;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load test against a running instance. Start the application once
+ * with the default thread pool and once with creditcards.virtual-threads.enabled
+ * and compare the reported throughput:
+ * {@code mvn -Pbenchmark test-compile exec:java -Dexec.mainClass=com.nacho.creditcards.benchmarks.HttpLoadTest
+ * -Dexec.args="http://localhost:8080/credit-cards/1 2000 30 platform"}
+ * (url, concurrent clients, seconds and an optional label). With a label the
+ * result is also appended to http-load-results.csv, so the runs of both modes
+ * end up side by side.
+ */
+public class HttpLoadTest {
+
+    private static final String RESULTS_FILE = "http-load-results.csv";
+
+    public static void main(String[] args) throws Exception {
+        URI uri = URI.create(args.length > 0 ? args[0] : "http://localhost:8080/credit-cards/1");
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        long seconds = args.length > 2 ? Long.parseLong(args[2]) : 30;
+        String label = args.length > 3 ? args[3] : null;
+
+        HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET().build();
+        AtomicLong completed = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        AtomicLong totalLatencyNanos = new AtomicLong();
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        List<Future<?>> futures = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            futures.add(executor.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() < 500) {
+                            completed.incrementAndGet();
+                            totalLatencyNanos.addAndGet(System.nanoTime() - start);
+                        } else {
+                            failed.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        long ok = completed.get();
+        double throughput = ok / (double) seconds;
+        double meanLatencyMillis = ok == 0 ? 0.0 : totalLatencyNanos.get() / (double) ok / 1_000_000;
+        System.out.printf("clients=%d duration=%ds completed=%d failed=%d throughput=%.1f req/s mean latency=%.2f ms%n",
+                clients, seconds, ok, failed.get(), throughput, meanLatencyMillis);
+        if (label != null) {
+            Path results = Paths.get(RESULTS_FILE);
+            if (!Files.exists(results)) {
+                Files.writeString(results, "label,url,clients,seconds,completed,failed,throughput,mean_latency_ms\n");
+            }
+            Files.writeString(results, String.format(Locale.ROOT, "%s,%s,%d,%d,%d,%d,%.1f,%.2f%n", label, uri, clients,
+                    seconds, ok, failed.get(), throughput, meanLatencyMillis), StandardOpenOption.APPEND);
+        }
+    }
+}
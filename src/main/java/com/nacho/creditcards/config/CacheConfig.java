@@ -0,0 +1,15 @@
+package com.nacho.creditcards.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Caches are Caffeine caches configured through the spring.cache properties,
+ * bounded by size and expiring entries after a fixed time.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String CREDIT_CARDS = "creditCards";
+}
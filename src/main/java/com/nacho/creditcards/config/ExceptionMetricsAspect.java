@@ -0,0 +1,45 @@
+package com.nacho.creditcards.config;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.AfterThrowing;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Counts exceptions thrown out of services by exception type and by the method
+ * that threw them (creditcards.exceptions). Controllers are left out: they
+ * rethrow what their services throw, which would count it twice. An exception
+ * passing through several services, or rethrown to a waiting request on another
+ * thread, is counted once, at the first service it leaves.
+ */
+@Aspect
+@Component
+public class ExceptionMetricsAspect {
+
+    public static final String EXCEPTION_COUNTER = "creditcards.exceptions";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Throwable keeps identity equality, and a weak key lets a handled exception be collected
+    private final Set<Throwable> counted = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    @AfterThrowing(pointcut = "@within(org.springframework.stereotype.Service)", throwing = "exception")
+    public void countException(JoinPoint joinPoint, Throwable exception) {
+        if (!counted.add(exception)) {
+            return;
+        }
+        meterRegistry.counter(EXCEPTION_COUNTER,
+                "exception", exception.getClass().getSimpleName(),
+                "class", joinPoint.getSignature().getDeclaringType().getSimpleName(),
+                "method", joinPoint.getSignature().getName())
+                .increment();
+    }
+}
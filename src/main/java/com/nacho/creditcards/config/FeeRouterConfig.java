@@ -0,0 +1,25 @@
+package com.nacho.creditcards.config;
+
+import static org.springframework.web.servlet.function.RequestPredicates.contentType;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.RouterFunctions;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import com.nacho.creditcards.controllers.FeeQuoteHandler;
+
+@Configuration
+public class FeeRouterConfig {
+
+    @Bean
+    public RouterFunction<ServerResponse> feeRoutes(FeeQuoteHandler feeQuoteHandler) {
+        return RouterFunctions.route()
+                .GET("/fees/quote", feeQuoteHandler::quote)
+                .POST("/fees/quote/batch", contentType(MediaType.APPLICATION_JSON), feeQuoteHandler::quoteBatch)
+                .POST("/fees/matrix", contentType(MediaType.APPLICATION_JSON), feeQuoteHandler::quoteMatrix)
+                .build();
+    }
+}
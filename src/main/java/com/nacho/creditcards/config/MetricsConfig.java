@@ -0,0 +1,82 @@
+package com.nacho.creditcards.config;
+
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.nacho.creditcards.services.TransactionWriteBehindQueue;
+import com.nacho.creditcards.utilities.PermitLimitedDataSource;
+import com.nacho.creditcards.utilities.SlowQueryLog;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Enables {@code @Timed} on service methods and registers the gauges Spring
+ * Boot does not provide. Hikari pool metrics (hikaricp.connections.active,
+ * pending, ...) and Spring Data repository timers are bound by Boot itself.
+ */
+@Configuration
+public class MetricsConfig {
+
+    public static final String SERVICE_TIMER = "creditcards.service";
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public MeterBinder databasePermitMetrics(DataSource dataSource) {
+        return registry -> {
+            PermitLimitedDataSource permitLimited = unwrapPermitLimited(dataSource);
+            if (permitLimited != null) {
+                Gauge.builder("creditcards.db.permits.available", permitLimited, PermitLimitedDataSource::getAvailablePermits)
+                        .description("Database permits not in use (virtual thread mode)")
+                        .register(registry);
+                Gauge.builder("creditcards.db.permits.waiting", permitLimited, PermitLimitedDataSource::getQueueLength)
+                        .description("Threads waiting for a database permit (virtual thread mode)")
+                        .register(registry);
+            }
+        };
+    }
+
+    // the permit limiter may be wrapped by the slow-query log
+    private static PermitLimitedDataSource unwrapPermitLimited(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(PermitLimitedDataSource.class)
+                    ? dataSource.unwrap(PermitLimitedDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    @Bean
+    public MeterBinder writeBehindMetrics(TransactionWriteBehindQueue transactionWriteBehindQueue) {
+        return registry -> {
+            Gauge.builder("creditcards.write-behind.pending", transactionWriteBehindQueue,
+                    TransactionWriteBehindQueue::getPendingCount)
+                    .description("Transactions queued and not yet written")
+                    .register(registry);
+            FunctionCounter.builder("creditcards.write-behind.rejected", transactionWriteBehindQueue,
+                    TransactionWriteBehindQueue::getRejectedCount)
+                    .description("Queued transactions the database refused")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder slowQueryLogMetrics(ObjectProvider<SlowQueryLog> slowQueryLog) {
+        return registry -> slowQueryLog.ifAvailable(log -> FunctionCounter
+                .builder("creditcards.slow-query.dropped", log, SlowQueryLog::getDroppedCount)
+                .description("Slow queries not logged because the log queue was full")
+                .register(registry));
+    }
+}
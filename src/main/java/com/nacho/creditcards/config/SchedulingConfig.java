@@ -0,0 +1,13 @@
+package com.nacho.creditcards.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled maintenance jobs, which run on Spring's single-threaded
+ * task scheduler.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
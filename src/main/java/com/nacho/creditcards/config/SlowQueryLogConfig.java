@@ -0,0 +1,44 @@
+package com.nacho.creditcards.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.nacho.creditcards.utilities.SlowQueryDataSource;
+import com.nacho.creditcards.utilities.SlowQueryLog;
+
+/**
+ * Slow-query log (creditcards.slow-query.enabled, on by default). Replaces
+ * per-statement SQL logging: only statements slower than
+ * creditcards.slow-query.threshold-ms are written, asynchronously, as JSON lines
+ * on the com.nacho.creditcards.slowquery logger.
+ */
+@Configuration
+@ConditionalOnProperty(name = "creditcards.slow-query.enabled", havingValue = "true", matchIfMissing = true)
+public class SlowQueryLogConfig {
+
+    @Bean(destroyMethod = "close")
+    public static SlowQueryLog slowQueryLog(@Value("${creditcards.slow-query.queue-capacity:1000}") int capacity) {
+        return new SlowQueryLog(capacity);
+    }
+
+    @Bean
+    public static BeanPostProcessor slowQueryDataSourcePostProcessor(
+            @Value("${creditcards.slow-query.threshold-ms:200}") long thresholdMillis,
+            ObjectProvider<SlowQueryLog> slowQueryLog) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof SlowQueryDataSource)) {
+                    return new SlowQueryDataSource(dataSource, thresholdMillis, slowQueryLog.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
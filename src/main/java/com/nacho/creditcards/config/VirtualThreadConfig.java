@@ -0,0 +1,70 @@
+package com.nacho.creditcards.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.nacho.creditcards.utilities.PermitLimitedDataSource;
+
+/**
+ * Opt-in mode (creditcards.virtual-threads.enabled=true, Java 21 runtime) that
+ * runs Tomcat requests and async MVC work such as streamed responses on virtual
+ * threads. Connections are handed out through a semaphore sized like the
+ * connection pool (spring.datasource.hikari.maximum-pool-size unless
+ * creditcards.virtual-threads.db-permits is set), so thousands of blocked
+ * virtual threads queue on the semaphore instead of piling up inside Hikari.
+ */
+@Configuration
+@ConditionalOnProperty(name = "creditcards.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig implements WebMvcConfigurer {
+
+    private final ExecutorService virtualThreadExecutor = newVirtualThreadPerTaskExecutor();
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    @Bean
+    public static BeanPostProcessor permitLimitedDataSourcePostProcessor(
+            @Value("${creditcards.virtual-threads.db-permits:${spring.datasource.hikari.maximum-pool-size:10}}") int dbPermits,
+            @Value("${creditcards.virtual-threads.db-permit-timeout-ms:30000}") long dbPermitTimeoutMillis) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof PermitLimitedDataSource)) {
+                    return new PermitLimitedDataSource(dataSource, dbPermits, dbPermitTimeoutMillis);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new TaskExecutorAdapter(virtualThreadExecutor));
+    }
+
+    // looked up reflectively so the default Java 17 build still compiles
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("Virtual threads require Java 21, run with the java21 profile", e);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Could not create the virtual thread executor", e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.nacho.creditcards.controllers;
+
+import java.time.YearMonth;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.nacho.creditcards.services.interfaces.ITransactionArchiveService;
+
+@RestController
+@RequestMapping("/archive")
+public class ArchiveController {
+
+    @Autowired
+    private ITransactionArchiveService transactionArchiveService;
+
+    @PostMapping("/run")
+    public ResponseEntity<Map<String, Long>> archive(
+            @RequestParam(value = "before", required = false) YearMonth before) {
+        long archived = before == null ? transactionArchiveService.archiveExpired()
+                : transactionArchiveService.archiveBefore(before);
+        return ResponseEntity.ok(Map.of("archived", archived));
+    }
+}
@@ -0,0 +1,40 @@
+package com.nacho.creditcards.controllers;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+@RestController
+@RequestMapping("/caches")
+public class CacheController {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @GetMapping("/{name}/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats(@PathVariable String name) {
+        Cache cache = cacheManager.getCache(name);
+        if (!(cache instanceof CaffeineCache caffeineCache)) {
+            return ResponseEntity.notFound().build();
+        }
+        CacheStats stats = caffeineCache.getNativeCache().stats();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("size", caffeineCache.getNativeCache().estimatedSize());
+        body.put("hitCount", stats.hitCount());
+        body.put("missCount", stats.missCount());
+        body.put("hitRate", stats.hitRate());
+        body.put("evictionCount", stats.evictionCount());
+        return ResponseEntity.ok(body);
+    }
+}
@@ -0,0 +1,146 @@
+package com.nacho.creditcards.controllers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.nacho.creditcards.dto.CardImportStatus;
+import com.nacho.creditcards.exceptions.CardImportQueueFullException;
+import com.nacho.creditcards.exceptions.UploadTooLargeException;
+import com.nacho.creditcards.services.imports.CardImportFormat;
+import com.nacho.creditcards.services.interfaces.ICardImportService;
+import com.nacho.creditcards.utilities.NdjsonStreamer;
+import com.nacho.creditcards.utilities.SizeLimitedInputStream;
+
+@RestController
+@RequestMapping("/credit-cards/import")
+public class CardImportController {
+
+    static final String TEXT_CSV = "text/csv";
+
+    private static final String GZIP_ENCODING = "gzip";
+
+    @Autowired
+    private ICardImportService cardImportService;
+
+    // a raw body gets the same limit as a multipart file
+    @Value("${spring.servlet.multipart.max-file-size:1GB}")
+    private DataSize maxBodySize;
+
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<CardImportStatus> importUpload(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "format", required = false) String format) throws IOException {
+        CardImportFormat importFormat = formatOf(format);
+        if (format != null && importFormat == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return accepted(cardImportService.importUpload(file, importFormat));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (CardImportQueueFullException e) {
+            return queueFull();
+        }
+    }
+
+    @PostMapping(consumes = {TEXT_CSV, NdjsonStreamer.APPLICATION_NDJSON})
+    public ResponseEntity<CardImportStatus> importBody(InputStream inputStream,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+            @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, required = false) Long contentLength)
+            throws IOException {
+        long maxBytes = maxBodySize.toBytes();
+        if (contentLength != null && contentLength > maxBytes) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        CardImportFormat importFormat = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.valueOf(TEXT_CSV))
+                ? CardImportFormat.CSV
+                : CardImportFormat.NDJSON;
+        // the body is spooled as is, a gzip body is decompressed while it is imported
+        String fileName = "upload." + importFormat.name().toLowerCase()
+                + (GZIP_ENCODING.equalsIgnoreCase(contentEncoding) ? ".gz" : "");
+        try {
+            // a chunked body has no Content-Length, so the limit is also enforced while it is spooled
+            return accepted(cardImportService.importUpload(new SizeLimitedInputStream(inputStream, maxBytes), fileName,
+                    importFormat));
+        } catch (UploadTooLargeException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        } catch (CardImportQueueFullException e) {
+            return queueFull();
+        }
+    }
+
+    @PostMapping("/file")
+    public ResponseEntity<CardImportStatus> importFile(
+            @RequestParam("path") String path,
+            @RequestParam(value = "format", required = false) String format) throws IOException {
+        CardImportFormat importFormat = formatOf(format);
+        if (format != null && importFormat == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return accepted(cardImportService.importFile(path, importFormat));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (CardImportQueueFullException e) {
+            return queueFull();
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<CardImportStatus> getImportStatus(@PathVariable String id) {
+        CardImportStatus status = cardImportService.getImportStatus(id);
+        if (status == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(status);
+    }
+
+    @GetMapping
+    public ResponseEntity<List<CardImportStatus>> getImportStatuses() {
+        List<CardImportStatus> statuses = cardImportService.getImportStatuses();
+        if (statuses.isEmpty()) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok(statuses);
+    }
+
+    private static ResponseEntity<CardImportStatus> accepted(CardImportStatus status) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/credit-cards/import/" + status.getId()))
+                .body(status);
+    }
+
+    private static ResponseEntity<CardImportStatus> queueFull() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "60").build();
+    }
+
+    private static CardImportFormat formatOf(String format) {
+        if (format == null) {
+            return null;
+        }
+        try {
+            return CardImportFormat.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
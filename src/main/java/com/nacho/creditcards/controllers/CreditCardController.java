@@ -2,19 +2,34 @@ package com.nacho.creditcards.controllers;
 
 import com.nacho.creditcards.entities.CreditCard;
 import com.nacho.creditcards.services.interfaces.ICreditCardService;
+import com.nacho.creditcards.services.validation.CardValidationResult;
+import com.nacho.creditcards.utilities.NdjsonStreamer;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.time.YearMonth;
 import java.util.List;
 
 @RestController
 @RequestMapping("/credit-cards")
 public class CreditCardController {
 
+    static final int BULK_VALIDATION_CHUNK = 4096;
+
+    // a JSON array is read whole before it is validated, larger inputs go through NDJSON
+    static final int MAX_BULK_VALIDATION_SIZE = 10_000;
+
     @Autowired ICreditCardService creditCardService;
 
+    @Autowired ObjectMapper objectMapper;
+
     @GetMapping("/{id}")
     public ResponseEntity<CreditCard> getCreditCardById(@PathVariable Long id) {
         CreditCard creditCard = creditCardService.getCreditCardById(id);
@@ -33,15 +48,62 @@ public class CreditCardController {
         return ResponseEntity.ok(creditCards);
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<List<CreditCard>> getCreditCardsPage(
+            @RequestParam(value = "after", defaultValue = "0") Long after,
+            @RequestParam(value = "size", defaultValue = "100") int size) {
+        List<CreditCard> creditCards = creditCardService.getCreditCardsAfter(after, size);
+        if (creditCards.isEmpty()) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok(creditCards);
+    }
+
+    @GetMapping("/expiring")
+    public ResponseEntity<List<CreditCard>> getCreditCardsExpiringBetween(
+            @RequestParam("from") YearMonth from,
+            @RequestParam("to") YearMonth to,
+            @RequestParam(value = "afterExpirationDate", required = false) YearMonth afterExpirationDate,
+            @RequestParam(value = "after", defaultValue = "0") Long after,
+            @RequestParam(value = "size", defaultValue = "100") int size) {
+        if (from.isAfter(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<CreditCard> creditCards = creditCardService.getCreditCardsExpiringBetween(from, to, afterExpirationDate,
+                after, size);
+        if (creditCards.isEmpty()) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok(creditCards);
+    }
+
+    @GetMapping(value = "/stream", produces = NdjsonStreamer.APPLICATION_NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamCreditCards(
+            @RequestParam(value = "chunk", defaultValue = "500") int chunk) {
+        StreamingResponseBody body = NdjsonStreamer.cursor(objectMapper, creditCardService::streamCreditCards, chunk);
+        return ResponseEntity.ok(body);
+    }
+
     @PostMapping
     public ResponseEntity<CreditCard> createCreditCard(@RequestBody CreditCard creditCard) {
-        CreditCard createdCreditCard = creditCardService.createCreditCard(creditCard);
+        CreditCard createdCreditCard;
+        try {
+            createdCreditCard = creditCardService.createCreditCard(creditCard);
+        } catch (DataIntegrityViolationException e) {
+            // the same card is already stored
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
         return new ResponseEntity<>(createdCreditCard, HttpStatus.CREATED);
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<CreditCard> updateCreditCard(@PathVariable Long id, @RequestBody CreditCard creditCard) {
-        CreditCard updatedCreditCard = creditCardService.updateCreditCard(id, creditCard);
+        CreditCard updatedCreditCard;
+        try {
+            updatedCreditCard = creditCardService.updateCreditCard(id, creditCard);
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
         if (updatedCreditCard == null) {
             return ResponseEntity.notFound().build();
         }
@@ -50,7 +112,11 @@ public class CreditCardController {
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteCreditCard(@PathVariable Long id) {
-        creditCardService.deleteCreditCard(id);
+        try {
+            creditCardService.deleteCreditCard(id);
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
         return ResponseEntity.noContent().build();
     }
     
@@ -79,9 +145,38 @@ public class CreditCardController {
         }
     }   
     
+    @PostMapping("/validate")
+    public ResponseEntity<CardValidationResult> validateCreditCard(@RequestBody CreditCard creditCard) {
+        CardValidationResult result = creditCardService.validateCreditCard(creditCard);
+        return ResponseEntity.ok(result);
+    }
+
+    @PostMapping(value = "/validate/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<CardValidationResult>> validateCreditCards(@RequestBody List<CreditCard> creditCards) {
+        if (creditCards.size() > MAX_BULK_VALIDATION_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<CardValidationResult> results = creditCardService.validateCreditCards(creditCards);
+        return ResponseEntity.ok(results);
+    }
+
+    @PostMapping(value = "/validate/bulk", consumes = NdjsonStreamer.APPLICATION_NDJSON,
+            produces = NdjsonStreamer.APPLICATION_NDJSON)
+    public ResponseEntity<StreamingResponseBody> validateCreditCardsStream(InputStream inputStream) {
+        StreamingResponseBody body = NdjsonStreamer.transform(objectMapper, inputStream, CreditCard.class,
+                BULK_VALIDATION_CHUNK, creditCardService::validateCreditCards);
+        return ResponseEntity.ok(body);
+    }
+
     @PostMapping("/is-distinct")
     public ResponseEntity<Boolean> isCreditCardDistinct(@RequestBody CreditCard creditCard) {
         boolean isDistinct = creditCardService.isCreditCardDistinct(creditCard);
         return ResponseEntity.ok(isDistinct);
-    }    
+    }
+
+    @PostMapping("/is-distinct/batch")
+    public ResponseEntity<List<Boolean>> areCreditCardsDistinct(@RequestBody List<CreditCard> creditCards) {
+        List<Boolean> distinct = creditCardService.areCreditCardsDistinct(creditCards);
+        return ResponseEntity.ok(distinct);
+    }
 }
@@ -0,0 +1,97 @@
+package com.nacho.creditcards.controllers;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import com.nacho.creditcards.dto.FeeMatrixRequest;
+import com.nacho.creditcards.dto.FeeQuote;
+import com.nacho.creditcards.entities.CardBrand;
+import com.nacho.creditcards.services.fees.FeeEngine;
+import com.nacho.creditcards.services.interfaces.IFeeQuotationService;
+
+/**
+ * Fee simulation served by a functional route. Quoting is pure computation on
+ * the {@link FeeEngine}, so these handlers skip the annotated controller
+ * machinery and never touch the database.
+ */
+@Component
+public class FeeQuoteHandler {
+
+    static final int MAX_BATCH_SIZE = 10_000;
+
+    private static final ParameterizedTypeReference<List<FeeQuote>> FEE_QUOTES = new ParameterizedTypeReference<>() {
+    };
+
+    @Autowired
+    private FeeEngine feeEngine;
+
+    @Autowired
+    private IFeeQuotationService feeQuotationService;
+
+    public ServerResponse quote(ServerRequest request) {
+        Optional<String> brand = request.param("brand");
+        Optional<String> amount = request.param("amount");
+        if (brand.isEmpty() || amount.isEmpty()) {
+            return ServerResponse.badRequest().body("brand and amount are required");
+        }
+        CardBrand cardBrand = parseBrand(brand.get());
+        if (cardBrand == null) {
+            return ServerResponse.badRequest().body("Unknown brand: " + brand.get());
+        }
+        BigDecimal value;
+        try {
+            value = new BigDecimal(amount.get());
+        } catch (NumberFormatException e) {
+            return ServerResponse.badRequest().body("Invalid amount: " + amount.get());
+        }
+        BigDecimal fee = feeEngine.calculateFee(cardBrand, LocalDateTime.now(), value);
+        return ServerResponse.ok().body(fee);
+    }
+
+    public ServerResponse quoteBatch(ServerRequest request) throws Exception {
+        List<FeeQuote> quotes = request.body(FEE_QUOTES);
+        if (quotes.size() > MAX_BATCH_SIZE) {
+            return ServerResponse.badRequest().body("At most " + MAX_BATCH_SIZE + " quotes per request");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<FeeQuote> result = new ArrayList<>(quotes.size());
+        for (FeeQuote quote : quotes) {
+            CardBrand cardBrand = parseBrand(quote.getBrand());
+            if (cardBrand == null || quote.getAmount() == null) {
+                return ServerResponse.badRequest().body("Invalid quote: " + quote);
+            }
+            result.add(new FeeQuote(cardBrand.name(), quote.getAmount(),
+                    feeEngine.calculateFee(cardBrand, now, quote.getAmount())));
+        }
+        return ServerResponse.ok().body(result);
+    }
+
+    public ServerResponse quoteMatrix(ServerRequest request) throws Exception {
+        FeeMatrixRequest matrixRequest = request.body(FeeMatrixRequest.class);
+        try {
+            return ServerResponse.ok().body(feeQuotationService.quoteFeeMatrix(matrixRequest));
+        } catch (IllegalArgumentException e) {
+            return ServerResponse.badRequest().body(e.getMessage());
+        }
+    }
+
+    private static CardBrand parseBrand(String brand) {
+        if (brand == null) {
+            return null;
+        }
+        try {
+            return CardBrand.valueOf(brand.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
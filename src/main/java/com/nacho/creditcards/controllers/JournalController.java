@@ -0,0 +1,29 @@
+package com.nacho.creditcards.controllers;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.nacho.creditcards.services.interfaces.IJournalReplayService;
+
+@RestController
+@RequestMapping("/journal")
+public class JournalController {
+
+    @Autowired
+    private IJournalReplayService journalReplayService;
+
+    @PostMapping("/replay/transactions")
+    public ResponseEntity<Map<String, Long>> replayTransactions() {
+        return ResponseEntity.ok(Map.of("records", journalReplayService.replayTransactions()));
+    }
+
+    @PostMapping("/replay/aggregates")
+    public ResponseEntity<Map<String, Long>> rebuildAggregates() {
+        return ResponseEntity.ok(Map.of("records", journalReplayService.rebuildAggregates()));
+    }
+}
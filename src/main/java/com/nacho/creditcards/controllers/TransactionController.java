@@ -1,10 +1,19 @@
 package com.nacho.creditcards.controllers;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.zip.CRC32;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,23 +21,57 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.nacho.creditcards.dto.TransactionBatchResult;
+import com.nacho.creditcards.dto.TransactionExportFilter;
+import com.nacho.creditcards.dto.TransactionSummary;
+import com.nacho.creditcards.entities.CardBrand;
 import com.nacho.creditcards.entities.CreditCard;
 import com.nacho.creditcards.entities.Transaction;
+import com.nacho.creditcards.entities.TransactionAggregate;
 import com.nacho.creditcards.exceptions.CreditCardNotFoundException;
 import com.nacho.creditcards.exceptions.CreditCardNotValidException;
+import com.nacho.creditcards.exceptions.IdempotencyKeyInProgressException;
+import com.nacho.creditcards.exceptions.IdempotencyKeyReusedException;
 import com.nacho.creditcards.exceptions.TransactionAmountInvalidException;
+import com.nacho.creditcards.exceptions.TransactionQueueFullException;
+import com.nacho.creditcards.services.interfaces.IIdempotencyService;
+import com.nacho.creditcards.services.interfaces.ITransactionAggregateService;
 import com.nacho.creditcards.services.interfaces.ITransactionService;
+import com.nacho.creditcards.services.exports.TransactionExportSpool;
+import com.nacho.creditcards.utilities.ByteRange;
+import com.nacho.creditcards.utilities.NdjsonStreamer;
+import com.nacho.creditcards.utilities.TransactionExportWriter;
 
 @RestController
 @RequestMapping("/transactions")
 public class TransactionController {
+
+    static final int MAX_BATCH_SIZE = 10_000;
+
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
     
     @Autowired
     private ITransactionService transactionService;
+
+    @Autowired
+    private ITransactionAggregateService transactionAggregateService;
+
+    @Autowired
+    private IIdempotencyService idempotencyService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionExportSpool transactionExportSpool;
     
     @GetMapping("/{id}")
     public ResponseEntity<Transaction> getTransactionById(@PathVariable Long id) {
@@ -48,12 +91,169 @@ public class TransactionController {
         return ResponseEntity.ok(transactions);
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<List<Transaction>> getTransactionsPage(
+            @RequestParam(value = "after", defaultValue = "0") Long after,
+            @RequestParam(value = "size", defaultValue = "100") int size) {
+        List<Transaction> transactions = transactionService.getTransactionsAfter(after, size);
+        if (transactions.isEmpty()) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok(transactions);
+    }
+
+    @GetMapping("/summaries")
+    public ResponseEntity<List<TransactionSummary>> getTransactionSummaries(
+            @RequestParam(value = "after", defaultValue = "0") Long after,
+            @RequestParam(value = "size", defaultValue = "100") int size) {
+        List<TransactionSummary> summaries = transactionService.getTransactionSummariesAfter(after, size);
+        if (summaries.isEmpty()) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok(summaries);
+    }
+
+    @GetMapping("/range")
+    public ResponseEntity<List<Transaction>> getTransactionsBetween(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "afterDateTime", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterDateTime,
+            @RequestParam(value = "after", defaultValue = "0") Long after,
+            @RequestParam(value = "size", defaultValue = "100") int size) {
+        if (!from.isBefore(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<Transaction> transactions = transactionService.getTransactionsBetween(from, to, afterDateTime, after, size);
+        if (transactions.isEmpty()) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok(transactions);
+    }
+
+    @GetMapping("/summaries/range")
+    public ResponseEntity<List<TransactionSummary>> getTransactionSummariesBetween(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "afterDateTime", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterDateTime,
+            @RequestParam(value = "after", defaultValue = "0") Long after,
+            @RequestParam(value = "size", defaultValue = "100") int size) {
+        if (!from.isBefore(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<TransactionSummary> summaries = transactionService.getTransactionSummariesBetween(from, to, afterDateTime, after, size);
+        if (summaries.isEmpty()) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok(summaries);
+    }
+
+    @GetMapping(value = "/stream", produces = NdjsonStreamer.APPLICATION_NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamTransactions(
+            @RequestParam(value = "size", defaultValue = "500") int size) {
+        StreamingResponseBody body = NdjsonStreamer.keyset(objectMapper,
+                transactionService::getTransactionsAfter, Transaction::getId, size);
+        return ResponseEntity.ok(body);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam(value = "format", defaultValue = "csv") String format,
+            @RequestParam(value = "creditCardId", required = false) Long creditCardId,
+            @RequestParam(value = "brand", required = false) String brand,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "until", required = false) Long until,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange) throws IOException {
+        TransactionExportWriter.Format exportFormat;
+        CardBrand cardBrand;
+        try {
+            exportFormat = TransactionExportWriter.Format.valueOf(format.toUpperCase());
+            cardBrand = brand == null ? null : CardBrand.valueOf(brand.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        // an If-Range resume is served from the file spooled for that ETag, anything else gets a fresh export
+        String filterKey = exportKey(exportFormat, creditCardId, cardBrand, from, to, until);
+        TransactionExportSpool.SpooledExport spooled = transactionExportSpool.find(filterKey, ifRange);
+        ByteRange byteRange = ifRange != null && spooled == null ? null : ByteRange.parse(range);
+        if (spooled == null) {
+            long untilId = until != null ? until : transactionService.getLatestTransactionId();
+            TransactionExportFilter filter = TransactionExportFilter.builder()
+                    .untilId(untilId)
+                    .creditCardId(creditCardId)
+                    .brand(cardBrand)
+                    .from(from)
+                    .to(to)
+                    .build();
+            StreamingResponseBody export = TransactionExportWriter.gzip(exportFormat, objectMapper,
+                    consumer -> transactionService.exportTransactions(filter, consumer));
+            spooled = transactionExportSpool.spool(filterKey,
+                    "transactions-" + untilId + "." + exportFormat.getExtension() + ".gz", export);
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(TransactionExportWriter.APPLICATION_GZIP));
+        headers.setETag(spooled.etag());
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.setContentDisposition(ContentDisposition.attachment()
+                .filename(spooled.fileName())
+                .build());
+
+        long length = spooled.length();
+        if (byteRange == null) {
+            headers.setContentLength(length);
+            return new ResponseEntity<>(TransactionExportSpool.range(spooled, 0, length - 1), headers, HttpStatus.OK);
+        }
+        long first = byteRange.firstOf(length);
+        if (first < 0) {
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+                    .build();
+        }
+        long last = byteRange.lastOf(length);
+        headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + first + "-" + last + "/" + length);
+        headers.setContentLength(last - first + 1);
+        return new ResponseEntity<>(TransactionExportSpool.range(spooled, first, last), headers,
+                HttpStatus.PARTIAL_CONTENT);
+    }
+
     @PostMapping
-    public ResponseEntity<Transaction> createTransaction(@RequestBody Transaction transaction) {
-    	BigDecimal amount = transaction.getAmount();
-    	CreditCard creditCard = transaction.getCreditCard();
-        Transaction createdTransaction = transactionService.createTransaction(creditCard, amount);
-        return new ResponseEntity<>(createdTransaction, HttpStatus.CREATED);
+    public ResponseEntity<Transaction> createTransaction(@RequestBody Transaction transaction,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        if (idempotencyKey != null
+                && (idempotencyKey.isBlank() || idempotencyKey.length() > IIdempotencyService.MAX_KEY_LENGTH)) {
+            return ResponseEntity.badRequest().build();
+        }
+        HttpStatus status = transactionService.isWriteBehindEnabled() ? HttpStatus.ACCEPTED : HttpStatus.CREATED;
+        try {
+            Transaction createdTransaction = idempotencyKey == null
+                    ? submitTransaction(transaction)
+                    : idempotencyService.execute(idempotencyKey, transaction, Transaction.class,
+                            () -> submitTransaction(transaction));
+            return new ResponseEntity<>(createdTransaction, status);
+        } catch (TransactionQueueFullException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+        } catch (IdempotencyKeyInProgressException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).header(HttpHeaders.RETRY_AFTER, "1").build();
+        } catch (IdempotencyKeyReusedException e) {
+            return ResponseEntity.unprocessableEntity().build();
+        }
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<List<TransactionBatchResult>> createTransactions(@RequestBody List<Transaction> transactions) {
+        if (transactions.isEmpty() || transactions.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<TransactionBatchResult> results = transactionService.createTransactions(transactions);
+        return ResponseEntity.ok(results);
     }
 
     @PutMapping("/{id}")
@@ -87,5 +287,50 @@ public class TransactionController {
             @RequestParam(value = "amount") BigDecimal amount) {
         BigDecimal fee = transactionService.simulateTransactionAndGetFee(brand, amount);
         return ResponseEntity.ok(fee);
-    }    
+    }
+
+    @GetMapping("/aggregates/cards/{creditCardId}")
+    public ResponseEntity<TransactionAggregate> getCardAggregate(@PathVariable Long creditCardId,
+            @RequestParam(value = "month", required = false) YearMonth month) {
+        YearMonth period = month == null ? YearMonth.now() : month;
+        return ResponseEntity.ok(transactionAggregateService.getCardAggregate(creditCardId, period));
+    }
+
+    @GetMapping("/aggregates/brands/{brand}")
+    public ResponseEntity<TransactionAggregate> getBrandAggregate(@PathVariable String brand,
+            @RequestParam(value = "month", required = false) YearMonth month) {
+        YearMonth period = month == null ? YearMonth.now() : month;
+        CardBrand cardBrand = CardBrand.valueOf(brand.toUpperCase());
+        return ResponseEntity.ok(transactionAggregateService.getBrandAggregate(cardBrand, period));
+    }
+
+    @GetMapping("/archive/aggregates/cards/{creditCardId}")
+    public ResponseEntity<TransactionAggregate> getArchivedCardAggregate(@PathVariable Long creditCardId,
+            @RequestParam("month") YearMonth month) {
+        return ResponseEntity.ok(transactionService.getArchivedCardAggregate(creditCardId, month));
+    }
+
+    @GetMapping("/archive/aggregates/brands/{brand}")
+    public ResponseEntity<TransactionAggregate> getArchivedBrandAggregate(@PathVariable String brand,
+            @RequestParam("month") YearMonth month) {
+        CardBrand cardBrand = CardBrand.valueOf(brand.toUpperCase());
+        return ResponseEntity.ok(transactionService.getArchivedBrandAggregate(cardBrand, month));
+    }
+
+    private Transaction submitTransaction(Transaction transaction) {
+        BigDecimal amount = transaction.getAmount();
+        CreditCard creditCard = transaction.getCreditCard();
+        if (transactionService.isWriteBehindEnabled()) {
+            return transactionService.enqueueTransaction(creditCard, amount);
+        }
+        return transactionService.createTransaction(creditCard, amount);
+    }
+
+    private static String exportKey(TransactionExportWriter.Format format, Long creditCardId, CardBrand brand,
+            LocalDateTime from, LocalDateTime to, Long until) {
+        CRC32 crc = new CRC32();
+        crc.update((format + "|" + creditCardId + "|" + brand + "|" + from + "|" + to + "|" + until)
+                .getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
 }
@@ -0,0 +1,48 @@
+package com.nacho.creditcards.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardImportStatus {
+
+    public enum State {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    private String id;
+
+    private State state;
+
+    private String source;
+
+    private String format;
+
+    private long bytesRead;
+
+    private long totalBytes;
+
+    private long read;
+
+    private long invalid;
+
+    private long duplicates;
+
+    private long imported;
+
+    private List<String> errors;
+
+    private String failure;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+}
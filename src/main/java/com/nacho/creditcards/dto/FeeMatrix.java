@@ -0,0 +1,36 @@
+package com.nacho.creditcards.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import com.nacho.creditcards.entities.CardBrand;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Fees for every brand, day and amount of a request. {@code fees[b][d][a]} is
+ * the fee of {@code brands[b]} on {@code from + d days} for {@code amounts[a]},
+ * as an unscaled value with {@code feeScale} decimal places.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeeMatrix {
+
+    private List<CardBrand> brands;
+
+    private List<BigDecimal> amounts;
+
+    private LocalDate from;
+
+    private LocalDate to;
+
+    private int feeScale;
+
+    private long[][][] fees;
+}
@@ -0,0 +1,27 @@
+package com.nacho.creditcards.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import com.nacho.creditcards.entities.CardBrand;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeeMatrixRequest {
+
+    private List<CardBrand> brands;
+
+    private List<BigDecimal> amounts;
+
+    private LocalDate from;
+
+    private LocalDate to;
+}
@@ -0,0 +1,21 @@
+package com.nacho.creditcards.dto;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeeQuote {
+
+    private String brand;
+
+    private BigDecimal amount;
+
+    private BigDecimal fee;
+}
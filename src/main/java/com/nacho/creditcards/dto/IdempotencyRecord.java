@@ -0,0 +1,28 @@
+package com.nacho.creditcards.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    private String key;
+
+    private String requestHash;
+
+    // JSON of the result, null while the first request is still running
+    private String response;
+
+    private LocalDateTime createdAt;
+
+    public boolean isCompleted() {
+        return response != null;
+    }
+}
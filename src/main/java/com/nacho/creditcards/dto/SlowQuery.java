@@ -0,0 +1,27 @@
+package com.nacho.creditcards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlowQuery {
+
+    private String timestamp;
+
+    private double durationMillis;
+
+    private String sql;
+
+    private int bindCount;
+
+    private int batchSize;
+
+    private String caller;
+
+    private String thread;
+}
@@ -0,0 +1,21 @@
+package com.nacho.creditcards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionBatchResult {
+
+    private int index;
+
+    private Long transactionId;
+
+    private boolean created;
+
+    private String error;
+}
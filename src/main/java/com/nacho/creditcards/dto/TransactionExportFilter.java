@@ -0,0 +1,32 @@
+package com.nacho.creditcards.dto;
+
+import java.time.LocalDateTime;
+
+import com.nacho.creditcards.entities.CardBrand;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Rows of a transaction export. Every filter is optional except untilId, the
+ * highest id included, which pins the export to the rows that existed when it
+ * started so a resumed download produces the same bytes.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionExportFilter {
+
+    private long untilId;
+
+    private Long creditCardId;
+
+    private CardBrand brand;
+
+    private LocalDateTime from;
+
+    private LocalDateTime to;
+}
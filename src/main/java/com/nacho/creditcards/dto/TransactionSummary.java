@@ -0,0 +1,30 @@
+package com.nacho.creditcards.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.nacho.creditcards.entities.CardBrand;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Read-only view of a transaction with the card fields needed by listings,
+ * built directly by the query so no entity or proxy is loaded.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionSummary {
+
+    private Long id;
+
+    private LocalDateTime dateTime;
+
+    private BigDecimal amount;
+
+    private Long creditCardId;
+
+    private CardBrand brand;
+}
@@ -1,7 +1,35 @@
 package com.nacho.creditcards.entities;
 
 public enum CardBrand {
-    VISA,
-    NARA,
-    AMEX,
+    VISA(1),
+    NARA(2),
+    AMEX(3),
+    ;
+
+    private static final CardBrand[] BY_CODE = new CardBrand[4];
+
+    static {
+        for (CardBrand brand : values()) {
+            BY_CODE[brand.code] = brand;
+        }
+    }
+
+    /** Stored value of the brand column. Codes are never reused or renumbered. */
+    private final short code;
+
+    CardBrand(int code) {
+        this.code = (short) code;
+    }
+
+    public short getCode() {
+        return code;
+    }
+
+    public static CardBrand fromCode(int code) {
+        CardBrand brand = code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+        if (brand == null) {
+            throw new IllegalArgumentException("Unknown card brand code: " + code);
+        }
+        return brand;
+    }
 }
@@ -6,6 +6,10 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -15,10 +19,16 @@ import lombok.NonNull;
 
 import java.time.YearMonth;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.nacho.creditcards.utilities.CardBrandAttributeConverter;
+import com.nacho.creditcards.utilities.CardFingerprint;
 import com.nacho.creditcards.utilities.YearMonthAttributeConverter;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "ux_credit_card_fingerprint", columnList = "fingerprint", unique = true),
+        @Index(name = "ix_credit_card_expiration_date", columnList = "expirationDate")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -41,6 +51,10 @@ public class CreditCard {
     @Column(nullable = false)
     @Convert(converter = CardBrandAttributeConverter.class)
     private CardBrand brand;
+
+    @JsonIgnore
+    @Column(nullable = false, length = CardFingerprint.LENGTH)
+    private String fingerprint;
     
     public CreditCard(@NonNull String cardNumber, @NonNull String holderName, @NonNull YearMonth expirationDate, @NonNull CardBrand brand) {
         this.cardNumber = cardNumber;
@@ -48,4 +62,10 @@ public class CreditCard {
         this.expirationDate = expirationDate;
         this.brand = brand;
     }
+
+    @PrePersist
+    @PreUpdate
+    void updateFingerprint() {
+        fingerprint = CardFingerprint.of(this);
+    }
 }
@@ -5,11 +5,13 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -18,7 +20,10 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        @Index(name = "ix_transactions_credit_card_date_time", columnList = "credit_card_id, dateTime"),
+        @Index(name = "ix_transactions_date_time", columnList = "dateTime")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -32,6 +37,8 @@ public class Transaction {
     @JoinColumn(name = "credit_card_id")
     private CreditCard creditCard;
 
+    // partitioning column of the transactions table, part of its primary key
+    @Column(nullable = false)
     private LocalDateTime dateTime;
 
     private BigDecimal amount;
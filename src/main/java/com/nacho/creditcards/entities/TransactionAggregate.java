@@ -0,0 +1,51 @@
+package com.nacho.creditcards.entities;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Running totals of the transactions of one card or one brand in one month.
+ * Rows are kept up to date by upserts on every transaction write, so reading
+ * an aggregate is a primary key lookup.
+ */
+@Entity
+@Table(name = "transaction_aggregates")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionAggregate {
+
+    @Id
+    @Column(length = 64)
+    private String aggregateKey;
+
+    private long transactionCount;
+
+    private BigDecimal amountTotal;
+
+    @Column(precision = 38, scale = 6)
+    private BigDecimal feeTotal;
+
+    public static String cardKey(Long creditCardId, YearMonth period) {
+        return "CARD:" + creditCardId + ":" + period;
+    }
+
+    public static String brandKey(CardBrand brand, YearMonth period) {
+        return "BRAND:" + brand + ":" + period;
+    }
+
+    public static TransactionAggregate empty(String aggregateKey) {
+        return new TransactionAggregate(aggregateKey, 0, BigDecimal.ZERO, BigDecimal.ZERO);
+    }
+}
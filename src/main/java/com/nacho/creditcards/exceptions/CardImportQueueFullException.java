@@ -0,0 +1,10 @@
+package com.nacho.creditcards.exceptions;
+
+public class CardImportQueueFullException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CardImportQueueFullException(String message) {
+        super(message);
+    }
+}
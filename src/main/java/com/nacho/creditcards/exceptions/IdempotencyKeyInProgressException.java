@@ -0,0 +1,10 @@
+package com.nacho.creditcards.exceptions;
+
+public class IdempotencyKeyInProgressException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public IdempotencyKeyInProgressException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.nacho.creditcards.exceptions;
+
+public class TransactionQueueFullException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public TransactionQueueFullException(String message) {
+        super(message);
+    }
+}
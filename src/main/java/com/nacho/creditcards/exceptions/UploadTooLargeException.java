@@ -0,0 +1,16 @@
+package com.nacho.creditcards.exceptions;
+
+import java.io.IOException;
+
+/**
+ * Thrown while an upload is read once it exceeds the allowed size. An
+ * IOException, so whoever spools the upload cleans up as for any failed read.
+ */
+public class UploadTooLargeException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public UploadTooLargeException(String message) {
+        super(message);
+    }
+}
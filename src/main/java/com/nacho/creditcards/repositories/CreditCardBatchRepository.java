@@ -0,0 +1,43 @@
+package com.nacho.creditcards.repositories;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.nacho.creditcards.entities.CreditCard;
+import com.nacho.creditcards.utilities.CardFingerprint;
+
+/**
+ * Inserts credit cards with plain JDBC batches, which the driver rewrites into
+ * multi-row statements (rewriteBatchedStatements=true). A card whose fingerprint
+ * is already stored keeps its row: the four fields of the fingerprint are the
+ * whole identity of a card, so there is nothing to update.
+ */
+@Repository
+public class CreditCardBatchRepository {
+
+    public static final int BATCH_SIZE = 1000;
+
+    private static final String UPSERT_SQL =
+            "insert into credit_card (card_number, holder_name, expiration_date, brand, fingerprint) "
+                    + "values (?, ?, ?, ?, ?) on duplicate key update id = id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public void upsertAll(List<CreditCard> creditCards) {
+        jdbcTemplate.batchUpdate(UPSERT_SQL, creditCards, BATCH_SIZE, (statement, creditCard) -> {
+            String fingerprint = creditCard.getFingerprint() == null
+                    ? CardFingerprint.of(creditCard) : creditCard.getFingerprint();
+            statement.setString(1, creditCard.getCardNumber());
+            statement.setString(2, creditCard.getHolderName());
+            // same encodings as YearMonthAttributeConverter and CardBrandAttributeConverter
+            statement.setInt(3, creditCard.getExpirationDate().getYear() * 100
+                    + creditCard.getExpirationDate().getMonthValue());
+            statement.setShort(4, creditCard.getBrand().getCode());
+            statement.setString(5, fingerprint);
+        });
+    }
+}
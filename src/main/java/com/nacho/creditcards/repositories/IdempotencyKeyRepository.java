@@ -0,0 +1,85 @@
+package com.nacho.creditcards.repositories;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.nacho.creditcards.dto.IdempotencyRecord;
+
+/**
+ * Idempotency keys and the results they map to. The unique index on the key
+ * decides which of several concurrent requests gets to run: the one whose
+ * claim is inserted first.
+ */
+@Repository
+public class IdempotencyKeyRepository {
+
+    private static final String FIND_SQL =
+            "select idempotency_key, request_hash, response, created_at from idempotency_key where idempotency_key = ?";
+
+    private static final String CLAIM_SQL =
+            "insert into idempotency_key (idempotency_key, request_hash, created_at) values (?, ?, ?)";
+
+    private static final String TAKE_OVER_SQL = "update idempotency_key set request_hash = ?, created_at = ? "
+            + "where idempotency_key = ? and response is null and created_at = ?";
+
+    private static final String COMPLETE_SQL = "update idempotency_key set response = ?, completed_at = ? "
+            + "where idempotency_key = ? and created_at = ? and response is null";
+
+    private static final String RELEASE_SQL =
+            "delete from idempotency_key where idempotency_key = ? and created_at = ? and response is null";
+
+    private static final String DELETE_EXPIRED_SQL = "delete from idempotency_key where created_at < ? limit ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public IdempotencyRecord find(String key) {
+        List<IdempotencyRecord> found = jdbcTemplate.query(FIND_SQL, (resultSet, row) -> IdempotencyRecord.builder()
+                .key(resultSet.getString(1))
+                .requestHash(resultSet.getString(2))
+                .response(resultSet.getString(3))
+                .createdAt(resultSet.getTimestamp(4).toLocalDateTime())
+                .build(), key);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    /** Inserts a pending key, returns false when the key already exists. */
+    public boolean claim(String key, String requestHash, LocalDateTime now) {
+        try {
+            jdbcTemplate.update(CLAIM_SQL, key, requestHash, Timestamp.valueOf(now));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    /** Claims a pending key left by a request that never completed, if nobody else took it first. */
+    public boolean takeOver(String key, String requestHash, LocalDateTime claimedAt, LocalDateTime now) {
+        return jdbcTemplate.update(TAKE_OVER_SQL, requestHash, Timestamp.valueOf(now), key,
+                Timestamp.valueOf(claimedAt)) == 1;
+    }
+
+    /**
+     * Stores the result of the claim made at claimedAt, returns false when that
+     * claim was taken over by another request in the meantime.
+     */
+    public boolean complete(String key, String response, LocalDateTime claimedAt, LocalDateTime now) {
+        return jdbcTemplate.update(COMPLETE_SQL, response, Timestamp.valueOf(now), key,
+                Timestamp.valueOf(claimedAt)) == 1;
+    }
+
+    /** Removes the pending claim made at claimedAt by a request that failed, so it can be retried. */
+    public void release(String key, LocalDateTime claimedAt) {
+        jdbcTemplate.update(RELEASE_SQL, key, Timestamp.valueOf(claimedAt));
+    }
+
+    public int deleteExpired(LocalDateTime createdBefore, int limit) {
+        return jdbcTemplate.update(DELETE_EXPIRED_SQL, Timestamp.valueOf(createdBefore), limit);
+    }
+}
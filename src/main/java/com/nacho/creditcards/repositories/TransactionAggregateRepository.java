@@ -0,0 +1,9 @@
+package com.nacho.creditcards.repositories;
+
+import com.nacho.creditcards.repositories.interfaces.ITransactionAggregateRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TransactionAggregateRepository extends ITransactionAggregateRepository {
+
+}
@@ -0,0 +1,42 @@
+package com.nacho.creditcards.repositories;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.nacho.creditcards.entities.CardBrand;
+import com.nacho.creditcards.entities.CreditCard;
+import com.nacho.creditcards.entities.Transaction;
+
+/**
+ * Reads the transactions to archive with their card brand, a month at a time,
+ * so the scan stays within one partition of the transactions table.
+ */
+@Repository
+public class TransactionArchiveRepository {
+
+    private static final String CHUNK_SQL = "select t.id, t.credit_card_id, t.date_time, t.amount, c.brand "
+            + "from transactions t join credit_card c on c.id = t.credit_card_id "
+            + "where t.date_time >= ? and t.date_time < ? and t.id > ? order by t.id limit ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /** Transactions with date time in [from, to) and id above afterId, ordered by id. */
+    public List<Transaction> findChunk(LocalDateTime from, LocalDateTime to, long afterId, int limit) {
+        return jdbcTemplate.query(CHUNK_SQL, (rs, rowNum) -> Transaction.builder()
+                .id(rs.getLong(1))
+                .creditCard(CreditCard.builder()
+                        .id(rs.getLong(2))
+                        .brand(CardBrand.fromCode(rs.getShort(5)))
+                        .build())
+                .dateTime(rs.getTimestamp(3).toLocalDateTime())
+                .amount(rs.getBigDecimal(4))
+                .build(),
+                Timestamp.valueOf(from), Timestamp.valueOf(to), afterId, limit);
+    }
+}
@@ -0,0 +1,113 @@
+package com.nacho.creditcards.repositories;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.nacho.creditcards.entities.Transaction;
+
+/**
+ * Inserts transactions with plain JDBC batches. Hibernate cannot batch inserts
+ * of IDENTITY ids, so bulk ingestion goes through here instead of saveAll.
+ */
+@Repository
+public class TransactionBatchRepository {
+
+    public static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL =
+            "insert into transactions (credit_card_id, date_time, amount) values (?, ?, ?)";
+
+    private static final String INSERT_WITH_ID_SQL =
+            "insert into transactions (id, credit_card_id, date_time, amount) values (?, ?, ?, ?)";
+
+    // journal records written before date_time became mandatory, as set by the V4 migration
+    private static final LocalDateTime MISSING_DATE_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final String DELETE_SQL = "delete from transactions where id = ?";
+
+    private static final String FIND_MATCHING_IDS_SQL =
+            "select id from transactions where credit_card_id = ? and date_time = ? and amount = ? order by id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public void insertAll(List<Transaction> transactions) {
+        for (int from = 0; from < transactions.size(); from += BATCH_SIZE) {
+            insertChunk(transactions.subList(from, Math.min(from + BATCH_SIZE, transactions.size())));
+        }
+    }
+
+    /**
+     * Inserts or overwrites transactions keeping their ids, as replayed from the
+     * journal. The primary key is (id, date_time), so an update that moved a
+     * transaction to another month would not collide on insert: existing rows
+     * are deleted first and the last version of each id is inserted.
+     */
+    public void upsertAll(List<Transaction> transactions) {
+        Map<Long, Transaction> latest = new LinkedHashMap<>();
+        for (Transaction transaction : transactions) {
+            latest.put(transaction.getId(), transaction);
+        }
+        deleteAllById(new ArrayList<>(latest.keySet()));
+        jdbcTemplate.batchUpdate(INSERT_WITH_ID_SQL, latest.values(), BATCH_SIZE, (statement, transaction) -> {
+            statement.setLong(1, transaction.getId());
+            if (transaction.getCreditCard() == null) {
+                statement.setNull(2, Types.BIGINT);
+            } else {
+                statement.setLong(2, transaction.getCreditCard().getId());
+            }
+            statement.setTimestamp(3, Timestamp.valueOf(transaction.getDateTime() == null
+                    ? MISSING_DATE_TIME : transaction.getDateTime()));
+            statement.setBigDecimal(4, transaction.getAmount());
+        });
+    }
+
+    /**
+     * Ids of the stored rows with the same card, date and amount, in insertion
+     * order. Lets the write-behind recovery recognise an insert that committed
+     * before its journal record was written.
+     */
+    public List<Long> findMatchingIds(Transaction transaction) {
+        return jdbcTemplate.queryForList(FIND_MATCHING_IDS_SQL, Long.class,
+                transaction.getCreditCard().getId(), Timestamp.valueOf(transaction.getDateTime()),
+                transaction.getAmount());
+    }
+
+    public void deleteAllById(List<Long> ids) {
+        jdbcTemplate.batchUpdate(DELETE_SQL, ids, BATCH_SIZE, (statement, id) -> statement.setLong(1, id));
+    }
+
+    private void insertChunk(List<Transaction> chunk) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (Transaction transaction : chunk) {
+                    statement.setLong(1, transaction.getCreditCard().getId());
+                    statement.setTimestamp(2, Timestamp.valueOf(transaction.getDateTime()));
+                    statement.setBigDecimal(3, transaction.getAmount());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    int i = 0;
+                    while (keys.next() && i < chunk.size()) {
+                        chunk.get(i++).setId(keys.getLong(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+}
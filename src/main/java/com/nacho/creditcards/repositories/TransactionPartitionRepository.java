@@ -0,0 +1,72 @@
+package com.nacho.creditcards.repositories;
+
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.StringJoiner;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Monthly range partitions of the transactions table. Partition p202403 holds
+ * March 2024 (date_time below 2024-04-01); pmax catches everything past the last
+ * monthly partition and is split when new months are added.
+ */
+@Repository
+public class TransactionPartitionRepository {
+
+    public static final String CATCH_ALL_PARTITION = "pmax";
+
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private static final String PARTITIONS_SQL = "select partition_name from information_schema.partitions "
+            + "where table_schema = database() and table_name = 'transactions' and partition_name is not null "
+            + "order by partition_ordinal_position";
+
+    private static final String OLDEST_DATE_TIME_SQL = "select min(date_time) from transactions";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public static String partitionName(YearMonth month) {
+        return PARTITION_NAME.format(month);
+    }
+
+    /** Monthly partitions in order, empty when the table is not partitioned. */
+    public List<YearMonth> findMonthlyPartitions() {
+        return jdbcTemplate.queryForList(PARTITIONS_SQL, String.class).stream()
+                .filter(name -> !CATCH_ALL_PARTITION.equals(name))
+                .map(name -> YearMonth.parse(name, PARTITION_NAME))
+                .toList();
+    }
+
+    public boolean isPartitioned() {
+        return !jdbcTemplate.queryForList(PARTITIONS_SQL, String.class).isEmpty();
+    }
+
+    public YearMonth findOldestMonth() {
+        Timestamp oldest = jdbcTemplate.queryForObject(OLDEST_DATE_TIME_SQL, Timestamp.class);
+        return oldest == null ? null : YearMonth.from(oldest.toLocalDateTime());
+    }
+
+    /** Splits the catch-all partition into the given consecutive months, oldest first. */
+    public void addMonthlyPartitions(List<YearMonth> months) {
+        if (months.isEmpty()) {
+            return;
+        }
+        StringJoiner partitions = new StringJoiner(", ");
+        for (YearMonth month : months) {
+            partitions.add("partition " + partitionName(month) + " values less than ('" + month.plusMonths(1).atDay(1) + "')");
+        }
+        partitions.add("partition " + CATCH_ALL_PARTITION + " values less than (maxvalue)");
+        jdbcTemplate.execute("alter table transactions reorganize partition " + CATCH_ALL_PARTITION + " into (" + partitions + ")");
+    }
+
+    /** Drops the partition of the month and every row in it. */
+    public void dropMonthlyPartition(YearMonth month) {
+        jdbcTemplate.execute("alter table transactions drop partition " + partitionName(month));
+    }
+}
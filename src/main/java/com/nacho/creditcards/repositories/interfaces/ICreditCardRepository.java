@@ -3,12 +3,58 @@ package com.nacho.creditcards.repositories.interfaces;
 import com.nacho.creditcards.entities.CardBrand;
 import com.nacho.creditcards.entities.CreditCard;
 
+import jakarta.persistence.QueryHint;
+
 import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface ICreditCardRepository extends JpaRepository<CreditCard, Long> {
     CreditCard findByCardNumberAndHolderNameAndExpirationDateAndBrand(String cardNumber, String holderName, YearMonth expirationDate, CardBrand brand);
+
+    @Query("select c from CreditCard c where c.id > :afterId order by c.id asc")
+    List<CreditCard> findPageAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // expiration_date is stored as yyyymm and ix_credit_card_expiration_date orders by
+    // (expiration_date, id), so keyset on both makes each page an index range scan
+    @Query("select c from CreditCard c where c.expirationDate >= :afterExpirationDate and c.expirationDate <= :to "
+            + "and (c.expirationDate > :afterExpirationDate or c.id > :afterId) "
+            + "order by c.expirationDate asc, c.id asc")
+    List<CreditCard> findExpiringBetween(@Param("afterExpirationDate") YearMonth afterExpirationDate,
+            @Param("afterId") Long afterId, @Param("to") YearMonth to, Pageable pageable);
+
+    // MySQL Connector/J only streams rows one by one with a fetch size of Integer.MIN_VALUE
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select c from CreditCard c order by c.id asc")
+    Stream<CreditCard> streamAll();
+
+    @Query("select c.id from CreditCard c where c.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    CreditCard findByFingerprint(String fingerprint);
+
+    boolean existsByFingerprint(String fingerprint);
+
+    @Query("select c.fingerprint from CreditCard c where c.fingerprint in :fingerprints")
+    List<String> findExistingFingerprints(@Param("fingerprints") Collection<String> fingerprints);
+
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select c.fingerprint from CreditCard c")
+    Stream<String> streamAllFingerprints();
 }
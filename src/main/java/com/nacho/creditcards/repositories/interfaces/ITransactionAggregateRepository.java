@@ -0,0 +1,23 @@
+package com.nacho.creditcards.repositories.interfaces;
+
+import java.math.BigDecimal;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.nacho.creditcards.entities.TransactionAggregate;
+
+@Repository
+public interface ITransactionAggregateRepository extends JpaRepository<TransactionAggregate, String> {
+
+	@Modifying
+	@Query(value = "insert into transaction_aggregates (aggregate_key, transaction_count, amount_total, fee_total) "
+			+ "values (:key, :count, :amount, :fee) on duplicate key update "
+			+ "transaction_count = transaction_count + :count, amount_total = amount_total + :amount, fee_total = fee_total + :fee",
+			nativeQuery = true)
+	void addToAggregate(@Param("key") String key, @Param("count") long count, @Param("amount") BigDecimal amount,
+			@Param("fee") BigDecimal fee);
+}
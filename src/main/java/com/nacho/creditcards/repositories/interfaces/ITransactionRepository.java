@@ -1,10 +1,71 @@
 package com.nacho.creditcards.repositories.interfaces;
 
+import com.nacho.creditcards.dto.TransactionSummary;
+import com.nacho.creditcards.entities.CardBrand;
 import com.nacho.creditcards.entities.Transaction;
+
+import jakarta.persistence.QueryHint;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface ITransactionRepository extends JpaRepository<Transaction, Long> {
-	
+
+	@Query("select t from Transaction t join fetch t.creditCard where t.id > :afterId order by t.id asc")
+	List<Transaction> findPageAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+	@EntityGraph(attributePaths = "creditCard")
+	@Query("select t from Transaction t order by t.id asc")
+	List<Transaction> findAllWithCreditCard();
+
+	boolean existsByCreditCardId(Long creditCardId);
+
+	@Query("select new com.nacho.creditcards.dto.TransactionSummary(t.id, t.dateTime, t.amount, c.id, c.brand) "
+			+ "from Transaction t join t.creditCard c where t.id > :afterId order by t.id asc")
+	List<TransactionSummary> findSummariesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+	// keyset on (date_time, id), the order of ix_transactions_date_time, so each page is an
+	// index range scan from the last row returned; date_time is also the partitioning
+	// column, so MySQL only reads the months up to to
+	@Query("select t from Transaction t join fetch t.creditCard "
+			+ "where t.dateTime >= :afterDateTime and t.dateTime < :to "
+			+ "and (t.dateTime > :afterDateTime or t.id > :afterId) order by t.dateTime asc, t.id asc")
+	List<Transaction> findPageBetween(@Param("afterDateTime") LocalDateTime afterDateTime, @Param("afterId") Long afterId,
+			@Param("to") LocalDateTime to, Pageable pageable);
+
+	@Query("select new com.nacho.creditcards.dto.TransactionSummary(t.id, t.dateTime, t.amount, c.id, c.brand) "
+			+ "from Transaction t join t.creditCard c "
+			+ "where t.dateTime >= :afterDateTime and t.dateTime < :to "
+			+ "and (t.dateTime > :afterDateTime or t.id > :afterId) order by t.dateTime asc, t.id asc")
+	List<TransactionSummary> findSummariesBetween(@Param("afterDateTime") LocalDateTime afterDateTime,
+			@Param("afterId") Long afterId, @Param("to") LocalDateTime to, Pageable pageable);
+
+	@Query("select coalesce(max(t.id), 0) from Transaction t")
+	long findMaxId();
+
+	// MySQL Connector/J only streams rows one by one with a fetch size of Integer.MIN_VALUE
+	@QueryHints({
+		@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+		@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+	})
+	@Query("select new com.nacho.creditcards.dto.TransactionSummary(t.id, t.dateTime, t.amount, c.id, c.brand) "
+			+ "from Transaction t join t.creditCard c where t.id <= :untilId "
+			+ "and (:creditCardId is null or c.id = :creditCardId) "
+			+ "and (:brand is null or c.brand = :brand) "
+			+ "and (:from is null or t.dateTime >= :from) "
+			+ "and (:to is null or t.dateTime < :to) "
+			+ "order by t.id asc")
+	Stream<TransactionSummary> streamForExport(@Param("untilId") long untilId, @Param("creditCardId") Long creditCardId,
+			@Param("brand") CardBrand brand, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
@@ -0,0 +1,67 @@
+package com.nacho.creditcards.services;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Component;
+
+import com.nacho.creditcards.utilities.BloomFilter;
+
+/**
+ * In-memory Bloom filter of the fingerprints stored in the database. Once warmed
+ * a negative answer means the card is definitely distinct and the database is
+ * not queried. Until then every check goes to the database. Cards saved from
+ * the start of the warm-up, before the database snapshot it reads is taken, are
+ * recorded and added to the warmed filter once it replaces the current one.
+ */
+@Component
+public class CardFingerprintIndex {
+
+    private static final long MIN_CAPACITY = 1 << 20;
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private volatile BloomFilter filter = new BloomFilter(MIN_CAPACITY, FALSE_POSITIVE_RATE);
+
+    private volatile Queue<String> saved;
+
+    private volatile boolean warm;
+
+    /** Starts recording saved cards; called before the first read of the warm-up. */
+    public void beginWarmUp() {
+        saved = new ConcurrentLinkedQueue<>();
+    }
+
+    public void warmUp(long storedCards, Stream<String> fingerprints) {
+        BloomFilter warmed = new BloomFilter(Math.max(storedCards * 2, MIN_CAPACITY), FALSE_POSITIVE_RATE);
+        fingerprints.forEach(warmed::put);
+        filter = warmed;
+        Queue<String> recorded = saved;
+        saved = null;
+        if (recorded != null) {
+            // a card recorded after this drain is put in the warmed filter by add() itself
+            for (String fingerprint = recorded.poll(); fingerprint != null; fingerprint = recorded.poll()) {
+                warmed.put(fingerprint);
+            }
+        }
+        warm = true;
+    }
+
+    public void add(String fingerprint) {
+        // recorded before the filter is read, so a warm-up swapping filters in between cannot lose it
+        Queue<String> recording = saved;
+        if (recording != null) {
+            recording.add(fingerprint);
+        }
+        filter.put(fingerprint);
+    }
+
+    public boolean isDefinitelyAbsent(String fingerprint) {
+        return warm && !filter.mightContain(fingerprint);
+    }
+
+    public boolean isWarm() {
+        return warm;
+    }
+}
@@ -0,0 +1,289 @@
+package com.nacho.creditcards.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nacho.creditcards.dto.CardImportStatus;
+import com.nacho.creditcards.entities.CreditCard;
+import com.nacho.creditcards.exceptions.CardImportQueueFullException;
+import com.nacho.creditcards.repositories.CreditCardBatchRepository;
+import com.nacho.creditcards.services.imports.CardFileReader;
+import com.nacho.creditcards.services.imports.CardImportFormat;
+import com.nacho.creditcards.services.imports.CardImportJob;
+import com.nacho.creditcards.services.interfaces.ICardImportService;
+import com.nacho.creditcards.services.interfaces.ICreditCardService;
+import com.nacho.creditcards.services.validation.CardValidationResult;
+import com.nacho.creditcards.utilities.CardFingerprint;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Bulk import of credit cards from CSV or NDJSON files, either uploaded (and
+ * spooled to a temporary file first) or read from creditcards.import.directory.
+ * Imports run one at a time on a background thread; at most
+ * creditcards.import.max-queued of them wait or run at once, further ones are
+ * rejected before their upload is spooled. The file is read in
+ * batches of creditcards.import.batch-size lines; each batch is validated in
+ * parallel, cards repeated in the batch or already stored are counted as
+ * duplicates, and the rest are inserted with multi-row statements.
+ */
+@Service
+public class CardImportService implements ICardImportService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CardImportService.class);
+
+    private static final int MAX_KEPT_JOBS = 100;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private ICreditCardService creditCardService;
+
+    @Autowired
+    private CreditCardBatchRepository creditCardBatchRepository;
+
+    @Autowired
+    private CardFingerprintIndex fingerprintIndex;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${creditcards.import.directory:imports}")
+    private String directory;
+
+    @Value("${creditcards.import.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${creditcards.import.max-queued:10}")
+    private int maxQueued;
+
+    private final Map<String, CardImportJob> jobs = new LinkedHashMap<>();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "card-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public CardImportStatus importUpload(InputStream inputStream, String fileName, CardImportFormat format)
+            throws IOException {
+        CardImportFormat resolved = resolveFormat(fileName, format);
+        requireCapacity();
+        Path upload = Files.createTempFile("card-import-", ".upload");
+        try (InputStream in = inputStream) {
+            Files.copy(in, upload, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(upload);
+            throw e;
+        }
+        return submitUpload(upload, fileName, resolved);
+    }
+
+    @Override
+    public CardImportStatus importUpload(MultipartFile file, CardImportFormat format) throws IOException {
+        String fileName = file.getOriginalFilename();
+        CardImportFormat resolved = resolveFormat(fileName, format);
+        requireCapacity();
+        Path upload = Files.createTempFile("card-import-", ".upload");
+        try {
+            // the part is already on disk, so this moves it instead of copying it again
+            file.transferTo(upload);
+        } catch (IOException e) {
+            Files.deleteIfExists(upload);
+            throw e;
+        }
+        return submitUpload(upload, fileName, resolved);
+    }
+
+    private CardImportStatus submitUpload(Path upload, String fileName, CardImportFormat format) throws IOException {
+        String source = "upload:" + (fileName == null ? upload.getFileName() : fileName);
+        try {
+            return submit(new CardImportJob(UUID.randomUUID().toString(), source, upload, format,
+                    CardImportFormat.isGzip(fileName), true));
+        } catch (CardImportQueueFullException e) {
+            Files.deleteIfExists(upload);
+            throw e;
+        }
+    }
+
+    @Override
+    public CardImportStatus importFile(String path, CardImportFormat format) throws IOException {
+        CardImportFormat resolved = resolveFormat(path, format);
+        Path file;
+        try {
+            Path root = Paths.get(directory).toRealPath();
+            file = root.resolve(path).toRealPath();
+            if (!file.startsWith(root) || !Files.isRegularFile(file)) {
+                throw new IllegalArgumentException("No file " + path + " in the import directory");
+            }
+        } catch (NoSuchFileException e) {
+            throw new IllegalArgumentException("No file " + path + " in the import directory");
+        }
+        return submit(new CardImportJob(UUID.randomUUID().toString(), "file:" + path, file, resolved,
+                CardImportFormat.isGzip(path), false));
+    }
+
+    @Override
+    public CardImportStatus getImportStatus(String id) {
+        synchronized (jobs) {
+            CardImportJob job = jobs.get(id);
+            return job == null ? null : job.toStatus();
+        }
+    }
+
+    @Override
+    public List<CardImportStatus> getImportStatuses() {
+        synchronized (jobs) {
+            return jobs.values().stream().map(CardImportJob::toStatus).toList();
+        }
+    }
+
+    private void requireCapacity() {
+        synchronized (jobs) {
+            if (jobs.values().stream().filter(job -> !job.isFinished()).count() >= maxQueued) {
+                throw new CardImportQueueFullException("Too many card imports in progress, retry later");
+            }
+        }
+    }
+
+    private CardImportStatus submit(CardImportJob job) {
+        synchronized (jobs) {
+            requireCapacity();
+            Iterator<CardImportJob> oldest = jobs.values().iterator();
+            while (jobs.size() >= MAX_KEPT_JOBS && oldest.hasNext()) {
+                if (oldest.next().isFinished()) {
+                    oldest.remove();
+                }
+            }
+            jobs.put(job.getId(), job);
+        }
+        executor.execute(() -> run(job));
+        return job.toStatus();
+    }
+
+    void run(CardImportJob job) {
+        try (FileChannel channel = FileChannel.open(job.getPath(), StandardOpenOption.READ)) {
+            job.start(channel.size());
+            InputStream in = Channels.newInputStream(channel);
+            if (job.isGzip()) {
+                in = new GZIPInputStream(in, BUFFER_SIZE);
+            }
+            try (CardFileReader reader = new CardFileReader(in, job.getFormat(), objectMapper)) {
+                List<CardFileReader.Row> batch = new ArrayList<>(batchSize);
+                CardFileReader.Row row;
+                while ((row = reader.next()) != null) {
+                    batch.add(row);
+                    if (batch.size() >= batchSize) {
+                        importBatch(job, batch);
+                        batch.clear();
+                        job.setBytesRead(channel.position());
+                    }
+                }
+                importBatch(job, batch);
+                job.setBytesRead(channel.size());
+            }
+            job.complete();
+            LOGGER.info("Card import {} completed: {}", job.getId(), job.toStatus());
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Card import {} failed", job.getId(), e);
+            job.fail(e.getMessage());
+        } finally {
+            if (job.isTemporary()) {
+                try {
+                    Files.deleteIfExists(job.getPath());
+                } catch (IOException e) {
+                    LOGGER.warn("Could not delete uploaded import {}", job.getPath(), e);
+                }
+            }
+        }
+    }
+
+    private void importBatch(CardImportJob job, List<CardFileReader.Row> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        job.addRead(rows.size());
+        List<CardFileReader.Row> parsed = new ArrayList<>(rows.size());
+        List<CreditCard> creditCards = new ArrayList<>(rows.size());
+        for (CardFileReader.Row row : rows) {
+            if (row.getCreditCard() == null) {
+                job.reject(row.getLine(), row.getError());
+            } else {
+                parsed.add(row);
+                creditCards.add(row.getCreditCard());
+            }
+        }
+
+        List<CardValidationResult> results = creditCardService.validateCreditCards(creditCards);
+        Map<String, CreditCard> unique = new LinkedHashMap<>();
+        long duplicates = 0;
+        for (int i = 0; i < creditCards.size(); i++) {
+            if (!results.get(i).isValid()) {
+                job.reject(parsed.get(i).getLine(), results.get(i).toString());
+                continue;
+            }
+            CreditCard creditCard = creditCards.get(i);
+            creditCard.setFingerprint(CardFingerprint.of(creditCard));
+            if (unique.putIfAbsent(creditCard.getFingerprint(), creditCard) != null) {
+                duplicates++;
+            }
+        }
+
+        // cards of earlier batches are stored by now, so this also catches repeats across the file
+        List<CreditCard> candidates = new ArrayList<>(unique.values());
+        List<Boolean> distinct = candidates.isEmpty() ? List.of() : creditCardService.areCreditCardsDistinct(candidates);
+        List<CreditCard> fresh = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            if (distinct.get(i)) {
+                fresh.add(candidates.get(i));
+            } else {
+                duplicates++;
+            }
+        }
+        if (!fresh.isEmpty()) {
+            creditCardBatchRepository.upsertAll(fresh);
+            fresh.forEach(creditCard -> fingerprintIndex.add(creditCard.getFingerprint()));
+        }
+        job.addDuplicates(duplicates);
+        job.addImported(fresh.size());
+    }
+
+    private static CardImportFormat resolveFormat(String fileName, CardImportFormat format) {
+        CardImportFormat resolved = format == null ? CardImportFormat.fromFileName(fileName) : format;
+        if (resolved == null) {
+            throw new IllegalArgumentException("Unknown import format for " + fileName + ", expected CSV or NDJSON");
+        }
+        return resolved;
+    }
+}
@@ -1,101 +1,197 @@
 package com.nacho.creditcards.services;
 
+import com.nacho.creditcards.config.CacheConfig;
+import com.nacho.creditcards.config.MetricsConfig;
 import com.nacho.creditcards.entities.CardBrand;
 import com.nacho.creditcards.entities.CreditCard;
 import com.nacho.creditcards.exceptions.CreditCardNotValidException;
 import com.nacho.creditcards.repositories.CreditCardRepository;
+import com.nacho.creditcards.repositories.TransactionRepository;
+import com.nacho.creditcards.services.archive.TransactionArchive;
 import com.nacho.creditcards.services.interfaces.ICreditCardService;
+import com.nacho.creditcards.services.validation.CardValidationResult;
+import com.nacho.creditcards.services.validation.CardValidator;
+import com.nacho.creditcards.utilities.CardFingerprint;
+
+import io.micrometer.core.annotation.Timed;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class CreditCardService implements ICreditCardService {
 
+    public static final int MAX_PAGE_SIZE = 1000;
+
     @Autowired
     private CreditCardRepository creditCardRepository;
 
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionArchive transactionArchive;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private CardFingerprintIndex fingerprintIndex;
+
     @Override
+    @Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
     public CreditCard createCreditCard(CreditCard creditCard) throws CreditCardNotValidException {
         YearMonth now = YearMonth.now();
         YearMonth cardExpiration = creditCard.getExpirationDate();
         if (cardExpiration.isBefore(now)) {
             throw new CreditCardNotValidException("Credit card expiration date is not valid");
         }
-        return creditCardRepository.save(creditCard);
+        CreditCard createdCreditCard = creditCardRepository.save(creditCard);
+        fingerprintIndex.add(CardFingerprint.of(createdCreditCard));
+        return createdCreditCard;
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.CREDIT_CARDS, key = "#id", unless = "#result == null")
+    @Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
     public CreditCard getCreditCardById(Long id) {
         Optional<CreditCard> optionalCreditCard = creditCardRepository.findById(id);
         return optionalCreditCard.orElse(null);
     }
 
     @Override
+    @Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
     public List<CreditCard> getAllCreditCards() {
         return creditCardRepository.findAll();
     }
 
     @Override
+    @Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
+    public List<CreditCard> getCreditCardsAfter(Long afterId, int pageSize) {
+        long after = afterId == null ? 0L : afterId;
+        int size = Math.min(Math.max(pageSize, 1), MAX_PAGE_SIZE);
+        return creditCardRepository.findPageAfter(after, PageRequest.of(0, size));
+    }
+
+    @Override
+    @Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
+    public List<CreditCard> getCreditCardsExpiringBetween(YearMonth from, YearMonth to, YearMonth afterExpirationDate,
+            Long afterId, int pageSize) {
+        // pages follow (expirationDate, id); without a cursor inside the range the page starts at from
+        boolean resume = afterExpirationDate != null && !afterExpirationDate.isBefore(from);
+        YearMonth cursor = resume ? afterExpirationDate : from;
+        long after = resume && afterId != null ? afterId : 0L;
+        int size = Math.min(Math.max(pageSize, 1), MAX_PAGE_SIZE);
+        return creditCardRepository.findExpiringBetween(cursor, after, to, PageRequest.of(0, size));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamCreditCards(Consumer<CreditCard> consumer) {
+        try (Stream<CreditCard> creditCards = creditCardRepository.streamAll()) {
+            creditCards.forEach(creditCard -> {
+                consumer.accept(creditCard);
+                // keep the persistence context from growing with the table
+                entityManager.detach(creditCard);
+            });
+        }
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.CREDIT_CARDS, key = "#id")
+    @Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
     public CreditCard updateCreditCard(Long id, CreditCard creditCard) {
         Optional<CreditCard> optionalCreditCard = creditCardRepository.findById(id);
         if (optionalCreditCard.isPresent()) {
             CreditCard existingCreditCard = optionalCreditCard.get();
+            // fees and brand aggregates of the stored transactions follow the brand they were recorded under
+            if (existingCreditCard.getBrand() != creditCard.getBrand() && hasTransactions(id)) {
+                throw new DataIntegrityViolationException("Credit card " + id + " has transactions, its brand cannot change");
+            }
             existingCreditCard.setCardNumber(creditCard.getCardNumber());
             existingCreditCard.setHolderName(creditCard.getHolderName());
             existingCreditCard.setExpirationDate(creditCard.getExpirationDate());
             existingCreditCard.setBrand(creditCard.getBrand());
-            return creditCardRepository.save(existingCreditCard);
+            CreditCard updatedCreditCard = creditCardRepository.save(existingCreditCard);
+            fingerprintIndex.add(CardFingerprint.of(updatedCreditCard));
+            return updatedCreditCard;
         } else {
             return null;
         }
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.CREDIT_CARDS, key = "#id")
     public void deleteCreditCard(Long id) {
+        if (hasTransactions(id)) {
+            throw new DataIntegrityViolationException("Credit card " + id + " still has transactions");
+        }
         creditCardRepository.deleteById(id);
     }
+
+    // the partitioned transactions table has no foreign key to credit_card, and archived
+    // transactions are no longer in it
+    private boolean hasTransactions(Long id) {
+        return transactionRepository.existsByCreditCardId(id) || transactionArchive.containsCreditCard(id);
+    }
+
+    @Override
+    public Set<Long> findExistingCreditCardIds(Collection<Long> ids) {
+        // one IN query for a whole batch instead of a lookup per row
+        return ids.isEmpty() ? Set.of() : new HashSet<>(creditCardRepository.findExistingIds(ids));
+    }
     
 	@Override
 	public CreditCard findByCardNumberAndHolderNameAndExpirationDateAndBrand(String cardNumber, String holderName, YearMonth expirationDate, CardBrand brand) {
-		return creditCardRepository.findByCardNumberAndHolderNameAndExpirationDateAndBrand(cardNumber, holderName, expirationDate, brand);
+		// the fingerprint hashes these four fields and has a unique index
+		CreditCard identity = CreditCard.builder()
+				.cardNumber(cardNumber)
+				.holderName(holderName)
+				.expirationDate(expirationDate)
+				.brand(brand)
+				.build();
+		return creditCardRepository.findByFingerprint(CardFingerprint.of(identity));
 	}
 	
 	@Override
 	public boolean isValidCreditCard(CreditCard creditCard) {
-		boolean isValid = true;
-		String errorMessage = "";
-	
-		// Check card number validity
-		String cardNumber = creditCard.getCardNumber();
-		if (!isValidCardNumber(cardNumber)) {
-			isValid = false;
-			errorMessage += "Invalid card number: " + cardNumber + "\n";
-		}
-	
-		// Check expiration date validity
-		if (!isExpirationDateValid(creditCard)) {
-			isValid = false;
-			errorMessage += "Invalid expiration date: " + creditCard.getExpirationDate() + "\n";
-		}
-	
-		// Check cardholder name validity
-		String cardholderName = creditCard.getHolderName();
-		if (!isCardHolderNameValid(cardholderName)) {
-			isValid = false;
-			errorMessage += "Invalid cardholder name: " + cardholderName + "\n";
-		}
-	
-		if (!isValid) {
-			throw new CreditCardNotValidException("Credit card is not valid: \n" + errorMessage);
-		}
-	
-		return isValid;
-	}	
+		return validateCreditCard(creditCard).isValid();
+	}
+
+	@Override
+	@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
+	public CardValidationResult validateCreditCard(CreditCard creditCard) {
+		return CardValidator.validate(creditCard);
+	}
+
+	@Override
+	@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
+	public List<CardValidationResult> validateCreditCards(List<CreditCard> creditCards) {
+		// validation is pure CPU work, the parallel stream keeps the input order
+		return creditCards.parallelStream()
+				.map(CardValidator::validate)
+				.toList();
+	}
 
 	@Override
 	public boolean isExpirationDateValid(CreditCard creditCard) {
@@ -104,42 +200,51 @@ public class CreditCardService implements ICreditCardService {
 	    return expirationDate.isAfter(currentDate) || expirationDate.equals(currentDate);
 	}
 
-	private boolean isValidCardNumber(String cardNumber) {
-	    return cardNumber.matches("\\d{16}");
-	}
-	
 	public boolean isCardHolderNameValid(String cardholderName) {
-	    if (cardholderName == null || cardholderName.isBlank()) {
-	        return false;
-	    }
-	    String[] nameParts = cardholderName.split("\\s+");
-	    if (nameParts.length < 2) {
-	        return false;
-	    }
-	    // Validate each name part
-	    for (String namePart : nameParts) {
-	        if (!namePart.matches("[A-Za-z]+")) {
-	            return false;
-	        }
-	    }
-	    return true;
+	    return CardValidator.isHolderNameValid(cardholderName);
 	}
 
 	@Override
+	@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
 	public boolean isCreditCardDistinct(CreditCard creditCard) {
-	    // check if a credit card with the same number already exists
-	    CreditCard existingCard = creditCardRepository.findByCardNumberAndHolderNameAndExpirationDateAndBrand(
-	            creditCard.getCardNumber(),
-	            creditCard.getHolderName(),
-	            creditCard.getExpirationDate(),
-	            creditCard.getBrand()
-	    );
-	    if (existingCard == null) {
-	        // no credit card with the same number exists, it is distinct
+	    String fingerprint = CardFingerprint.of(creditCard);
+	    if (fingerprintIndex.isDefinitelyAbsent(fingerprint)) {
 	        return true;
-	    } else {
-	        // a credit card with the same number already exists, it is not distinct
-	        return false;
+	    }
+	    return !creditCardRepository.existsByFingerprint(fingerprint);
+	}
+
+	@Override
+	@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
+	public List<Boolean> areCreditCardsDistinct(List<CreditCard> creditCards) {
+	    List<String> fingerprints = new ArrayList<>(creditCards.size());
+	    Set<String> candidates = new HashSet<>();
+	    for (CreditCard creditCard : creditCards) {
+	        String fingerprint = CardFingerprint.of(creditCard);
+	        fingerprints.add(fingerprint);
+	        if (!fingerprintIndex.isDefinitelyAbsent(fingerprint)) {
+	            candidates.add(fingerprint);
+	        }
+	    }
+	    Set<String> existing = candidates.isEmpty()
+	            ? Set.of()
+	            : new HashSet<>(creditCardRepository.findExistingFingerprints(candidates));
+	    List<Boolean> distinct = new ArrayList<>(fingerprints.size());
+	    for (String fingerprint : fingerprints) {
+	        distinct.add(!existing.contains(fingerprint));
+	    }
+	    return distinct;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	@Transactional(readOnly = true)
+	public void warmUpFingerprintIndex() {
+	    // cards saved from here on may be missing from the snapshot taken by the first read
+	    fingerprintIndex.beginWarmUp();
+	    // counted before the cursor is opened: a streaming result set blocks its connection
+	    long storedCards = creditCardRepository.count();
+	    try (Stream<String> fingerprints = creditCardRepository.streamAllFingerprints()) {
+	        fingerprintIndex.warmUp(storedCards, fingerprints);
 	    }
 	}
 }
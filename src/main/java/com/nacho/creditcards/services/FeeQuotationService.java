@@ -0,0 +1,112 @@
+package com.nacho.creditcards.services;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.stream.IntStream;
+
+import io.micrometer.core.annotation.Timed;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.nacho.creditcards.config.MetricsConfig;
+import com.nacho.creditcards.dto.FeeMatrix;
+import com.nacho.creditcards.dto.FeeMatrixRequest;
+import com.nacho.creditcards.entities.CardBrand;
+import com.nacho.creditcards.services.fees.FeeEngine;
+import com.nacho.creditcards.services.interfaces.IFeeQuotationService;
+
+/**
+ * Computes fee projections on scaled longs: amounts in cents times the engine's
+ * scaled multipliers, rounded half up to {@link #FEE_SCALE} decimal places.
+ * Days of the range are computed in parallel and the inner loop over amounts
+ * is plain primitive arithmetic.
+ */
+@Service
+public class FeeQuotationService implements IFeeQuotationService {
+
+    public static final int FEE_SCALE = 4;
+
+    public static final int MAX_DAYS = 3660;
+
+    public static final long MAX_CELLS = 10_000_000L;
+
+    private static final int AMOUNT_SCALE = 2;
+
+    private static final long ROUNDING_DIVISOR = BigDecimal.ONE
+            .movePointRight(AMOUNT_SCALE + FeeEngine.MULTIPLIER_SCALE - FEE_SCALE).longValueExact();
+
+    private static final long MAX_SCALED_AMOUNT = Long.MAX_VALUE / BigDecimal.ONE
+            .movePointRight(FeeEngine.MULTIPLIER_SCALE + 2).longValueExact();
+
+    @Autowired
+    private FeeEngine feeEngine;
+
+    @Override
+    @Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
+    public FeeMatrix quoteFeeMatrix(FeeMatrixRequest request) {
+        if (request.getBrands() == null || request.getBrands().isEmpty()
+                || request.getAmounts() == null || request.getAmounts().isEmpty()
+                || request.getFrom() == null || request.getTo() == null) {
+            throw new IllegalArgumentException("brands, amounts, from and to are required");
+        }
+        if (request.getBrands().contains(null)) {
+            throw new IllegalArgumentException("Brands must be VISA, NARA or AMEX");
+        }
+        LocalDate from = request.getFrom();
+        long days = ChronoUnit.DAYS.between(from, request.getTo()) + 1;
+        if (days < 1 || days > MAX_DAYS) {
+            throw new IllegalArgumentException("The date range must contain between 1 and " + MAX_DAYS + " days");
+        }
+        CardBrand[] brands = request.getBrands().toArray(CardBrand[]::new);
+        long[] amounts = toCents(request);
+        if (brands.length * days * amounts.length > MAX_CELLS) {
+            throw new IllegalArgumentException("The fee matrix cannot exceed " + MAX_CELLS + " cells");
+        }
+
+        long[][][] fees = new long[brands.length][(int) days][];
+        IntStream.range(0, (int) days).parallel().forEach(day -> {
+            LocalDate date = from.plusDays(day);
+            for (int b = 0; b < brands.length; b++) {
+                long multiplier = feeEngine.getScaledMultiplier(brands[b], date.getYear(), date.getMonthValue(),
+                        date.getDayOfMonth());
+                fees[b][day] = feesFor(amounts, multiplier);
+            }
+        });
+
+        return FeeMatrix.builder()
+                .brands(request.getBrands())
+                .amounts(request.getAmounts())
+                .from(from)
+                .to(request.getTo())
+                .feeScale(FEE_SCALE)
+                .fees(fees)
+                .build();
+    }
+
+    private static long[] feesFor(long[] amounts, long multiplier) {
+        long[] fees = new long[amounts.length];
+        long half = ROUNDING_DIVISOR / 2;
+        for (int i = 0; i < amounts.length; i++) {
+            fees[i] = (amounts[i] * multiplier + half) / ROUNDING_DIVISOR;
+        }
+        return fees;
+    }
+
+    private static long[] toCents(FeeMatrixRequest request) {
+        long[] cents = new long[request.getAmounts().size()];
+        for (int i = 0; i < cents.length; i++) {
+            BigDecimal amount = request.getAmounts().get(i);
+            if (amount == null || amount.signum() < 0) {
+                throw new IllegalArgumentException("Amounts must be zero or positive");
+            }
+            if (amount.compareTo(BigDecimal.valueOf(MAX_SCALED_AMOUNT, AMOUNT_SCALE)) > 0) {
+                throw new IllegalArgumentException("Amount too large: " + amount);
+            }
+            cents[i] = amount.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP).unscaledValue().longValue();
+        }
+        return cents;
+    }
+}
@@ -0,0 +1,268 @@
+package com.nacho.creditcards.services;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nacho.creditcards.dto.IdempotencyRecord;
+import com.nacho.creditcards.exceptions.IdempotencyKeyInProgressException;
+import com.nacho.creditcards.exceptions.IdempotencyKeyReusedException;
+import com.nacho.creditcards.repositories.IdempotencyKeyRepository;
+import com.nacho.creditcards.services.interfaces.IIdempotencyService;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Idempotency keys of client requests. Completed keys are kept in a bounded
+ * in-memory cache in front of the idempotency_key table, so a retry is answered
+ * without touching the database. Concurrent requests with the same key share
+ * the first one's result: within this instance they wait on it directly,
+ * across instances the unique index lets one claim the key and the others poll
+ * the table for its result. A request that fails releases its key. A claim not
+ * completed within creditcards.idempotency.lock-timeout-ms, such as one left by
+ * a crash, can be taken over by a retry. The request and the completion of its
+ * key run in one database transaction, so a retry never repeats a committed
+ * request whose result was not stored.
+ */
+@Service
+public class IdempotencyService implements IIdempotencyService {
+
+    private static final long POLL_INTERVAL_MILLIS = 20;
+
+    private static final int PURGE_BATCH_SIZE = 10_000;
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final Duration ttl;
+
+    private final long waitMillis;
+
+    private final Duration lockTimeout;
+
+    private final Cache<String, IdempotencyRecord> completed;
+
+    private final ConcurrentMap<String, CompletableFuture<IdempotencyRecord>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(@Value("${creditcards.idempotency.ttl-hours:24}") long ttlHours,
+            @Value("${creditcards.idempotency.cache-size:100000}") long cacheSize,
+            @Value("${creditcards.idempotency.wait-ms:5000}") long waitMillis,
+            @Value("${creditcards.idempotency.lock-timeout-ms:60000}") long lockTimeoutMillis) {
+        this.ttl = Duration.ofHours(ttlHours);
+        this.waitMillis = waitMillis;
+        this.lockTimeout = Duration.ofMillis(lockTimeoutMillis);
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public <T> T execute(String key, Object request, Class<T> resultType, Supplier<T> action) {
+        String requestHash = hash(request);
+        IdempotencyRecord record = completed.getIfPresent(key);
+        if (record == null) {
+            CompletableFuture<IdempotencyRecord> mine = new CompletableFuture<>();
+            CompletableFuture<IdempotencyRecord> running = inFlight.putIfAbsent(key, mine);
+            if (running != null) {
+                record = await(key, running);
+            } else {
+                try {
+                    // the previous holder caches its record before leaving inFlight
+                    record = completed.getIfPresent(key);
+                    if (record == null) {
+                        record = executeOnce(key, requestHash, action);
+                        completed.put(key, record);
+                    }
+                    mine.complete(record);
+                } catch (RuntimeException e) {
+                    mine.completeExceptionally(e);
+                    throw e;
+                } finally {
+                    inFlight.remove(key, mine);
+                }
+            }
+        }
+        if (!record.getRequestHash().equals(requestHash)) {
+            throw new IdempotencyKeyReusedException("Idempotency key " + key + " was used for a different request");
+        }
+        return read(record.getResponse(), resultType);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${creditcards.idempotency.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        LocalDateTime createdBefore = LocalDateTime.now().minus(ttl);
+        // deleted in batches so no single statement holds locks on the whole table
+        int deleted;
+        do {
+            deleted = idempotencyKeyRepository.deleteExpired(createdBefore, PURGE_BATCH_SIZE);
+        } while (deleted == PURGE_BATCH_SIZE);
+    }
+
+    private IdempotencyRecord executeOnce(String key, String requestHash, Supplier<?> action) {
+        LocalDateTime claimedAt = claimTime();
+        if (!idempotencyKeyRepository.claim(key, requestHash, claimedAt)) {
+            IdempotencyRecord stored = awaitStored(key, requestHash);
+            if (stored.isCompleted()) {
+                return stored;
+            }
+            claimedAt = stored.getCreatedAt();
+        }
+        LocalDateTime claim = claimedAt;
+        String response;
+        try {
+            // the action joins this transaction, so its writes and the stored result commit together
+            response = transactionTemplate.execute(status -> {
+                String written = write(action.get());
+                if (!idempotencyKeyRepository.complete(key, written, claim, LocalDateTime.now())) {
+                    // taken over after the lock timeout: the other request's result wins, this one rolls back
+                    throw inProgress(key);
+                }
+                return written;
+            });
+        } catch (RuntimeException e) {
+            idempotencyKeyRepository.release(key, claim);
+            throw e;
+        }
+        return IdempotencyRecord.builder()
+                .key(key)
+                .requestHash(requestHash)
+                .response(response)
+                .createdAt(claimedAt)
+                .build();
+    }
+
+    /**
+     * Waits for the request that claimed the key in another instance. Returns its
+     * record once completed, or a pending record with the claim time when this
+     * request claimed the key instead.
+     */
+    private IdempotencyRecord awaitStored(String key, String requestHash) {
+        long deadline = System.currentTimeMillis() + waitMillis;
+        while (true) {
+            IdempotencyRecord stored = idempotencyKeyRepository.find(key);
+            LocalDateTime now = claimTime();
+            if (stored == null) {
+                // the first request failed and released the key
+                if (idempotencyKeyRepository.claim(key, requestHash, now)) {
+                    return claimed(key, requestHash, now);
+                }
+            } else if (stored.isCompleted()) {
+                return stored;
+            } else if (!stored.getRequestHash().equals(requestHash)) {
+                throw new IdempotencyKeyReusedException("Idempotency key " + key + " was used for a different request");
+            } else if (stored.getCreatedAt().isBefore(now.minus(lockTimeout))
+                    && idempotencyKeyRepository.takeOver(key, requestHash, stored.getCreatedAt(), now)) {
+                return claimed(key, requestHash, now);
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                throw inProgress(key);
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw inProgress(key);
+            }
+        }
+    }
+
+    private static IdempotencyRecord claimed(String key, String requestHash, LocalDateTime claimedAt) {
+        return IdempotencyRecord.builder()
+                .key(key)
+                .requestHash(requestHash)
+                .createdAt(claimedAt)
+                .build();
+    }
+
+    /** Claim time as created_at stores it, so later updates can match the claim exactly. */
+    private static LocalDateTime claimTime() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private IdempotencyRecord await(String key, CompletableFuture<IdempotencyRecord> running) {
+        try {
+            return running.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // a concurrent duplicate fails the same way as the request it waited for
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw inProgress(key);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw inProgress(key);
+        }
+    }
+
+    private static IdempotencyKeyInProgressException inProgress(String key) {
+        return new IdempotencyKeyInProgressException("Request with idempotency key " + key + " is still in progress");
+    }
+
+    private String hash(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HEX.formatHex(digest.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String write(Object result) {
+        try {
+            return objectMapper.writeValueAsString(result);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private <T> T read(String response, Class<T> resultType) {
+        try {
+            return objectMapper.readValue(response, resultType);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
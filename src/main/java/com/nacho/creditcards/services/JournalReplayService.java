@@ -0,0 +1,155 @@
+package com.nacho.creditcards.services;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.nacho.creditcards.dto.TransactionSummary;
+import com.nacho.creditcards.entities.CreditCard;
+import com.nacho.creditcards.entities.Transaction;
+import com.nacho.creditcards.repositories.TransactionAggregateRepository;
+import com.nacho.creditcards.repositories.TransactionBatchRepository;
+import com.nacho.creditcards.repositories.TransactionRepository;
+import com.nacho.creditcards.services.archive.TransactionArchive;
+import com.nacho.creditcards.services.interfaces.ICreditCardService;
+import com.nacho.creditcards.services.interfaces.IJournalReplayService;
+import com.nacho.creditcards.services.interfaces.ITransactionAggregateService;
+import com.nacho.creditcards.services.journal.JournalReader;
+import com.nacho.creditcards.services.journal.JournalRecord;
+import com.nacho.creditcards.services.journal.TransactionJournal;
+
+/**
+ * Rebuilds the transactions table from the journal, and the aggregates from the
+ * stored and archived transactions. Replaying transactions is idempotent
+ * (upserts by id and deletes), so an interrupted replay can simply be run again.
+ */
+@Service
+public class JournalReplayService implements IJournalReplayService {
+
+    @Autowired
+    private TransactionJournal transactionJournal;
+
+    @Autowired
+    private TransactionBatchRepository transactionBatchRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionAggregateRepository transactionAggregateRepository;
+
+    @Autowired
+    private ITransactionAggregateService transactionAggregateService;
+
+    @Autowired
+    private ICreditCardService creditCardService;
+
+    @Autowired
+    private TransactionArchive transactionArchive;
+
+    @Override
+    public long replayTransactions() {
+        List<Transaction> upserts = new ArrayList<>(TransactionBatchRepository.BATCH_SIZE);
+        List<Long> deletes = new ArrayList<>();
+        long records = read(record -> {
+            if (record.getType() == JournalRecord.Type.ACCEPTED || record.getType() == JournalRecord.Type.REJECTED) {
+                // not persisted (yet), the write-behind mode writes accepted ones when recovering
+                return;
+            }
+            if (record.getType() == JournalRecord.Type.DELETE) {
+                deletes.add(record.getTransactionId());
+            } else {
+                upserts.add(record.toTransaction());
+            }
+            if (upserts.size() + deletes.size() >= TransactionBatchRepository.BATCH_SIZE) {
+                flush(upserts, deletes);
+            }
+        });
+        flush(upserts, deletes);
+        return records;
+    }
+
+    @Override
+    @Transactional
+    public long rebuildAggregates() {
+        transactionAggregateRepository.deleteAllInBatch();
+        // from the stored rows rather than the journal, which may start after the first
+        // transaction; archived rows are no longer in the table, so each is counted once
+        long counted = 0;
+        long afterId = 0;
+        List<TransactionSummary> page;
+        do {
+            page = transactionRepository.findSummariesAfter(afterId,
+                    PageRequest.of(0, TransactionBatchRepository.BATCH_SIZE));
+            if (!page.isEmpty()) {
+                transactionAggregateService.record(page.stream().map(JournalReplayService::toTransaction).toList());
+                afterId = page.get(page.size() - 1).getId();
+                counted += page.size();
+            }
+        } while (page.size() == TransactionBatchRepository.BATCH_SIZE);
+
+        AtomicLong archivedCount = new AtomicLong();
+        List<Transaction> archived = new ArrayList<>(TransactionBatchRepository.BATCH_SIZE);
+        for (YearMonth month : transactionArchive.months()) {
+            transactionArchive.forEach(month, null, transaction -> {
+                archived.add(transaction);
+                archivedCount.incrementAndGet();
+                if (archived.size() == TransactionBatchRepository.BATCH_SIZE) {
+                    transactionAggregateService.record(archived);
+                    archived.clear();
+                }
+            });
+        }
+        transactionAggregateService.record(archived);
+        return counted + archivedCount.get();
+    }
+
+    // ids are never reused, so within a chunk no upsert follows a delete of the same id
+    private void flush(List<Transaction> upserts, List<Long> deletes) {
+        // the partitioned transactions table has no foreign key to credit_card, rows of
+        // cards deleted since they were journaled are not restored
+        Set<Long> storedCreditCardIds = creditCardService.findExistingCreditCardIds(upserts.stream()
+                .filter(transaction -> transaction.getCreditCard() != null)
+                .map(transaction -> transaction.getCreditCard().getId())
+                .collect(Collectors.toSet()));
+        upserts.removeIf(transaction -> transaction.getCreditCard() != null
+                && !storedCreditCardIds.contains(transaction.getCreditCard().getId()));
+        // archived rows were deleted without a journal record, they stay in the archive
+        Set<Long> archivedIds = transactionArchive.findArchivedIds(upserts.stream()
+                .map(Transaction::getId)
+                .collect(Collectors.toList()));
+        upserts.removeIf(transaction -> archivedIds.contains(transaction.getId()));
+        transactionBatchRepository.upsertAll(upserts);
+        transactionBatchRepository.deleteAllById(deletes);
+        upserts.clear();
+        deletes.clear();
+    }
+
+    private static Transaction toTransaction(TransactionSummary summary) {
+        return Transaction.builder()
+                .id(summary.getId())
+                .creditCard(CreditCard.builder().id(summary.getCreditCardId()).brand(summary.getBrand()).build())
+                .dateTime(summary.getDateTime())
+                .amount(summary.getAmount())
+                .build();
+    }
+
+    private long read(Consumer<JournalRecord> consumer) {
+        try {
+            return JournalReader.forEach(transactionJournal.getDirectory(), consumer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
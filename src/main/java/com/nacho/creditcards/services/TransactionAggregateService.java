@@ -0,0 +1,110 @@
+package com.nacho.creditcards.services;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.nacho.creditcards.entities.CardBrand;
+import com.nacho.creditcards.entities.CreditCard;
+import com.nacho.creditcards.entities.Transaction;
+import com.nacho.creditcards.entities.TransactionAggregate;
+import com.nacho.creditcards.exceptions.CreditCardNotFoundException;
+import com.nacho.creditcards.repositories.TransactionAggregateRepository;
+import com.nacho.creditcards.services.fees.FeeEngine;
+import com.nacho.creditcards.services.interfaces.ICreditCardService;
+import com.nacho.creditcards.services.interfaces.ITransactionAggregateService;
+
+@Service
+public class TransactionAggregateService implements ITransactionAggregateService {
+
+    @Autowired
+    private TransactionAggregateRepository transactionAggregateRepository;
+
+    @Autowired
+    private ICreditCardService creditCardService;
+
+    @Autowired
+    private FeeEngine feeEngine;
+
+    @Override
+    @Transactional
+    public void record(List<Transaction> transactions) {
+        apply(transactions, 1);
+    }
+
+    @Override
+    @Transactional
+    public void unrecord(List<Transaction> transactions) {
+        apply(transactions, -1);
+    }
+
+    @Override
+    public TransactionAggregate getCardAggregate(Long creditCardId, YearMonth period) {
+        String key = TransactionAggregate.cardKey(creditCardId, period);
+        return transactionAggregateRepository.findById(key).orElse(TransactionAggregate.empty(key));
+    }
+
+    @Override
+    public TransactionAggregate getBrandAggregate(CardBrand brand, YearMonth period) {
+        String key = TransactionAggregate.brandKey(brand, period);
+        return transactionAggregateRepository.findById(key).orElse(TransactionAggregate.empty(key));
+    }
+
+    private void apply(List<Transaction> transactions, int sign) {
+        // several transactions of the same card and month become a single upsert; the
+        // keys are sorted so concurrent batches lock the aggregate rows in the same order
+        Map<String, Delta> deltas = new TreeMap<>();
+        Map<Long, CardBrand> brands = new HashMap<>();
+        for (Transaction transaction : transactions) {
+            if (transaction.getCreditCard() == null || transaction.getDateTime() == null || transaction.getAmount() == null) {
+                // incomplete rows (e.g. an update without a date) are not part of any aggregate
+                continue;
+            }
+            CardBrand brand = brands.computeIfAbsent(transaction.getCreditCard().getId(), this::brandOf);
+            YearMonth period = YearMonth.from(transaction.getDateTime());
+            BigDecimal amount = transaction.getAmount();
+            BigDecimal fee = feeEngine.calculateFee(brand, transaction.getDateTime(), amount);
+            if (sign < 0) {
+                amount = amount.negate();
+                fee = fee.negate();
+            }
+            deltas.computeIfAbsent(TransactionAggregate.cardKey(transaction.getCreditCard().getId(), period), k -> new Delta())
+                    .add(sign, amount, fee);
+            deltas.computeIfAbsent(TransactionAggregate.brandKey(brand, period), k -> new Delta())
+                    .add(sign, amount, fee);
+        }
+        deltas.forEach((key, delta) ->
+                transactionAggregateRepository.addToAggregate(key, delta.count, delta.amount, delta.fee));
+    }
+
+    // the brand always comes from the stored card, the one sent with a transaction may be wrong
+    private CardBrand brandOf(Long creditCardId) {
+        CreditCard storedCreditCard = creditCardService.getCreditCardById(creditCardId);
+        if (storedCreditCard == null) {
+            throw new CreditCardNotFoundException("Credit card with id: " + creditCardId + " not found");
+        }
+        return storedCreditCard.getBrand();
+    }
+
+    private static class Delta {
+
+        private long count;
+
+        private BigDecimal amount = BigDecimal.ZERO;
+
+        private BigDecimal fee = BigDecimal.ZERO;
+
+        void add(int sign, BigDecimal amount, BigDecimal fee) {
+            this.count += sign;
+            this.amount = this.amount.add(amount);
+            this.fee = this.fee.add(fee);
+        }
+    }
+}
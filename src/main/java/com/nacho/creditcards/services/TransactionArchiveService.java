@@ -0,0 +1,104 @@
+package com.nacho.creditcards.services;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.nacho.creditcards.entities.CardBrand;
+import com.nacho.creditcards.entities.Transaction;
+import com.nacho.creditcards.repositories.TransactionArchiveRepository;
+import com.nacho.creditcards.repositories.TransactionBatchRepository;
+import com.nacho.creditcards.repositories.TransactionPartitionRepository;
+import com.nacho.creditcards.services.archive.TransactionArchive;
+import com.nacho.creditcards.services.interfaces.ITransactionArchiveService;
+
+/**
+ * Moves transactions of months older than creditcards.archive.horizon-months out
+ * of MySQL into the {@link TransactionArchive} (creditcards.archive.enabled=true).
+ * Each chunk of rows is written to disk before it is deleted, and rewriting a
+ * chunk replaces its files, so an interrupted run is completed by the next one.
+ * Aggregates are left untouched.
+ */
+@Service
+public class TransactionArchiveService implements ITransactionArchiveService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransactionArchiveService.class);
+
+    @Autowired
+    private TransactionArchiveRepository transactionArchiveRepository;
+
+    @Autowired
+    private TransactionPartitionRepository transactionPartitionRepository;
+
+    @Autowired
+    private TransactionBatchRepository transactionBatchRepository;
+
+    @Autowired
+    private TransactionArchive transactionArchive;
+
+    @Value("${creditcards.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${creditcards.archive.horizon-months:12}")
+    private int horizonMonths;
+
+    @Value("${creditcards.archive.rows-per-file:100000}")
+    private int rowsPerFile;
+
+    @Scheduled(cron = "${creditcards.archive.cron:0 30 3 * * *}")
+    public void scheduledArchive() {
+        if (enabled) {
+            archiveExpired();
+        }
+    }
+
+    @Override
+    public long archiveExpired() {
+        return archiveBefore(YearMonth.now().minusMonths(horizonMonths));
+    }
+
+    @Override
+    public synchronized long archiveBefore(YearMonth cutoff) {
+        YearMonth oldest = transactionPartitionRepository.findOldestMonth();
+        long archived = 0;
+        for (YearMonth month = oldest; month != null && month.isBefore(cutoff); month = month.plusMonths(1)) {
+            archived += archiveMonth(month);
+        }
+        if (archived > 0) {
+            LOGGER.info("Archived {} transactions older than {}", archived, cutoff);
+        }
+        return archived;
+    }
+
+    private long archiveMonth(YearMonth month) {
+        LocalDateTime from = month.atDay(1).atStartOfDay();
+        LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+        long afterId = 0;
+        long archived = 0;
+        List<Transaction> chunk;
+        while (!(chunk = transactionArchiveRepository.findChunk(from, to, afterId, rowsPerFile)).isEmpty()) {
+            long chunkId = chunk.get(0).getId();
+            Map<CardBrand, List<Transaction>> byBrand = new EnumMap<>(CardBrand.class);
+            List<Long> ids = new ArrayList<>(chunk.size());
+            for (Transaction transaction : chunk) {
+                byBrand.computeIfAbsent(transaction.getCreditCard().getBrand(), brand -> new ArrayList<>()).add(transaction);
+                ids.add(transaction.getId());
+            }
+            byBrand.forEach((brand, transactions) -> transactionArchive.write(month, brand, chunkId, transactions));
+            transactionBatchRepository.deleteAllById(ids);
+            archived += chunk.size();
+            afterId = chunk.get(chunk.size() - 1).getId();
+        }
+        return archived;
+    }
+}
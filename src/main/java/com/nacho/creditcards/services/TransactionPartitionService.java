@@ -0,0 +1,100 @@
+package com.nacho.creditcards.services;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.nacho.creditcards.repositories.TransactionPartitionRepository;
+import com.nacho.creditcards.services.interfaces.ITransactionPartitionService;
+
+/**
+ * Keeps a monthly partition of the transactions table ready for the current
+ * month and the next creditcards.partitions.months-ahead months, so new rows
+ * never land in the catch-all partition, and drops the partitions older than
+ * creditcards.partitions.retention-months (0 keeps everything). The first
+ * monthly partition starts at the oldest transaction but no more than
+ * creditcards.partitions.months-back months ago; it also holds every older row,
+ * such as the ones V4 dated 1970-01-01 for lack of a date. Dropping a
+ * partition removes its transactions without touching the aggregates. Runs on
+ * startup and then on the creditcards.partitions.cron schedule.
+ */
+@Service
+public class TransactionPartitionService implements ITransactionPartitionService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransactionPartitionService.class);
+
+    @Autowired
+    private TransactionPartitionRepository transactionPartitionRepository;
+
+    @Value("${creditcards.partitions.enabled:true}")
+    private boolean enabled;
+
+    @Value("${creditcards.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${creditcards.partitions.retention-months:0}")
+    private int retentionMonths;
+
+    @Value("${creditcards.partitions.months-back:24}")
+    private int monthsBack;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${creditcards.partitions.cron:0 0 3 * * *}")
+    @Override
+    public void maintainPartitions() {
+        if (!enabled || !transactionPartitionRepository.isPartitioned()) {
+            return;
+        }
+        YearMonth now = YearMonth.now();
+        List<YearMonth> added = addMissingPartitions(now);
+        List<YearMonth> dropped = dropExpiredPartitions(now);
+        if (!added.isEmpty() || !dropped.isEmpty()) {
+            LOGGER.info("Transaction partitions added: {}, dropped: {}", added, dropped);
+        }
+    }
+
+    @Override
+    public List<YearMonth> addMissingPartitions(YearMonth now) {
+        List<YearMonth> existing = transactionPartitionRepository.findMonthlyPartitions();
+        YearMonth first;
+        if (!existing.isEmpty()) {
+            first = existing.get(existing.size() - 1).plusMonths(1);
+        } else {
+            // the first partition also holds every older row
+            YearMonth oldest = transactionPartitionRepository.findOldestMonth();
+            YearMonth earliest = now.minusMonths(monthsBack);
+            first = oldest == null || oldest.isAfter(now) ? now : oldest.isBefore(earliest) ? earliest : oldest;
+        }
+        List<YearMonth> missing = new ArrayList<>();
+        for (YearMonth month = first; !month.isAfter(now.plusMonths(monthsAhead)); month = month.plusMonths(1)) {
+            missing.add(month);
+        }
+        transactionPartitionRepository.addMonthlyPartitions(missing);
+        return missing;
+    }
+
+    @Override
+    public List<YearMonth> dropExpiredPartitions(YearMonth now) {
+        if (retentionMonths <= 0) {
+            return List.of();
+        }
+        YearMonth oldestKept = now.minusMonths(retentionMonths - 1L);
+        List<YearMonth> existing = transactionPartitionRepository.findMonthlyPartitions();
+        List<YearMonth> dropped = new ArrayList<>();
+        // the newest monthly partition is never dropped, it bounds the catch-all one
+        for (int i = 0; i < existing.size() - 1 && existing.get(i).isBefore(oldestKept); i++) {
+            transactionPartitionRepository.dropMonthlyPartition(existing.get(i));
+            dropped.add(existing.get(i));
+        }
+        return dropped;
+    }
+}
@@ -1,39 +1,87 @@
 package com.nacho.creditcards.services;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import io.micrometer.core.annotation.Timed;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.nacho.creditcards.config.MetricsConfig;
+import com.nacho.creditcards.dto.TransactionBatchResult;
+import com.nacho.creditcards.dto.TransactionExportFilter;
+import com.nacho.creditcards.dto.TransactionSummary;
 import com.nacho.creditcards.entities.CardBrand;
 import com.nacho.creditcards.entities.CreditCard;
 import com.nacho.creditcards.entities.Transaction;
+import com.nacho.creditcards.entities.TransactionAggregate;
 import com.nacho.creditcards.exceptions.CreditCardNotFoundException;
 import com.nacho.creditcards.exceptions.CreditCardNotValidException;
 import com.nacho.creditcards.exceptions.TransactionAmountInvalidException;
 import com.nacho.creditcards.exceptions.TransactionNotFoundException;
+import com.nacho.creditcards.exceptions.TransactionQueueFullException;
+import com.nacho.creditcards.repositories.TransactionBatchRepository;
 import com.nacho.creditcards.repositories.TransactionRepository;
+import com.nacho.creditcards.services.archive.TransactionArchive;
+import com.nacho.creditcards.services.fees.FeeEngine;
+import com.nacho.creditcards.services.interfaces.ICreditCardService;
+import com.nacho.creditcards.services.interfaces.ITransactionAggregateService;
 import com.nacho.creditcards.services.interfaces.ITransactionService;
+import com.nacho.creditcards.services.journal.JournalRecord;
+import com.nacho.creditcards.services.journal.TransactionJournal;
 
 @Service
 public class TransactionService implements ITransactionService {
 
+    public static final int MAX_PAGE_SIZE = 1000;
+
     private TransactionRepository transactionRepository;
 
+    @Autowired
+    private TransactionBatchRepository transactionBatchRepository;
+
+    @Autowired
+    private FeeEngine feeEngine;
+
+    @Autowired
+    private ITransactionAggregateService transactionAggregateService;
+
+    @Autowired
+    private TransactionJournal transactionJournal;
+
+    @Autowired
+    private TransactionWriteBehindQueue transactionWriteBehindQueue;
+
+    @Autowired
+    private TransactionArchive transactionArchive;
+
+    @Autowired
+    private ICreditCardService creditCardService;
+
     @Autowired
     public TransactionService(TransactionRepository transactionRepository) {
         this.transactionRepository = transactionRepository;
     }
 
     @Override
+    @Transactional
+    @Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
     public Transaction createTransaction(CreditCard creditCard, BigDecimal amount)
             throws CreditCardNotFoundException, CreditCardNotValidException, TransactionAmountInvalidException {
 
         validateTransaction(creditCard, amount);
+        requireStoredCreditCard(creditCard);
 
         Transaction transaction = Transaction.builder()
                 .creditCard(creditCard)
@@ -41,7 +89,86 @@ public class TransactionService implements ITransactionService {
                 .dateTime(LocalDateTime.now())
                 .build();
 
-        return transactionRepository.save(transaction);
+        Transaction createdTransaction = transactionRepository.save(transaction);
+        transactionAggregateService.record(List.of(createdTransaction));
+        transactionJournal.appendAfterCommit(JournalRecord.Type.CREATE, List.of(createdTransaction));
+        return createdTransaction;
+    }
+    
+    @Override
+    @Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
+    public Transaction enqueueTransaction(CreditCard creditCard, BigDecimal amount)
+            throws CreditCardNotFoundException, CreditCardNotValidException, TransactionAmountInvalidException,
+            TransactionQueueFullException {
+
+        validateTransaction(creditCard, amount);
+        if (creditCard.getId() == null) {
+            throw new CreditCardNotFoundException("Credit card id is required");
+        }
+        requireStoredCreditCard(creditCard);
+
+        Transaction transaction = Transaction.builder()
+                .creditCard(creditCard)
+                .amount(amount)
+                .dateTime(LocalDateTime.now())
+                .build();
+
+        transactionWriteBehindQueue.enqueue(transaction);
+        return transaction;
+    }
+
+    @Override
+    public boolean isWriteBehindEnabled() {
+        return transactionWriteBehindQueue.isEnabled();
+    }
+
+    @Override
+    @Transactional
+    @Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
+    public List<TransactionBatchResult> createTransactions(List<Transaction> transactions) {
+        List<TransactionBatchResult> results = new ArrayList<>(transactions.size());
+        List<Transaction> accepted = new ArrayList<>(transactions.size());
+        List<TransactionBatchResult> acceptedResults = new ArrayList<>(transactions.size());
+        LocalDateTime now = LocalDateTime.now();
+        // every card of the batch is looked up with a single IN query
+        Set<Long> storedCreditCardIds = creditCardService.findExistingCreditCardIds(transactions.stream()
+                .filter(transaction -> transaction.getCreditCard() != null && transaction.getCreditCard().getId() != null)
+                .map(transaction -> transaction.getCreditCard().getId())
+                .collect(Collectors.toSet()));
+
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction transaction = transactions.get(i);
+            TransactionBatchResult result = TransactionBatchResult.builder().index(i).build();
+            results.add(result);
+            try {
+                CreditCard creditCard = transaction.getCreditCard();
+                validateTransaction(creditCard, transaction.getAmount());
+                if (creditCard.getId() == null) {
+                    throw new CreditCardNotFoundException("Credit card id is required");
+                }
+                if (!storedCreditCardIds.contains(creditCard.getId())) {
+                    throw new CreditCardNotFoundException("Credit card with id: " + creditCard.getId() + " not found");
+                }
+                accepted.add(Transaction.builder()
+                        .creditCard(creditCard)
+                        .amount(transaction.getAmount())
+                        .dateTime(now)
+                        .build());
+                acceptedResults.add(result);
+            } catch (CreditCardNotFoundException | CreditCardNotValidException | TransactionAmountInvalidException e) {
+                result.setError(e.getMessage());
+            }
+        }
+
+        transactionBatchRepository.insertAll(accepted);
+        transactionAggregateService.record(accepted);
+        transactionJournal.appendAfterCommit(JournalRecord.Type.CREATE, accepted);
+        for (int i = 0; i < accepted.size(); i++) {
+            TransactionBatchResult result = acceptedResults.get(i);
+            result.setCreated(true);
+            result.setTransactionId(accepted.get(i).getId());
+        }
+        return results;
     }
     
     public void validateTransaction(CreditCard creditCard, BigDecimal amount)
@@ -51,74 +178,218 @@ public class TransactionService implements ITransactionService {
             throw new CreditCardNotFoundException("Credit card not found");
         }
 
-        if (amount.compareTo(BigDecimal.ZERO) <= 0 || amount.compareTo(BigDecimal.valueOf(1000)) > 0) {
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0 || amount.compareTo(BigDecimal.valueOf(1000)) > 0) {
             throw new TransactionAmountInvalidException("Transaction amount is invalid");
         }
     }
 
+    private void requireStoredCreditCard(CreditCard creditCard) throws CreditCardNotFoundException {
+        // the partitioned transactions table has no foreign key to credit_card; the cached
+        // lookup is the one the aggregates use for the brand, so a known card costs no query
+        if (creditCard.getId() == null || creditCardService.getCreditCardById(creditCard.getId()) == null) {
+            throw new CreditCardNotFoundException("Credit card with id: " + creditCard.getId() + " not found");
+        }
+    }
+
     @Override
+    @Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
     public Transaction getTransactionById(Long id) throws TransactionNotFoundException {
         return transactionRepository.findById(id)
+                .or(() -> transactionArchive.findById(id).map(this::withStoredCreditCard))
                 .orElseThrow(() -> new TransactionNotFoundException("Transaction not found"));
     }
 
     @Override
+    @Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
     public List<Transaction> getAllTransactions() {
-        return transactionRepository.findAll();
+        return transactionRepository.findAllWithCreditCard();
     }
 
     @Override
-    public void deleteTransaction(Long id) throws TransactionNotFoundException {
-        if (!transactionRepository.existsById(id)) {
-            throw new TransactionNotFoundException("Transaction not found");
+    @Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
+    public List<Transaction> getTransactionsAfter(Long afterId, int pageSize) {
+        long after = afterId == null ? 0L : afterId;
+        int size = Math.min(Math.max(pageSize, 1), MAX_PAGE_SIZE);
+        return transactionRepository.findPageAfter(after, PageRequest.of(0, size));
+    }
+
+    @Override
+    @Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
+    public List<TransactionSummary> getTransactionSummariesAfter(Long afterId, int pageSize) {
+        long after = afterId == null ? 0L : afterId;
+        int size = Math.min(Math.max(pageSize, 1), MAX_PAGE_SIZE);
+        return transactionRepository.findSummariesAfter(after, PageRequest.of(0, size));
+    }
+
+    @Override
+    @Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
+    public List<Transaction> getTransactionsBetween(LocalDateTime from, LocalDateTime to, LocalDateTime afterDateTime,
+            Long afterId, int pageSize) {
+        // pages follow (dateTime, id); without a cursor inside the range the page starts at from
+        boolean resume = afterDateTime != null && !afterDateTime.isBefore(from);
+        LocalDateTime cursor = resume ? afterDateTime : from;
+        long after = resume && afterId != null ? afterId : 0L;
+        int size = Math.min(Math.max(pageSize, 1), MAX_PAGE_SIZE);
+        List<Transaction> page = transactionRepository.findPageBetween(cursor, after, to, PageRequest.of(0, size));
+        List<Transaction> archived = transactionArchive.findBetween(cursor, after, to, size);
+        if (archived.isEmpty()) {
+            return page;
+        }
+        // archived months are no longer in the table, so both sources are disjoint
+        List<Transaction> merged = new ArrayList<>(page.size() + archived.size());
+        merged.addAll(page);
+        archived.forEach(transaction -> merged.add(withStoredCreditCard(transaction)));
+        merged.sort(Comparator.comparing(Transaction::getDateTime).thenComparing(Transaction::getId));
+        return merged.size() > size ? new ArrayList<>(merged.subList(0, size)) : merged;
+    }
+
+    @Override
+    @Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
+    public List<TransactionSummary> getTransactionSummariesBetween(LocalDateTime from, LocalDateTime to,
+            LocalDateTime afterDateTime, Long afterId, int pageSize) {
+        boolean resume = afterDateTime != null && !afterDateTime.isBefore(from);
+        LocalDateTime cursor = resume ? afterDateTime : from;
+        long after = resume && afterId != null ? afterId : 0L;
+        int size = Math.min(Math.max(pageSize, 1), MAX_PAGE_SIZE);
+        List<TransactionSummary> page = transactionRepository.findSummariesBetween(cursor, after, to, PageRequest.of(0, size));
+        List<Transaction> archived = transactionArchive.findBetween(cursor, after, to, size);
+        if (archived.isEmpty()) {
+            return page;
+        }
+        List<TransactionSummary> merged = new ArrayList<>(page.size() + archived.size());
+        merged.addAll(page);
+        for (Transaction transaction : archived) {
+            merged.add(new TransactionSummary(transaction.getId(), transaction.getDateTime(), transaction.getAmount(),
+                    transaction.getCreditCard().getId(), transaction.getCreditCard().getBrand()));
+        }
+        merged.sort(Comparator.comparing(TransactionSummary::getDateTime).thenComparing(TransactionSummary::getId));
+        return merged.size() > size ? new ArrayList<>(merged.subList(0, size)) : merged;
+    }
+
+    @Override
+    public long getLatestTransactionId() {
+        return transactionRepository.findMaxId();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportTransactions(TransactionExportFilter filter, Consumer<TransactionSummary> consumer) {
+        try (Stream<TransactionSummary> rows = transactionRepository.streamForExport(filter.getUntilId(),
+                filter.getCreditCardId(), filter.getBrand(), filter.getFrom(), filter.getTo())) {
+            rows.forEach(consumer);
+        }
+        // archived rows follow the table's, month by month; only one month is held to sort it by id
+        for (YearMonth month : transactionArchive.months()) {
+            if ((filter.getFrom() != null && month.isBefore(YearMonth.from(filter.getFrom())))
+                    || (filter.getTo() != null && !month.atDay(1).atStartOfDay().isBefore(filter.getTo()))) {
+                continue;
+            }
+            List<TransactionSummary> archived = new ArrayList<>();
+            transactionArchive.forEach(month, filter.getBrand(), transaction -> {
+                if (isExported(transaction, filter)) {
+                    archived.add(new TransactionSummary(transaction.getId(), transaction.getDateTime(),
+                            transaction.getAmount(), transaction.getCreditCard().getId(),
+                            transaction.getCreditCard().getBrand()));
+                }
+            });
+            archived.sort(Comparator.comparing(TransactionSummary::getId));
+            archived.forEach(consumer);
+        }
+    }
+
+    private static boolean isExported(Transaction transaction, TransactionExportFilter filter) {
+        return transaction.getId() <= filter.getUntilId()
+                && (filter.getCreditCardId() == null || filter.getCreditCardId().equals(transaction.getCreditCard().getId()))
+                && (filter.getFrom() == null || !transaction.getDateTime().isBefore(filter.getFrom()))
+                && (filter.getTo() == null || transaction.getDateTime().isBefore(filter.getTo()));
+    }
+
+    @Override
+    @Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
+    public TransactionAggregate getArchivedCardAggregate(Long creditCardId, YearMonth period) {
+        TransactionAggregate aggregate = TransactionAggregate.empty(TransactionAggregate.cardKey(creditCardId, period));
+        transactionArchive.forEach(period, null, transaction -> {
+            if (creditCardId.equals(transaction.getCreditCard().getId())) {
+                addToAggregate(aggregate, transaction);
+            }
+        });
+        return aggregate;
+    }
+
+    @Override
+    @Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
+    public TransactionAggregate getArchivedBrandAggregate(CardBrand brand, YearMonth period) {
+        TransactionAggregate aggregate = TransactionAggregate.empty(TransactionAggregate.brandKey(brand, period));
+        transactionArchive.forEach(period, brand, transaction -> addToAggregate(aggregate, transaction));
+        return aggregate;
+    }
+
+    private void addToAggregate(TransactionAggregate aggregate, Transaction transaction) {
+        if (transaction.getAmount() == null) {
+            return;
         }
-        transactionRepository.deleteById(id);
+        aggregate.setTransactionCount(aggregate.getTransactionCount() + 1);
+        aggregate.setAmountTotal(aggregate.getAmountTotal().add(transaction.getAmount()));
+        aggregate.setFeeTotal(aggregate.getFeeTotal().add(feeEngine.calculateFee(transaction.getCreditCard().getBrand(),
+                transaction.getDateTime(), transaction.getAmount())));
+    }
+
+    /** Archived rows only carry the card id and brand; the rest comes from the (cached) card. */
+    private Transaction withStoredCreditCard(Transaction transaction) {
+        CreditCard creditCard = creditCardService.getCreditCardById(transaction.getCreditCard().getId());
+        if (creditCard != null) {
+            transaction.setCreditCard(creditCard);
+        }
+        return transaction;
+    }
+
+    @Override
+    @Transactional
+    @Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
+    public void deleteTransaction(Long id) throws TransactionNotFoundException {
+        Transaction transaction = transactionRepository.findById(id)
+                .orElseThrow(() -> new TransactionNotFoundException("Transaction not found"));
+        transactionAggregateService.unrecord(List.of(transaction));
+        transactionRepository.delete(transaction);
+        transactionJournal.appendAfterCommit(JournalRecord.Type.DELETE, List.of(transaction));
     }
     
+    @Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
     public BigDecimal calculateFee(Transaction transaction) {
-        BigDecimal fee = BigDecimal.ZERO;
-        int year = transaction.getDateTime().getYear() % 100;
-        int month = transaction.getDateTime().getMonthValue();
-        if (transaction.getCreditCard().getBrand().equals(CardBrand.VISA)) {
-            fee = BigDecimal.valueOf(year).divide(BigDecimal.valueOf(month), 2, RoundingMode.HALF_UP);
-        } else if (transaction.getCreditCard().getBrand().equals(CardBrand.NARA)) {
-            fee = BigDecimal.valueOf(transaction.getDateTime().getDayOfMonth()).multiply(BigDecimal.valueOf(0.5));
-        } else if (transaction.getCreditCard().getBrand().equals(CardBrand.AMEX)) {
-            fee = BigDecimal.valueOf(month).multiply(BigDecimal.valueOf(0.1));
-        }
-        return transaction.getAmount().multiply(fee).divide(BigDecimal.valueOf(100));
+        return feeEngine.calculateFee(transaction.getCreditCard().getBrand(), transaction.getDateTime(), transaction.getAmount());
     }
 
     @Override
+    @Transactional
+    @Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
     public Transaction updateTransaction(Long id, Transaction transaction) throws TransactionNotFoundException {
         Transaction existingTransaction = transactionRepository.findById(id)
                 .orElseThrow(() -> new TransactionNotFoundException("Transaction with id: " + id + " not found"));
+        if (transaction.getCreditCard() != null) {
+            requireStoredCreditCard(transaction.getCreditCard());
+        }
+        transactionAggregateService.unrecord(List.of(existingTransaction));
         
         existingTransaction.setCreditCard(transaction.getCreditCard());
         existingTransaction.setAmount(transaction.getAmount());
-        existingTransaction.setDateTime(transaction.getDateTime());
+        if (transaction.getDateTime() != null) {
+            // date_time is the partitioning column and cannot be cleared
+            existingTransaction.setDateTime(transaction.getDateTime());
+        }
 
-        return transactionRepository.save(existingTransaction);
+        Transaction updatedTransaction = transactionRepository.save(existingTransaction);
+        transactionAggregateService.record(List.of(updatedTransaction));
+        transactionJournal.appendAfterCommit(JournalRecord.Type.UPDATE, List.of(updatedTransaction));
+        return updatedTransaction;
     }
 
     @Override
+    @Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
     public BigDecimal simulateTransactionAndGetFee(String brand, BigDecimal amount) {
         BigDecimal fee = BigDecimal.ZERO;
         if (brand != null && amount != null) {
             CardBrand cardBrand = CardBrand.valueOf(brand.toUpperCase());
-            LocalDateTime now = LocalDateTime.now();
-            CreditCard creditCard = CreditCard.builder()
-                    .brand(cardBrand)
-                    .expirationDate(YearMonth.from(now.plusYears(1)))
-                    .holderName("John Doe")
-                    .cardNumber("1234567890123456")
-                    .build();
-            Transaction transaction = Transaction.builder()
-                    .creditCard(creditCard)
-                    .dateTime(now)
-                    .amount(amount)
-                    .build();
-            fee = calculateFee(transaction);
+            fee = feeEngine.calculateFee(cardBrand, LocalDateTime.now(), amount);
         }
         return fee;
     }
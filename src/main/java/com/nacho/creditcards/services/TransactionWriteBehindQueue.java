@@ -0,0 +1,348 @@
+package com.nacho.creditcards.services;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.nacho.creditcards.entities.Transaction;
+import com.nacho.creditcards.exceptions.TransactionQueueFullException;
+import com.nacho.creditcards.repositories.TransactionBatchRepository;
+import com.nacho.creditcards.services.interfaces.ICreditCardService;
+import com.nacho.creditcards.services.interfaces.ITransactionAggregateService;
+import com.nacho.creditcards.services.journal.JournalReader;
+import com.nacho.creditcards.services.journal.JournalRecord;
+import com.nacho.creditcards.services.journal.TransactionJournal;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Write-behind mode for new transactions (creditcards.write-behind.enabled=true).
+ * Validated transactions are journaled as ACCEPTED and queued; a single writer
+ * thread inserts them in JDBC batches once the batch is full or the flush
+ * interval has passed. When the queue is full callers wait up to the offer
+ * timeout and are then rejected. Each batch is journaled once committed: a
+ * CREATE record for every stored row and a REJECTED record for every row the
+ * database refused. On shutdown the queue is drained before the journal is
+ * closed, and on startup ACCEPTED records without either are queued again; rows
+ * that committed before their CREATE record was written are recognised by their
+ * values instead of being inserted twice. Each stored row is matched to at most
+ * one recovered record, and rows already journaled by a CREATE record to none,
+ * so identical transactions accepted in the same microsecond stay distinct. The
+ * mode requires the journal.
+ */
+@Component
+public class TransactionWriteBehindQueue {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransactionWriteBehindQueue.class);
+
+    private final boolean enabled;
+
+    private final int batchSize;
+
+    private final long flushIntervalMillis;
+
+    private final long offerTimeoutMillis;
+
+    private final Semaphore capacity;
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    // stored rows already accounted for by a journal record, not to be matched by a recovered one
+    private final Set<Long> claimedIds = new HashSet<>();
+
+    @Autowired
+    private TransactionBatchRepository transactionBatchRepository;
+
+    @Autowired
+    private ITransactionAggregateService transactionAggregateService;
+
+    @Autowired
+    private TransactionJournal transactionJournal;
+
+    @Autowired
+    private ICreditCardService creditCardService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private volatile boolean running;
+
+    private Thread writer;
+
+    public TransactionWriteBehindQueue(@Value("${creditcards.write-behind.enabled:false}") boolean enabled,
+            @Value("${creditcards.write-behind.capacity:10000}") int capacity,
+            @Value("${creditcards.write-behind.batch-size:500}") int batchSize,
+            @Value("${creditcards.write-behind.flush-interval-ms:50}") long flushIntervalMillis,
+            @Value("${creditcards.write-behind.offer-timeout-ms:100}") long offerTimeoutMillis) {
+        this.enabled = enabled;
+        this.capacity = new Semaphore(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled || running) {
+            return;
+        }
+        if (!transactionJournal.isEnabled()) {
+            // without ACCEPTED records a queued transaction would be lost on a crash
+            throw new IllegalStateException(
+                    "The write-behind mode requires the transaction journal (creditcards.journal.enabled=true)");
+        }
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        running = true;
+        writer = new Thread(this::writeLoop, "transaction-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+        recover();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        writer.join();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /** Queues a validated transaction, waiting up to the offer timeout for room in the queue. */
+    public void enqueue(Transaction transaction) {
+        if (!running) {
+            throw new IllegalStateException("The write-behind queue is not running");
+        }
+        boolean acquired;
+        try {
+            acquired = capacity.tryAcquire(offerTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            throw new TransactionQueueFullException("The transaction queue is full, retry later");
+        }
+        try {
+            // date_time is stored with microseconds, so the recovery can match the stored row exactly
+            transaction.setDateTime(transaction.getDateTime().truncatedTo(ChronoUnit.MICROS));
+            long sequence = transactionJournal.append(JournalRecord.Type.ACCEPTED, List.of(transaction));
+            queue.add(new Pending(sequence, transaction, false));
+        } catch (RuntimeException e) {
+            capacity.release();
+            throw e;
+        }
+    }
+
+    private void recover() throws IOException {
+        Map<Long, JournalRecord> accepted = new LinkedHashMap<>();
+        JournalReader.forEach(transactionJournal.getDirectory(), record -> {
+            if (record.getType() == JournalRecord.Type.ACCEPTED) {
+                accepted.put(record.getSequence(), record);
+            } else if (record.getReference() != 0) {
+                accepted.remove(record.getReference());
+            }
+        });
+        if (accepted.isEmpty()) {
+            return;
+        }
+        // rows of CREATE records look the same as the recovered ones but belong to other transactions
+        Set<RowValues> recovering = accepted.values().stream().map(RowValues::of).collect(Collectors.toSet());
+        JournalReader.forEach(transactionJournal.getDirectory(), record -> {
+            if (record.getType() == JournalRecord.Type.CREATE && recovering.contains(RowValues.of(record))) {
+                claimedIds.add(record.getTransactionId());
+            }
+        });
+        for (JournalRecord record : accepted.values()) {
+            capacity.acquireUninterruptibly();
+            queue.add(new Pending(record.getSequence(), record.toTransaction(), true));
+        }
+    }
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                fill(batch);
+                if (!batch.isEmpty()) {
+                    write(batch);
+                    capacity.release(batch.size());
+                    batch.clear();
+                }
+            }
+        } catch (InterruptedException e) {
+            // whatever is left is journaled as ACCEPTED and queued again on the next start
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void fill(List<Pending> batch) throws InterruptedException {
+        Pending first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                return;
+            }
+            Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void write(List<Pending> batch) throws InterruptedException {
+        List<Pending> created = new ArrayList<>(batch.size());
+        List<Pending> rejected = new ArrayList<>();
+        try {
+            persistWithRetry(batch, created, rejected);
+        } catch (DataIntegrityViolationException e) {
+            // a row the database refuses must not block the rest of the batch
+            for (Pending pending : batch) {
+                try {
+                    persistWithRetry(List.of(pending), created, rejected);
+                } catch (DataIntegrityViolationException refused) {
+                    rejected.add(pending);
+                }
+            }
+        }
+        journal(created, rejected);
+    }
+
+    private void persistWithRetry(List<Pending> batch, List<Pending> created, List<Pending> rejected)
+            throws InterruptedException {
+        while (true) {
+            try {
+                persist(batch, created, rejected);
+                return;
+            } catch (DataIntegrityViolationException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                if (!running) {
+                    // left for the recovery on the next start
+                    return;
+                }
+                Thread.sleep(flushIntervalMillis);
+            }
+        }
+    }
+
+    /** Inserts the batch in one database transaction and reports the outcome of each row once it commits. */
+    private void persist(List<Pending> batch, List<Pending> created, List<Pending> rejected) {
+        List<Pending> stored = new ArrayList<>(batch.size());
+        List<Pending> refused = new ArrayList<>();
+        Set<Long> matched = new HashSet<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            stored.clear();
+            refused.clear();
+            matched.clear();
+            // the partitioned transactions table has no foreign key to credit_card, so rows
+            // of a card deleted after they were accepted are refused here
+            Set<Long> storedCreditCardIds = creditCardService.findExistingCreditCardIds(batch.stream()
+                    .map(pending -> pending.transaction.getCreditCard().getId())
+                    .collect(Collectors.toSet()));
+            List<Transaction> inserts = new ArrayList<>(batch.size());
+            for (Pending pending : batch) {
+                Transaction transaction = pending.transaction;
+                if (!storedCreditCardIds.contains(transaction.getCreditCard().getId())) {
+                    refused.add(pending);
+                    continue;
+                }
+                stored.add(pending);
+                if (pending.recovered) {
+                    // the previous run may have committed it without writing its CREATE record
+                    Long id = transactionBatchRepository.findMatchingIds(transaction).stream()
+                            .filter(candidate -> !claimedIds.contains(candidate) && !matched.contains(candidate))
+                            .findFirst()
+                            .orElse(null);
+                    if (id != null) {
+                        matched.add(id);
+                        transaction.setId(id);
+                        continue;
+                    }
+                }
+                inserts.add(transaction);
+            }
+            transactionBatchRepository.insertAll(inserts);
+            transactionAggregateService.record(inserts);
+        });
+        claimedIds.addAll(matched);
+        created.addAll(stored);
+        rejected.addAll(refused);
+    }
+
+    /** Journals the outcome of committed rows, so the recovery does not queue them again. */
+    private void journal(List<Pending> created, List<Pending> rejected) {
+        rejectedCount.addAndGet(rejected.size());
+        try {
+            transactionJournal.appendCreated(transactionsOf(created), sequencesOf(created));
+            transactionJournal.appendRejected(transactionsOf(rejected), sequencesOf(rejected));
+        } catch (RuntimeException e) {
+            // the rows are committed; the recovery recognises them by their values
+            LOGGER.warn("Could not journal {} written transactions", created.size() + rejected.size(), e);
+        }
+    }
+
+    private static List<Transaction> transactionsOf(List<Pending> pendings) {
+        return pendings.stream().map(Pending::transaction).toList();
+    }
+
+    private static long[] sequencesOf(List<Pending> pendings) {
+        return pendings.stream().mapToLong(Pending::sequence).toArray();
+    }
+
+    private record Pending(long sequence, Transaction transaction, boolean recovered) {
+    }
+
+    private record RowValues(Long creditCardId, LocalDateTime dateTime, BigDecimal amount) {
+
+        static RowValues of(JournalRecord record) {
+            return new RowValues(record.getCreditCardId(), record.getDateTime(), record.getAmount().stripTrailingZeros());
+        }
+    }
+}
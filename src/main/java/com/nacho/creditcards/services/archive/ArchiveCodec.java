@@ -0,0 +1,218 @@
+package com.nacho.creditcards.services.archive;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.nacho.creditcards.entities.CardBrand;
+import com.nacho.creditcards.entities.Transaction;
+
+/**
+ * Binary layout of an archive file:
+ *
+ * <pre>
+ * int    magic "TXA1"
+ * short  brand code
+ * int    month as yyyymm
+ * int    row count
+ * long   min id
+ * long   max id
+ * int    CRC32 of the compressed body
+ * byte[] deflate-compressed body
+ * </pre>
+ *
+ * The body stores one column after the other, rows sorted by id, each value a
+ * variable-length long: id deltas, credit card id deltas (zigzag), date time
+ * deltas in epoch microseconds, UTC (zigzag), and amounts in cents (zigzag,
+ * Long.MIN_VALUE when null). Sorted ids and close timestamps become one or two
+ * bytes per row before compression.
+ */
+final class ArchiveCodec {
+
+    static final int MAGIC = 0x54584131;
+
+    static final int HEADER_SIZE = 4 + 2 + 4 + 4 + 8 + 8 + 4;
+
+    private ArchiveCodec() {
+    }
+
+    /** Encodes the transactions, which must be sorted by id and share the brand and month. */
+    static byte[] encode(YearMonth month, CardBrand brand, List<Transaction> transactions) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (DeflaterOutputStream body = new DeflaterOutputStream(compressed, new Deflater(Deflater.BEST_COMPRESSION))) {
+            long previous = 0;
+            for (Transaction transaction : transactions) {
+                writeVarLong(body, transaction.getId() - previous);
+                previous = transaction.getId();
+            }
+            previous = 0;
+            for (Transaction transaction : transactions) {
+                long creditCardId = transaction.getCreditCard().getId();
+                writeVarLong(body, zigzag(creditCardId - previous));
+                previous = creditCardId;
+            }
+            previous = 0;
+            for (Transaction transaction : transactions) {
+                long micros = ArchiveColumns.epochMicros(transaction.getDateTime());
+                writeVarLong(body, zigzag(micros - previous));
+                previous = micros;
+            }
+            for (Transaction transaction : transactions) {
+                BigDecimal amount = transaction.getAmount();
+                writeVarLong(body, zigzag(amount == null ? ArchiveColumns.NULL_AMOUNT
+                        : amount.setScale(ArchiveColumns.AMOUNT_SCALE).unscaledValue().longValueExact()));
+            }
+        }
+        byte[] payload = compressed.toByteArray();
+
+        ByteBuffer file = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        file.putInt(MAGIC);
+        file.putShort(brand.getCode());
+        file.putInt(month.getYear() * 100 + month.getMonthValue());
+        file.putInt(transactions.size());
+        file.putLong(transactions.isEmpty() ? 0 : transactions.get(0).getId());
+        file.putLong(transactions.isEmpty() ? 0 : transactions.get(transactions.size() - 1).getId());
+        file.putInt(checksum(payload));
+        file.put(payload);
+        return file.array();
+    }
+
+    static ArchiveFile decodeHeader(Path path, byte[] header) throws IOException {
+        if (header.length < HEADER_SIZE) {
+            throw new IOException("Truncated archive file " + path);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(header);
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not an archive file: " + path);
+        }
+        CardBrand brand = CardBrand.fromCode(buffer.getShort());
+        int yyyymm = buffer.getInt();
+        return ArchiveFile.builder()
+                .path(path)
+                .brand(brand)
+                .month(YearMonth.of(yyyymm / 100, yyyymm % 100))
+                .rowCount(buffer.getInt())
+                .minId(buffer.getLong())
+                .maxId(buffer.getLong())
+                .build();
+    }
+
+    /** Decodes every column of the file. */
+    static ArchiveColumns decode(ArchiveFile file, byte[] content) throws IOException {
+        int rows = file.getRowCount();
+        long[] creditCardIds = new long[rows];
+        long[] micros = new long[rows];
+        long[] cents = new long[rows];
+        long[] ids;
+        try (InputStream body = body(file, content)) {
+            ids = readIds(body, rows);
+            long previous = 0;
+            for (int i = 0; i < rows; i++) {
+                previous += unzigzag(readVarLong(body));
+                creditCardIds[i] = previous;
+            }
+            previous = 0;
+            for (int i = 0; i < rows; i++) {
+                previous += unzigzag(readVarLong(body));
+                micros[i] = previous;
+            }
+            for (int i = 0; i < rows; i++) {
+                cents[i] = unzigzag(readVarLong(body));
+            }
+        }
+        return new ArchiveColumns(file.getBrand(), ids, creditCardIds, micros, cents);
+    }
+
+    /** Decodes only the id column, the first of the body, so the rest is never inflated. */
+    static long[] decodeIds(ArchiveFile file, byte[] content) throws IOException {
+        try (InputStream body = body(file, content)) {
+            return readIds(body, file.getRowCount());
+        }
+    }
+
+    /** Decodes the card column, the second of the body, leaving dates and amounts compressed. */
+    static long[] decodeCreditCardIds(ArchiveFile file, byte[] content) throws IOException {
+        int rows = file.getRowCount();
+        long[] creditCardIds = new long[rows];
+        try (InputStream body = body(file, content)) {
+            readIds(body, rows);
+            long previous = 0;
+            for (int i = 0; i < rows; i++) {
+                previous += unzigzag(readVarLong(body));
+                creditCardIds[i] = previous;
+            }
+        }
+        return creditCardIds;
+    }
+
+    private static InputStream body(ArchiveFile file, byte[] content) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        buffer.position(HEADER_SIZE - 4);
+        int expectedChecksum = buffer.getInt();
+        byte[] payload = new byte[content.length - HEADER_SIZE];
+        buffer.get(payload);
+        if (checksum(payload) != expectedChecksum) {
+            throw new IOException("Corrupted archive file " + file.getPath());
+        }
+        return new InflaterInputStream(new ByteArrayInputStream(payload));
+    }
+
+    private static long[] readIds(InputStream body, int rows) throws IOException {
+        long[] ids = new long[rows];
+        long previous = 0;
+        for (int i = 0; i < rows; i++) {
+            previous += readVarLong(body);
+            ids[i] = previous;
+        }
+        return ids;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Truncated archive column");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed archive value");
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,86 @@
+package com.nacho.creditcards.services.archive;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+import com.nacho.creditcards.entities.CardBrand;
+import com.nacho.creditcards.entities.CreditCard;
+import com.nacho.creditcards.entities.Transaction;
+
+/**
+ * Decoded columns of one archive file, rows sorted by id. Kept in the archive's
+ * cache as plain arrays; a {@link Transaction} is only built for the rows a
+ * lookup actually returns, so callers are free to modify it.
+ */
+final class ArchiveColumns {
+
+    static final long NULL_AMOUNT = Long.MIN_VALUE;
+
+    static final int AMOUNT_SCALE = 2;
+
+    private final CardBrand brand;
+
+    private final long[] ids;
+
+    private final long[] creditCardIds;
+
+    private final long[] micros;
+
+    private final long[] cents;
+
+    ArchiveColumns(CardBrand brand, long[] ids, long[] creditCardIds, long[] micros, long[] cents) {
+        this.brand = brand;
+        this.ids = ids;
+        this.creditCardIds = creditCardIds;
+        this.micros = micros;
+        this.cents = cents;
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    long id(int row) {
+        return ids[row];
+    }
+
+    LocalDateTime dateTime(int row) {
+        return fromEpochMicros(micros[row]);
+    }
+
+    /** Row of the id, or -1 when the file does not contain it. */
+    int indexOf(long id) {
+        int index = Arrays.binarySearch(ids, id);
+        return index >= 0 ? index : -1;
+    }
+
+    boolean containsCreditCard(long creditCardId) {
+        for (long stored : creditCardIds) {
+            if (stored == creditCardId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** A new transaction with the row's values and a credit card that only carries its id and brand. */
+    Transaction row(int row) {
+        return Transaction.builder()
+                .id(ids[row])
+                .creditCard(CreditCard.builder().id(creditCardIds[row]).brand(brand).build())
+                .dateTime(dateTime(row))
+                .amount(cents[row] == NULL_AMOUNT ? null : BigDecimal.valueOf(cents[row], AMOUNT_SCALE))
+                .build();
+    }
+
+    static long epochMicros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + dateTime.getNano() / 1_000;
+    }
+
+    static LocalDateTime fromEpochMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+}
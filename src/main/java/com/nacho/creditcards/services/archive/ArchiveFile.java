@@ -0,0 +1,38 @@
+package com.nacho.creditcards.services.archive;
+
+import java.nio.file.Path;
+import java.time.YearMonth;
+
+import com.nacho.creditcards.entities.CardBrand;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Header of one archive file: the transactions of one brand in one month, with
+ * the id range used to skip files without decompressing them.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchiveFile {
+
+    private Path path;
+
+    private YearMonth month;
+
+    private CardBrand brand;
+
+    private int rowCount;
+
+    private long minId;
+
+    private long maxId;
+
+    public boolean mayContain(long id) {
+        return id >= minId && id <= maxId;
+    }
+}
@@ -0,0 +1,302 @@
+package com.nacho.creditcards.services.archive;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nacho.creditcards.entities.CardBrand;
+import com.nacho.creditcards.entities.Transaction;
+
+/**
+ * Compressed columnar files of transactions moved out of MySQL, one directory
+ * per month and one file per brand and archived chunk
+ * (archive/2024-03/VISA-00000000000000001234.txa). File headers are kept in
+ * memory so lookups only decompress the files whose month or id range matches,
+ * and decoded files are cached up to creditcards.archive.cache-rows rows.
+ */
+@Component
+public class TransactionArchive {
+
+    private static final String FILE_SUFFIX = ".txa";
+
+    private static final Comparator<Transaction> KEYSET_ORDER =
+            Comparator.comparing(Transaction::getDateTime).thenComparing(Transaction::getId);
+
+    private final Path directory;
+
+    private final Cache<Path, ArchiveColumns> decoded;
+
+    private volatile List<ArchiveFile> files;
+
+    public TransactionArchive(@Value("${creditcards.archive.directory:archive}") String directory,
+            @Value("${creditcards.archive.cache-rows:1000000}") long cacheRows) {
+        this.directory = Paths.get(directory);
+        this.decoded = Caffeine.newBuilder()
+                .maximumWeight(cacheRows)
+                .<Path, ArchiveColumns>weigher((path, columns) -> Math.max(columns.size(), 1))
+                .build();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Writes the transactions of one brand and month, sorted by id, replacing the
+     * file of an earlier attempt at the same chunk. Returns once the file is on disk.
+     */
+    public synchronized ArchiveFile write(YearMonth month, CardBrand brand, long chunkId, List<Transaction> transactions) {
+        try {
+            Path monthDirectory = directory.resolve(month.toString());
+            Files.createDirectories(monthDirectory);
+            Path path = monthDirectory.resolve(String.format("%s-%020d%s", brand, chunkId, FILE_SUFFIX));
+            Path temporary = monthDirectory.resolve(path.getFileName() + ".tmp");
+            byte[] content = ArchiveCodec.encode(month, brand, transactions);
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(content));
+                channel.force(true);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            ArchiveFile file = ArchiveCodec.decodeHeader(path, content);
+            List<ArchiveFile> updated = new ArrayList<>(files());
+            updated.removeIf(existing -> existing.getPath().equals(path));
+            updated.add(file);
+            updated.sort(Comparator.comparingLong(ArchiveFile::getMinId));
+            files = List.copyOf(updated);
+            decoded.invalidate(path);
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Headers of every archive file, ordered by their first id. */
+    public List<ArchiveFile> files() {
+        List<ArchiveFile> current = files;
+        if (current == null) {
+            synchronized (this) {
+                if (files == null) {
+                    files = scan();
+                }
+                current = files;
+            }
+        }
+        return current;
+    }
+
+    /** The months with archived transactions, oldest first. */
+    public SortedSet<YearMonth> months() {
+        return files().stream()
+                .map(ArchiveFile::getMonth)
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    public boolean isEmpty() {
+        return files().isEmpty();
+    }
+
+    public Optional<Transaction> findById(long id) {
+        for (ArchiveFile file : files()) {
+            if (!file.mayContain(id)) {
+                continue;
+            }
+            ArchiveColumns columns = decoded.getIfPresent(file.getPath());
+            if (columns == null && Arrays.binarySearch(readIds(file), id) < 0) {
+                // a miss only inflates the id column and leaves the cache alone
+                continue;
+            }
+            columns = columns == null ? read(file) : columns;
+            int row = columns.indexOf(id);
+            if (row >= 0) {
+                return Optional.of(columns.row(row));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /** The ids of the given ones that are archived. */
+    public Set<Long> findArchivedIds(Collection<Long> ids) {
+        Set<Long> archived = new HashSet<>();
+        if (ids.isEmpty()) {
+            return archived;
+        }
+        long[] sorted = ids.stream().mapToLong(Long::longValue).sorted().toArray();
+        for (ArchiveFile file : files()) {
+            int from = firstAtLeast(sorted, file.getMinId());
+            if (from == sorted.length || sorted[from] > file.getMaxId()) {
+                continue;
+            }
+            ArchiveColumns columns = decoded.getIfPresent(file.getPath());
+            long[] fileIds = columns == null ? readIds(file) : null;
+            for (int i = from; i < sorted.length && sorted[i] <= file.getMaxId(); i++) {
+                boolean found = columns == null ? Arrays.binarySearch(fileIds, sorted[i]) >= 0 : columns.indexOf(sorted[i]) >= 0;
+                if (found) {
+                    archived.add(sorted[i]);
+                }
+            }
+        }
+        return archived;
+    }
+
+    /**
+     * Whether any archived transaction belongs to the card. Files missing from the
+     * cache are read without being cached, since every file is visited.
+     */
+    public boolean containsCreditCard(long creditCardId) {
+        for (ArchiveFile file : files()) {
+            ArchiveColumns columns = decoded.getIfPresent(file.getPath());
+            if (columns != null ? columns.containsCreditCard(creditCardId)
+                    : LongStream.of(readCreditCardIds(file)).anyMatch(stored -> stored == creditCardId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Archived transactions after the (afterDateTime, afterId) cursor and before
+     * to, ordered by date time and id like the table's pages. Files are visited
+     * month by month, so once limit rows are found the later months are not read.
+     */
+    public List<Transaction> findBetween(LocalDateTime afterDateTime, long afterId, LocalDateTime to, int limit) {
+        YearMonth first = YearMonth.from(afterDateTime);
+        YearMonth last = YearMonth.from(to.minusNanos(1));
+        List<ArchiveFile> candidates = new ArrayList<>();
+        for (ArchiveFile file : files()) {
+            if (!file.getMonth().isBefore(first) && !file.getMonth().isAfter(last)) {
+                candidates.add(file);
+            }
+        }
+        candidates.sort(Comparator.comparing(ArchiveFile::getMonth));
+        // the limit first rows found so far, last on top
+        PriorityQueue<Transaction> firstRows = new PriorityQueue<>(limit + 1, KEYSET_ORDER.reversed());
+        for (ArchiveFile file : candidates) {
+            if (firstRows.size() >= limit
+                    && file.getMonth().atDay(1).atStartOfDay().isAfter(firstRows.peek().getDateTime())) {
+                break;
+            }
+            ArchiveColumns columns = read(file);
+            for (int row = 0; row < columns.size(); row++) {
+                LocalDateTime dateTime = columns.dateTime(row);
+                if (dateTime.isBefore(afterDateTime) || !dateTime.isBefore(to)
+                        || (dateTime.equals(afterDateTime) && columns.id(row) <= afterId)) {
+                    continue;
+                }
+                if (firstRows.size() >= limit && isAfter(dateTime, columns.id(row), firstRows.peek())) {
+                    continue;
+                }
+                firstRows.add(columns.row(row));
+                if (firstRows.size() > limit) {
+                    firstRows.poll();
+                }
+            }
+        }
+        List<Transaction> found = new ArrayList<>(firstRows);
+        found.sort(KEYSET_ORDER);
+        return found;
+    }
+
+    /** Passes every archived transaction of the month, of one brand or of all when brand is null. */
+    public void forEach(YearMonth month, CardBrand brand, Consumer<Transaction> consumer) {
+        for (ArchiveFile file : files()) {
+            if (file.getMonth().equals(month) && (brand == null || file.getBrand() == brand)) {
+                ArchiveColumns columns = read(file);
+                for (int row = 0; row < columns.size(); row++) {
+                    consumer.accept(columns.row(row));
+                }
+            }
+        }
+    }
+
+    private static boolean isAfter(LocalDateTime dateTime, long id, Transaction transaction) {
+        int compared = dateTime.compareTo(transaction.getDateTime());
+        return compared > 0 || (compared == 0 && id > transaction.getId());
+    }
+
+    private ArchiveColumns read(ArchiveFile file) {
+        return decoded.get(file.getPath(), path -> {
+            try {
+                return ArchiveCodec.decode(file, Files.readAllBytes(path));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private long[] readIds(ArchiveFile file) {
+        try {
+            return ArchiveCodec.decodeIds(file, Files.readAllBytes(file.getPath()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long[] readCreditCardIds(ArchiveFile file) {
+        try {
+            return ArchiveCodec.decodeCreditCardIds(file, Files.readAllBytes(file.getPath()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<ArchiveFile> scan() {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> paths = Files.walk(directory, 2)) {
+            List<ArchiveFile> found = new ArrayList<>();
+            for (Path path : (Iterable<Path>) paths.filter(p -> p.getFileName().toString().endsWith(FILE_SUFFIX))::iterator) {
+                try (InputStream in = Files.newInputStream(path)) {
+                    found.add(ArchiveCodec.decodeHeader(path, in.readNBytes(ArchiveCodec.HEADER_SIZE)));
+                }
+            }
+            found.sort(Comparator.comparingLong(ArchiveFile::getMinId));
+            return List.copyOf(found);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Index of the first value at least min in the sorted array, its length when there is none. */
+    private static int firstAtLeast(long[] sorted, long min) {
+        int index = Arrays.binarySearch(sorted, min);
+        if (index < 0) {
+            return -index - 1;
+        }
+        while (index > 0 && sorted[index - 1] == min) {
+            index--;
+        }
+        return index;
+    }
+}
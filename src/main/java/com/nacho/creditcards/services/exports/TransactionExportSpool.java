@@ -0,0 +1,134 @@
+package com.nacho.creditcards.services.exports;
+
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Compressed exports spooled to files in creditcards.export.directory. The ETag
+ * of a spooled export is derived from its bytes (CRC32 and length), so a
+ * download resumed with If-Range is served from the very file it started from,
+ * even when the exported rows have changed since. Files are kept for
+ * creditcards.export.ttl-minutes after their last use, at most
+ * creditcards.export.max-files of them.
+ */
+@Component
+public class TransactionExportSpool {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransactionExportSpool.class);
+
+    private static final String FILE_PREFIX = "export-";
+
+    private static final String FILE_SUFFIX = ".gz";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+
+    private final Cache<String, SpooledExport> spooled;
+
+    public TransactionExportSpool(@Value("${creditcards.export.directory:exports}") String directory,
+            @Value("${creditcards.export.ttl-minutes:60}") long ttlMinutes,
+            @Value("${creditcards.export.max-files:100}") long maxFiles) {
+        this.directory = Paths.get(directory);
+        this.spooled = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(ttlMinutes))
+                .maximumSize(maxFiles)
+                .<String, SpooledExport>removalListener((etag, export, cause) -> delete(export.path()))
+                .build();
+    }
+
+    /** Creates the directory and removes the files spooled before a restart, no ETag points to them anymore. */
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                delete(file);
+            }
+        }
+    }
+
+    /**
+     * Writes the export to a new file and returns it. When an export with the
+     * same key and the same bytes is already spooled, that one is returned.
+     */
+    public SpooledExport spool(String key, String fileName, StreamingResponseBody body) throws IOException {
+        Path file = Files.createTempFile(directory, FILE_PREFIX, FILE_SUFFIX);
+        CRC32 crc = new CRC32();
+        try (OutputStream outputStream = new CheckedOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE), crc)) {
+            body.writeTo(outputStream);
+        } catch (IOException | RuntimeException e) {
+            delete(file);
+            throw e;
+        }
+        long length = Files.size(file);
+        String etag = "\"" + key + "-" + Long.toHexString(crc.getValue()) + "-" + Long.toHexString(length) + "\"";
+        SpooledExport export = new SpooledExport(key, etag, fileName, file, length);
+        SpooledExport existing = spooled.asMap().putIfAbsent(etag, export);
+        if (existing != null) {
+            delete(file);
+            return existing;
+        }
+        return export;
+    }
+
+    /** The spooled export with the ETag, or null when it expired or belongs to another export key. */
+    public SpooledExport find(String key, String etag) {
+        SpooledExport export = etag == null ? null : spooled.getIfPresent(etag);
+        return export != null && export.key().equals(key) && Files.exists(export.path()) ? export : null;
+    }
+
+    /** Serves the bytes first..last (inclusive) of a spooled export. */
+    public static StreamingResponseBody range(SpooledExport export, long first, long last) {
+        return outputStream -> {
+            try (FileChannel channel = FileChannel.open(export.path(), StandardOpenOption.READ)) {
+                WritableByteChannel target = Channels.newChannel(outputStream);
+                long position = first;
+                while (position <= last) {
+                    long sent = channel.transferTo(position, last - position + 1, target);
+                    if (sent <= 0) {
+                        throw new EOFException("Spooled export " + export.path() + " ended at byte " + position);
+                    }
+                    position += sent;
+                }
+            }
+            outputStream.flush();
+        };
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.warn("Could not delete spooled export {}", file, e);
+        }
+    }
+
+    public record SpooledExport(String key, String etag, String fileName, Path path, long length) {
+    }
+}
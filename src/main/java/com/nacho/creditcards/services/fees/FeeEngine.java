@@ -0,0 +1,87 @@
+package com.nacho.creditcards.services.fees;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.nacho.creditcards.entities.CardBrand;
+
+/**
+ * Precomputes the fee of every (brand, year of century, month, day) into a flat
+ * table of multipliers (rate / 100). Computing a fee is then an index lookup and
+ * a single multiplication. Equal multipliers share the same instance, so the
+ * table only holds references.
+ */
+@Component
+public class FeeEngine {
+
+    private static final int YEARS = 100;
+    private static final int MONTHS = 12;
+    private static final int DAYS = 31;
+    private static final int SLOTS_PER_BRAND = YEARS * MONTHS * DAYS;
+
+    /** Decimal places of the multipliers returned by {@link #getScaledMultiplier}. */
+    public static final int MULTIPLIER_SCALE = 8;
+
+    private final BigDecimal[] multipliers = new BigDecimal[CardBrand.values().length * SLOTS_PER_BRAND];
+
+    private final long[] scaledMultipliers = new long[multipliers.length];
+
+    @Autowired
+    public FeeEngine(List<FeeRule> rules) {
+        Map<BigDecimal, BigDecimal> shared = new HashMap<>();
+        for (FeeRule rule : rules) {
+            int offset = rule.getBrand().ordinal() * SLOTS_PER_BRAND;
+            for (int year = 0; year < YEARS; year++) {
+                for (int month = 1; month <= MONTHS; month++) {
+                    for (int day = 1; day <= DAYS; day++) {
+                        BigDecimal multiplier = rule.getRate(year, month, day).movePointLeft(2);
+                        int index = offset + slot(year, month, day);
+                        multipliers[index] = shared.computeIfAbsent(multiplier, m -> m);
+                        scaledMultipliers[index] = multiplier.setScale(MULTIPLIER_SCALE, RoundingMode.HALF_UP)
+                                .unscaledValue().longValueExact();
+                    }
+                }
+            }
+        }
+    }
+
+    public BigDecimal calculateFee(CardBrand brand, LocalDateTime dateTime, BigDecimal amount) {
+        BigDecimal multiplier = getMultiplier(brand, dateTime);
+        if (multiplier == null) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal fee = amount.multiply(multiplier).stripTrailingZeros();
+        // same scale as amount * rate / 100: that of amount * rate, unless the quotient needs more digits
+        int scale = amount.scale() + multiplier.scale() - 2;
+        return fee.scale() >= scale ? fee : fee.setScale(scale);
+    }
+
+    /**
+     * Returns the fee multiplier (rate / 100) for the given brand and date, or
+     * {@code null} when no rule is registered for the brand.
+     */
+    public BigDecimal getMultiplier(CardBrand brand, LocalDateTime dateTime) {
+        return multipliers[brand.ordinal() * SLOTS_PER_BRAND
+                + slot(dateTime.getYear() % 100, dateTime.getMonthValue(), dateTime.getDayOfMonth())];
+    }
+
+    /**
+     * Multiplier (rate / 100) as a long with {@link #MULTIPLIER_SCALE} decimal
+     * places, 0 when no rule is registered for the brand. Meant for bulk
+     * arithmetic on primitives.
+     */
+    public long getScaledMultiplier(CardBrand brand, int year, int month, int dayOfMonth) {
+        return scaledMultipliers[brand.ordinal() * SLOTS_PER_BRAND + slot(year % 100, month, dayOfMonth)];
+    }
+
+    private static int slot(int yearOfCentury, int month, int day) {
+        return (yearOfCentury * MONTHS + month - 1) * DAYS + day - 1;
+    }
+}
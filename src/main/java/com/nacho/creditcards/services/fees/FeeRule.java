@@ -0,0 +1,17 @@
+package com.nacho.creditcards.services.fees;
+
+import java.math.BigDecimal;
+
+import com.nacho.creditcards.entities.CardBrand;
+
+/**
+ * Fee rate of a card brand, as a percentage of the transaction amount.
+ * Rates are evaluated once per date when the {@link FeeEngine} builds its
+ * table, so implementations do not need to be fast.
+ */
+public interface FeeRule {
+
+    CardBrand getBrand();
+
+    BigDecimal getRate(int yearOfCentury, int month, int dayOfMonth);
+}
@@ -0,0 +1,21 @@
+package com.nacho.creditcards.services.fees;
+
+import java.math.BigDecimal;
+
+import org.springframework.stereotype.Component;
+
+import com.nacho.creditcards.entities.CardBrand;
+
+@Component
+public class NaraFeeRule implements FeeRule {
+
+    @Override
+    public CardBrand getBrand() {
+        return CardBrand.NARA;
+    }
+
+    @Override
+    public BigDecimal getRate(int yearOfCentury, int month, int dayOfMonth) {
+        return BigDecimal.valueOf(dayOfMonth).multiply(BigDecimal.valueOf(0.5));
+    }
+}
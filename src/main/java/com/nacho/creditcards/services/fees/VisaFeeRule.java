@@ -0,0 +1,22 @@
+package com.nacho.creditcards.services.fees;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import org.springframework.stereotype.Component;
+
+import com.nacho.creditcards.entities.CardBrand;
+
+@Component
+public class VisaFeeRule implements FeeRule {
+
+    @Override
+    public CardBrand getBrand() {
+        return CardBrand.VISA;
+    }
+
+    @Override
+    public BigDecimal getRate(int yearOfCentury, int month, int dayOfMonth) {
+        return BigDecimal.valueOf(yearOfCentury).divide(BigDecimal.valueOf(month), 2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,166 @@
+package com.nacho.creditcards.services.imports;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.nacho.creditcards.entities.CardBrand;
+import com.nacho.creditcards.entities.CreditCard;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Reads credit cards one line at a time, so files of any size are imported with
+ * constant memory. NDJSON lines have the same fields as POST /credit-cards; CSV
+ * files start with a header naming the card_number, holder_name,
+ * expiration_date (yyyy-MM) and brand columns in any order. CSV fields may be
+ * quoted but cannot span lines. A line that cannot be parsed is returned with
+ * its error instead of a card, and reading goes on.
+ */
+public final class CardFileReader implements Closeable {
+
+    private static final String[] CSV_COLUMNS = {"card_number", "holder_name", "expiration_date", "brand"};
+
+    private static final String BYTE_ORDER_MARK = "\uFEFF";
+
+    @Data
+    @AllArgsConstructor
+    public static class Row {
+
+        private long line;
+
+        private CreditCard creditCard;
+
+        private String error;
+    }
+
+    private final BufferedReader reader;
+
+    private final CardImportFormat format;
+
+    private final ObjectReader jsonReader;
+
+    private int[] columns;
+
+    private long line;
+
+    public CardFileReader(InputStream inputStream, CardImportFormat format, ObjectMapper objectMapper) {
+        this.reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8), 64 * 1024);
+        this.format = format;
+        this.jsonReader = objectMapper.readerFor(CreditCard.class);
+    }
+
+    /** Next non-blank line of the file, or null at its end. */
+    public Row next() throws IOException {
+        String text;
+        while ((text = reader.readLine()) != null) {
+            if (line++ == 0 && text.startsWith(BYTE_ORDER_MARK)) {
+                text = text.substring(1);
+            }
+            if (text.isBlank()) {
+                continue;
+            }
+            if (format == CardImportFormat.NDJSON) {
+                return parseJson(text);
+            }
+            if (columns == null) {
+                columns = parseHeader(text);
+                continue;
+            }
+            return parseCsv(text);
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private Row parseJson(String text) {
+        try {
+            return new Row(line, jsonReader.readValue(text), null);
+        } catch (JsonProcessingException e) {
+            return new Row(line, null, "malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private Row parseCsv(String text) {
+        List<String> fields = splitCsv(text);
+        for (int column : columns) {
+            if (column >= fields.size()) {
+                return new Row(line, null, "expected " + columns.length + " columns, found " + fields.size());
+            }
+        }
+        String brand = fields.get(columns[3]).trim();
+        String expirationDate = fields.get(columns[2]).trim();
+        try {
+            CreditCard creditCard = new CreditCard(fields.get(columns[0]).trim(), fields.get(columns[1]).trim(),
+                    YearMonth.parse(expirationDate), CardBrand.valueOf(brand.toUpperCase(Locale.ROOT)));
+            return new Row(line, creditCard, null);
+        } catch (DateTimeParseException e) {
+            return new Row(line, null, "invalid expiration date " + expirationDate);
+        } catch (IllegalArgumentException e) {
+            return new Row(line, null, "unknown brand " + brand);
+        }
+    }
+
+    private int[] parseHeader(String text) throws IOException {
+        List<String> names = splitCsv(text);
+        int[] found = new int[CSV_COLUMNS.length];
+        for (int i = 0; i < CSV_COLUMNS.length; i++) {
+            found[i] = -1;
+            for (int j = 0; j < names.size(); j++) {
+                // card_number, cardNumber and CARD_NUMBER all name the same column
+                String name = names.get(j).trim().replace("_", "").toLowerCase(Locale.ROOT);
+                if (name.equals(CSV_COLUMNS[i].replace("_", ""))) {
+                    found[i] = j;
+                }
+            }
+            if (found[i] < 0) {
+                throw new IOException("CSV header on line " + line + " has no " + CSV_COLUMNS[i] + " column");
+            }
+        }
+        return found;
+    }
+
+    static List<String> splitCsv(String text) {
+        List<String> fields = new ArrayList<>(CSV_COLUMNS.length);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
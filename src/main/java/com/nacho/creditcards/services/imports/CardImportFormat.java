@@ -0,0 +1,31 @@
+package com.nacho.creditcards.services.imports;
+
+import java.util.Locale;
+
+public enum CardImportFormat {
+    CSV, NDJSON;
+
+    private static final String GZIP_SUFFIX = ".gz";
+
+    /** Format named by the file extension (.csv, .ndjson, .jsonl, optionally followed by .gz), or null. */
+    public static CardImportFormat fromFileName(String fileName) {
+        if (fileName == null) {
+            return null;
+        }
+        String name = fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(GZIP_SUFFIX)) {
+            name = name.substring(0, name.length() - GZIP_SUFFIX.length());
+        }
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        return null;
+    }
+
+    public static boolean isGzip(String fileName) {
+        return fileName != null && fileName.toLowerCase(Locale.ROOT).endsWith(GZIP_SUFFIX);
+    }
+}
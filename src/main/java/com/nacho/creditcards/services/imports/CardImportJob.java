@@ -0,0 +1,152 @@
+package com.nacho.creditcards.services.imports;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.nacho.creditcards.dto.CardImportStatus;
+
+/**
+ * Progress of one import. Counters are written by the import thread and read by
+ * status requests; only the first {@link #MAX_REPORTED_ERRORS} rejected lines
+ * are kept.
+ */
+public class CardImportJob {
+
+    public static final int MAX_REPORTED_ERRORS = 100;
+
+    private final String id;
+
+    private final String source;
+
+    private final Path path;
+
+    private final CardImportFormat format;
+
+    private final boolean gzip;
+
+    private final boolean temporary;
+
+    private final AtomicLong bytesRead = new AtomicLong();
+
+    private final AtomicLong read = new AtomicLong();
+
+    private final AtomicLong invalid = new AtomicLong();
+
+    private final AtomicLong duplicates = new AtomicLong();
+
+    private final AtomicLong imported = new AtomicLong();
+
+    private final List<String> errors = new ArrayList<>();
+
+    private volatile CardImportStatus.State state = CardImportStatus.State.QUEUED;
+
+    private volatile long totalBytes;
+
+    private volatile String failure;
+
+    private volatile LocalDateTime startedAt;
+
+    private volatile LocalDateTime finishedAt;
+
+    public CardImportJob(String id, String source, Path path, CardImportFormat format, boolean gzip, boolean temporary) {
+        this.id = id;
+        this.source = source;
+        this.path = path;
+        this.format = format;
+        this.gzip = gzip;
+        this.temporary = temporary;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public CardImportFormat getFormat() {
+        return format;
+    }
+
+    public boolean isGzip() {
+        return gzip;
+    }
+
+    /** Whether the file is an upload spooled by the import, to be deleted once it is done. */
+    public boolean isTemporary() {
+        return temporary;
+    }
+
+    public boolean isFinished() {
+        return state == CardImportStatus.State.COMPLETED || state == CardImportStatus.State.FAILED;
+    }
+
+    public void start(long totalBytes) {
+        this.totalBytes = totalBytes;
+        this.startedAt = LocalDateTime.now();
+        this.state = CardImportStatus.State.RUNNING;
+    }
+
+    public void complete() {
+        finishedAt = LocalDateTime.now();
+        state = CardImportStatus.State.COMPLETED;
+    }
+
+    public void fail(String failure) {
+        this.failure = failure;
+        finishedAt = LocalDateTime.now();
+        state = CardImportStatus.State.FAILED;
+    }
+
+    public void setBytesRead(long bytesRead) {
+        this.bytesRead.set(bytesRead);
+    }
+
+    public void addRead(long count) {
+        read.addAndGet(count);
+    }
+
+    public void addDuplicates(long count) {
+        duplicates.addAndGet(count);
+    }
+
+    public void addImported(long count) {
+        imported.addAndGet(count);
+    }
+
+    public void reject(long line, String error) {
+        invalid.incrementAndGet();
+        synchronized (errors) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("line " + line + ": " + error);
+            }
+        }
+    }
+
+    public CardImportStatus toStatus() {
+        List<String> reported;
+        synchronized (errors) {
+            reported = List.copyOf(errors);
+        }
+        return CardImportStatus.builder()
+                .id(id)
+                .state(state)
+                .source(source)
+                .format(format.name())
+                .bytesRead(bytesRead.get())
+                .totalBytes(totalBytes)
+                .read(read.get())
+                .invalid(invalid.get())
+                .duplicates(duplicates.get())
+                .imported(imported.get())
+                .errors(reported)
+                .failure(failure)
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .build();
+    }
+}
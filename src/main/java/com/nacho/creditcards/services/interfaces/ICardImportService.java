@@ -0,0 +1,23 @@
+package com.nacho.creditcards.services.interfaces;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import com.nacho.creditcards.dto.CardImportStatus;
+import com.nacho.creditcards.services.imports.CardImportFormat;
+
+public interface ICardImportService {
+
+    CardImportStatus importUpload(InputStream inputStream, String fileName, CardImportFormat format) throws IOException;
+
+    CardImportStatus importUpload(MultipartFile file, CardImportFormat format) throws IOException;
+
+    CardImportStatus importFile(String path, CardImportFormat format) throws IOException;
+
+    CardImportStatus getImportStatus(String id);
+
+    List<CardImportStatus> getImportStatuses();
+}
@@ -2,18 +2,30 @@ package com.nacho.creditcards.services.interfaces;
 
 import com.nacho.creditcards.entities.CardBrand;
 import com.nacho.creditcards.entities.CreditCard;
+import com.nacho.creditcards.services.validation.CardValidationResult;
 
 import java.time.YearMonth;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface ICreditCardService {
     CreditCard createCreditCard(CreditCard creditCard);
     CreditCard getCreditCardById(Long id);
     List<CreditCard> getAllCreditCards();
+    List<CreditCard> getCreditCardsAfter(Long afterId, int pageSize);
+    List<CreditCard> getCreditCardsExpiringBetween(YearMonth from, YearMonth to, YearMonth afterExpirationDate, Long afterId,
+            int pageSize);
+    void streamCreditCards(Consumer<CreditCard> consumer);
     CreditCard updateCreditCard(Long id, CreditCard creditCard);
     void deleteCreditCard(Long id);
+    Set<Long> findExistingCreditCardIds(Collection<Long> ids);
 	CreditCard findByCardNumberAndHolderNameAndExpirationDateAndBrand(String cardNumber, String holderName, YearMonth expirationDate, CardBrand brand);
 	boolean isExpirationDateValid(CreditCard creditCard);
 	boolean isValidCreditCard(CreditCard creditCard);
+	CardValidationResult validateCreditCard(CreditCard creditCard);
+	List<CardValidationResult> validateCreditCards(List<CreditCard> creditCards);
 	boolean isCreditCardDistinct(CreditCard creditCard);
+	List<Boolean> areCreditCardsDistinct(List<CreditCard> creditCards);
 }
@@ -0,0 +1,9 @@
+package com.nacho.creditcards.services.interfaces;
+
+import com.nacho.creditcards.dto.FeeMatrix;
+import com.nacho.creditcards.dto.FeeMatrixRequest;
+
+public interface IFeeQuotationService {
+
+    FeeMatrix quoteFeeMatrix(FeeMatrixRequest request);
+}
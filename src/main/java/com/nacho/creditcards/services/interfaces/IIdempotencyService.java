@@ -0,0 +1,16 @@
+package com.nacho.creditcards.services.interfaces;
+
+import java.util.function.Supplier;
+
+public interface IIdempotencyService {
+
+    int MAX_KEY_LENGTH = 255;
+
+    /**
+     * Runs the action once per key and returns its result, or the result of the
+     * first request with the same key and request.
+     */
+    <T> T execute(String key, Object request, Class<T> resultType, Supplier<T> action);
+
+    void purgeExpired();
+}
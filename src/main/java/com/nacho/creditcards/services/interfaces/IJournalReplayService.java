@@ -0,0 +1,8 @@
+package com.nacho.creditcards.services.interfaces;
+
+public interface IJournalReplayService {
+
+    long replayTransactions();
+
+    long rebuildAggregates();
+}
@@ -0,0 +1,19 @@
+package com.nacho.creditcards.services.interfaces;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import com.nacho.creditcards.entities.CardBrand;
+import com.nacho.creditcards.entities.Transaction;
+import com.nacho.creditcards.entities.TransactionAggregate;
+
+public interface ITransactionAggregateService {
+
+    void record(List<Transaction> transactions);
+
+    void unrecord(List<Transaction> transactions);
+
+    TransactionAggregate getCardAggregate(Long creditCardId, YearMonth period);
+
+    TransactionAggregate getBrandAggregate(CardBrand brand, YearMonth period);
+}
@@ -0,0 +1,10 @@
+package com.nacho.creditcards.services.interfaces;
+
+import java.time.YearMonth;
+
+public interface ITransactionArchiveService {
+
+    long archiveExpired();
+
+    long archiveBefore(YearMonth cutoff);
+}
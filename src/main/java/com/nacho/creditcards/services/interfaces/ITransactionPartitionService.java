@@ -0,0 +1,13 @@
+package com.nacho.creditcards.services.interfaces;
+
+import java.time.YearMonth;
+import java.util.List;
+
+public interface ITransactionPartitionService {
+
+    void maintainPartitions();
+
+    List<YearMonth> addMissingPartitions(YearMonth now);
+
+    List<YearMonth> dropExpiredPartitions(YearMonth now);
+}
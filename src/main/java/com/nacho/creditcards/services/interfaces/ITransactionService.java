@@ -1,24 +1,59 @@
 package com.nacho.creditcards.services.interfaces;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.function.Consumer;
 
+import com.nacho.creditcards.dto.TransactionBatchResult;
+import com.nacho.creditcards.dto.TransactionExportFilter;
+import com.nacho.creditcards.dto.TransactionSummary;
+import com.nacho.creditcards.entities.CardBrand;
 import com.nacho.creditcards.entities.CreditCard;
 import com.nacho.creditcards.entities.Transaction;
+import com.nacho.creditcards.entities.TransactionAggregate;
 import com.nacho.creditcards.exceptions.CreditCardNotFoundException;
 import com.nacho.creditcards.exceptions.CreditCardNotValidException;
 import com.nacho.creditcards.exceptions.TransactionAmountInvalidException;
 import com.nacho.creditcards.exceptions.TransactionNotFoundException;
+import com.nacho.creditcards.exceptions.TransactionQueueFullException;
 
 public interface ITransactionService {
 
     Transaction createTransaction(CreditCard creditCard, BigDecimal amount)
             throws CreditCardNotFoundException, CreditCardNotValidException, TransactionAmountInvalidException;
 
+    Transaction enqueueTransaction(CreditCard creditCard, BigDecimal amount)
+            throws CreditCardNotFoundException, CreditCardNotValidException, TransactionAmountInvalidException,
+            TransactionQueueFullException;
+
+    boolean isWriteBehindEnabled();
+
+    List<TransactionBatchResult> createTransactions(List<Transaction> transactions);
+
     Transaction getTransactionById(Long id) throws TransactionNotFoundException;
 
     List<Transaction> getAllTransactions();
 
+    List<Transaction> getTransactionsAfter(Long afterId, int pageSize);
+
+    List<TransactionSummary> getTransactionSummariesAfter(Long afterId, int pageSize);
+
+    List<Transaction> getTransactionsBetween(LocalDateTime from, LocalDateTime to, LocalDateTime afterDateTime, Long afterId,
+            int pageSize);
+
+    List<TransactionSummary> getTransactionSummariesBetween(LocalDateTime from, LocalDateTime to, LocalDateTime afterDateTime,
+            Long afterId, int pageSize);
+
+    long getLatestTransactionId();
+
+    void exportTransactions(TransactionExportFilter filter, Consumer<TransactionSummary> consumer);
+
+    TransactionAggregate getArchivedCardAggregate(Long creditCardId, YearMonth period);
+
+    TransactionAggregate getArchivedBrandAggregate(CardBrand brand, YearMonth period);
+
     void deleteTransaction(Long id) throws TransactionNotFoundException;
 
 	BigDecimal calculateFee(Transaction transaction);
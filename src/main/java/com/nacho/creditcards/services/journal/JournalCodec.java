@@ -0,0 +1,152 @@
+package com.nacho.creditcards.services.journal;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32;
+
+import com.nacho.creditcards.entities.CardBrand;
+
+/**
+ * Binary layout of a journal record:
+ *
+ * <pre>
+ * int    payload length
+ * int    CRC32 of the payload
+ * long   sequence
+ * byte   type
+ * long   transaction id (-1 when null)
+ * long   credit card id (-1 when null)
+ * byte   brand ordinal (-1 when null)
+ * long   epoch second of the date time (UTC, Long.MIN_VALUE when null)
+ * int    nanos of the date time
+ * byte   amount scale
+ * long   referenced sequence (0 when none)
+ * byte   amount unscaled length (0 when null)
+ * byte[] amount unscaled value, two's complement
+ * </pre>
+ *
+ * A zero length, a checksum mismatch or a sequence out of order marks the end
+ * of the written data, so a record torn by a crash, or a stale one left further
+ * on in a reused segment, is ignored.
+ */
+final class JournalCodec {
+
+    static final int HEADER_SIZE = 8;
+
+    static final int FIXED_PAYLOAD_SIZE = 8 + 1 + 8 + 8 + 1 + 8 + 4 + 1 + 8 + 1;
+
+    static final int MAX_AMOUNT_BYTES = 32;
+
+    static final int MAX_RECORD_SIZE = HEADER_SIZE + FIXED_PAYLOAD_SIZE + MAX_AMOUNT_BYTES;
+
+    private static final long NULL_ID = -1L;
+
+    private static final long NULL_DATE_TIME = Long.MIN_VALUE;
+
+    private static final byte[] NO_AMOUNT = new byte[0];
+
+    private static final JournalRecord.Type[] TYPES = JournalRecord.Type.values();
+
+    private static final CardBrand[] BRANDS = CardBrand.values();
+
+    private JournalCodec() {
+    }
+
+    /** Writes the record at the buffer position and leaves the position after it. */
+    static void encode(JournalRecord record, ByteBuffer buffer) {
+        BigDecimal amount = record.getAmount();
+        byte[] unscaled = amount == null ? NO_AMOUNT : amount.unscaledValue().toByteArray();
+        if (unscaled.length > MAX_AMOUNT_BYTES || (amount != null && amount.scale() != (byte) amount.scale())) {
+            throw new IllegalArgumentException("Amount cannot be journaled: " + amount);
+        }
+        int start = buffer.position();
+        buffer.position(start + HEADER_SIZE);
+        buffer.putLong(record.getSequence());
+        buffer.put((byte) record.getType().ordinal());
+        buffer.putLong(record.getTransactionId() == null ? NULL_ID : record.getTransactionId());
+        buffer.putLong(record.getCreditCardId() == null ? NULL_ID : record.getCreditCardId());
+        buffer.put(record.getBrand() == null ? -1 : (byte) record.getBrand().ordinal());
+        LocalDateTime dateTime = record.getDateTime();
+        buffer.putLong(dateTime == null ? NULL_DATE_TIME : dateTime.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(dateTime == null ? 0 : dateTime.getNano());
+        buffer.put(amount == null ? 0 : (byte) amount.scale());
+        buffer.putLong(record.getReference());
+        buffer.put((byte) unscaled.length);
+        buffer.put(unscaled);
+
+        int length = buffer.position() - start - HEADER_SIZE;
+        buffer.putInt(start, length);
+        buffer.putInt(start + 4, checksum(buffer, start + HEADER_SIZE, length));
+    }
+
+    /**
+     * Reads the record at the buffer position when it has the expected sequence
+     * and moves past it, or returns null and leaves the position unchanged.
+     */
+    static JournalRecord decode(ByteBuffer buffer, long expectedSequence) {
+        int start = buffer.position();
+        JournalRecord record = decode(buffer);
+        if (record != null && record.getSequence() != expectedSequence) {
+            buffer.position(start);
+            return null;
+        }
+        return record;
+    }
+
+    /**
+     * Reads the record at the buffer position and moves past it, or returns null
+     * and leaves the position unchanged when there is no complete record.
+     */
+    static JournalRecord decode(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.remaining() < HEADER_SIZE + FIXED_PAYLOAD_SIZE) {
+            return null;
+        }
+        int length = buffer.getInt(start);
+        if (length < FIXED_PAYLOAD_SIZE || length > FIXED_PAYLOAD_SIZE + MAX_AMOUNT_BYTES
+                || length > buffer.remaining() - HEADER_SIZE
+                || buffer.getInt(start + 4) != checksum(buffer, start + HEADER_SIZE, length)) {
+            return null;
+        }
+
+        buffer.position(start + HEADER_SIZE);
+        long sequence = buffer.getLong();
+        JournalRecord.Type type = TYPES[buffer.get()];
+        long transactionId = buffer.getLong();
+        long creditCardId = buffer.getLong();
+        byte brand = buffer.get();
+        long epochSecond = buffer.getLong();
+        int nanos = buffer.getInt();
+        byte scale = buffer.get();
+        long reference = buffer.getLong();
+        byte unscaledLength = buffer.get();
+        BigDecimal amount = null;
+        if (unscaledLength > 0) {
+            byte[] unscaled = new byte[unscaledLength];
+            buffer.get(unscaled);
+            amount = new BigDecimal(new BigInteger(unscaled), scale);
+        }
+        buffer.position(start + HEADER_SIZE + length);
+
+        return JournalRecord.builder()
+                .sequence(sequence)
+                .type(type)
+                .transactionId(transactionId == NULL_ID ? null : transactionId)
+                .creditCardId(creditCardId == NULL_ID ? null : creditCardId)
+                .brand(brand < 0 ? null : BRANDS[brand])
+                .dateTime(epochSecond == NULL_DATE_TIME ? null
+                        : LocalDateTime.ofEpochSecond(epochSecond, nanos, ZoneOffset.UTC))
+                .amount(amount)
+                .reference(reference)
+                .build();
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,67 @@
+package com.nacho.creditcards.services.journal;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Reads journal segments in sequence order. Segment files are named after the
+ * sequence of their first record, zero padded so they sort by name.
+ */
+public final class JournalReader {
+
+    private static final String SEGMENT_PREFIX = "transactions-";
+
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private JournalReader() {
+    }
+
+    /** Passes every record of the journal in the directory to the consumer and returns how many there were. */
+    public static long forEach(Path directory, Consumer<JournalRecord> consumer) throws IOException {
+        long count = 0;
+        for (Path segment : segments(directory)) {
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                long sequence = firstSequence(segment);
+                JournalRecord record;
+                while ((record = JournalCodec.decode(buffer, sequence)) != null) {
+                    consumer.accept(record);
+                    sequence++;
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    public static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    static String segmentName(long firstSequence) {
+        return String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX);
+    }
+
+    static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,77 @@
+package com.nacho.creditcards.services.journal;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.nacho.creditcards.entities.CardBrand;
+import com.nacho.creditcards.entities.CreditCard;
+import com.nacho.creditcards.entities.Transaction;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One journaled change of a transaction. Every record carries the full state of
+ * the transaction after the change (before it, for deletes). ACCEPTED records
+ * are transactions queued by the write-behind mode, still without an id; the
+ * CREATE record written once they are persisted, or the REJECTED record written
+ * when they cannot be, references their sequence.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JournalRecord {
+
+    public enum Type {
+        CREATE, UPDATE, DELETE, ACCEPTED, REJECTED
+    }
+
+    private long sequence;
+
+    private Type type;
+
+    private Long transactionId;
+
+    private Long creditCardId;
+
+    private CardBrand brand;
+
+    private LocalDateTime dateTime;
+
+    private BigDecimal amount;
+
+    /** Sequence of the ACCEPTED record a CREATE or REJECTED record completes, 0 when none. */
+    private long reference;
+
+    public static JournalRecord of(long sequence, Type type, Transaction transaction) {
+        return of(sequence, type, transaction, 0L);
+    }
+
+    public static JournalRecord of(long sequence, Type type, Transaction transaction, long reference) {
+        CreditCard creditCard = transaction.getCreditCard();
+        return JournalRecord.builder()
+                .sequence(sequence)
+                .type(type)
+                .transactionId(transaction.getId())
+                .creditCardId(creditCard == null ? null : creditCard.getId())
+                .brand(creditCard == null ? null : creditCard.getBrand())
+                .dateTime(transaction.getDateTime())
+                .amount(transaction.getAmount())
+                .reference(reference)
+                .build();
+    }
+
+    public Transaction toTransaction() {
+        CreditCard creditCard = creditCardId == null ? null
+                : CreditCard.builder().id(creditCardId).brand(brand).build();
+        return Transaction.builder()
+                .id(transactionId)
+                .creditCard(creditCard)
+                .dateTime(dateTime)
+                .amount(amount)
+                .build();
+    }
+}
@@ -0,0 +1,299 @@
+package com.nacho.creditcards.services.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.nacho.creditcards.entities.Transaction;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Append-only journal of transaction changes on memory-mapped segment files
+ * (creditcards.journal.enabled=true). Appends copy the record into the mapped
+ * segment and wait until a background flusher has forced it to disk. The
+ * flusher waits a few milliseconds before each fsync, so appends from
+ * concurrent requests share a single flush (group commit). Changes made in a
+ * database transaction are journaled once it has committed.
+ */
+@Component
+public class TransactionJournal {
+
+    private static final int MIN_SEGMENT_SIZE = 4096;
+
+    private static final int ZERO_CHUNK_SIZE = 64 * 1024;
+
+    private final boolean enabled;
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final long groupCommitMillis;
+
+    private final ByteBuffer scratch = ByteBuffer.allocate(JournalCodec.MAX_RECORD_SIZE);
+
+    private FileChannel channel;
+
+    private MappedByteBuffer segment;
+
+    private long nextSequence = 1;
+
+    private long writtenSequence;
+
+    private long durableSequence;
+
+    private RuntimeException failure;
+
+    private boolean running;
+
+    private Thread flusher;
+
+    public TransactionJournal(@Value("${creditcards.journal.enabled:false}") boolean enabled,
+            @Value("${creditcards.journal.directory:journal}") String directory,
+            @Value("${creditcards.journal.segment-size:67108864}") int segmentSize,
+            @Value("${creditcards.journal.group-commit-ms:2}") long groupCommitMillis) {
+        if (segmentSize < MIN_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Journal segments must have at least " + MIN_SEGMENT_SIZE + " bytes");
+        }
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.segmentSize = segmentSize;
+        this.groupCommitMillis = groupCommitMillis;
+    }
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        if (!enabled || running) {
+            return;
+        }
+        Files.createDirectories(directory);
+        List<Path> segments = JournalReader.segments(directory);
+        if (segments.isEmpty()) {
+            openSegment(1);
+        } else {
+            reopen(segments.get(segments.size() - 1));
+        }
+        writtenSequence = nextSequence - 1;
+        durableSequence = writtenSequence;
+        running = true;
+        flusher = new Thread(this::flushLoop, "transaction-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        Thread pendingFlusher;
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            notifyAll();
+            pendingFlusher = flusher;
+        }
+        pendingFlusher.join();
+        synchronized (this) {
+            try {
+                segment.force();
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Journals the transactions and returns once their records are on disk.
+     * Returns the sequence of the last record, 0 when the journal is disabled.
+     */
+    public long append(JournalRecord.Type type, List<Transaction> transactions) {
+        return append(type, transactions, null);
+    }
+
+    /**
+     * Journals the transactions once the current database transaction has
+     * committed, or right away when there is none. A rollback then leaves no
+     * record to be replayed, and the fsync does not run while the transaction
+     * still holds its row locks.
+     */
+    public void appendAfterCommit(JournalRecord.Type type, List<Transaction> transactions) {
+        if (!enabled || transactions.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            append(type, transactions);
+            return;
+        }
+        List<Transaction> committed = List.copyOf(transactions);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                append(type, committed);
+            }
+        });
+    }
+
+    /**
+     * Journals CREATE records of transactions persisted by the write-behind
+     * mode, each referencing the sequence of its ACCEPTED record.
+     */
+    public long appendCreated(List<Transaction> transactions, long[] acceptedSequences) {
+        return append(JournalRecord.Type.CREATE, transactions, acceptedSequences);
+    }
+
+    /**
+     * Journals REJECTED records of transactions the write-behind mode could not
+     * persist, so they are not queued again on the next start.
+     */
+    public long appendRejected(List<Transaction> transactions, long[] acceptedSequences) {
+        return append(JournalRecord.Type.REJECTED, transactions, acceptedSequences);
+    }
+
+    private long append(JournalRecord.Type type, List<Transaction> transactions, long[] references) {
+        if (!enabled || transactions.isEmpty()) {
+            return 0L;
+        }
+        long sequence;
+        synchronized (this) {
+            if (!running) {
+                throw new IllegalStateException("The transaction journal is not open");
+            }
+            for (int i = 0; i < transactions.size(); i++) {
+                write(JournalRecord.of(nextSequence, type, transactions.get(i), references == null ? 0L : references[i]));
+            }
+            sequence = writtenSequence;
+            notifyAll();
+        }
+        awaitDurable(sequence);
+        return sequence;
+    }
+
+    private void write(JournalRecord record) {
+        scratch.clear();
+        JournalCodec.encode(record, scratch);
+        scratch.flip();
+        if (segment.remaining() < scratch.remaining()) {
+            roll(record.getSequence());
+        }
+        segment.put(scratch);
+        writtenSequence = record.getSequence();
+        nextSequence++;
+    }
+
+    private void roll(long firstSequence) {
+        try {
+            // records of the previous segment become durable before the new one is used
+            segment.force();
+            channel.close();
+            durableSequence = writtenSequence;
+            openSegment(firstSequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        Path path = directory.resolve(JournalReader.segmentName(firstSequence));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        channel.force(true);
+    }
+
+    private void reopen(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        long lastSequence = JournalReader.firstSequence(path) - 1;
+        while (JournalCodec.decode(segment, lastSequence + 1) != null) {
+            lastSequence++;
+        }
+        // clear the rest of the segment: a torn record, or older records past it that
+        // would be read back once new ones stop short of them
+        byte[] zeros = new byte[ZERO_CHUNK_SIZE];
+        for (int position = segment.position(); position < segment.limit(); position += zeros.length) {
+            segment.put(position, zeros, 0, Math.min(zeros.length, segment.limit() - position));
+        }
+        segment.force();
+        nextSequence = lastSequence + 1;
+    }
+
+    private void flushLoop() {
+        try {
+            while (true) {
+                synchronized (this) {
+                    while (running && writtenSequence == durableSequence) {
+                        wait();
+                    }
+                    if (writtenSequence == durableSequence) {
+                        return;
+                    }
+                }
+                if (groupCommitMillis > 0) {
+                    // lets concurrent appends join this flush
+                    Thread.sleep(groupCommitMillis);
+                }
+                long target;
+                MappedByteBuffer pending;
+                synchronized (this) {
+                    target = writtenSequence;
+                    pending = segment;
+                }
+                pending.force();
+                synchronized (this) {
+                    durableSequence = Math.max(durableSequence, target);
+                    notifyAll();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(new IllegalStateException("The transaction journal flusher was interrupted", e));
+        } catch (RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    private synchronized void fail(RuntimeException e) {
+        failure = e;
+        notifyAll();
+    }
+
+    private synchronized void awaitDurable(long sequence) {
+        boolean interrupted = false;
+        while (durableSequence < sequence && failure == null) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (durableSequence < sequence) {
+            throw new IllegalStateException("Could not flush the transaction journal", failure);
+        }
+    }
+}
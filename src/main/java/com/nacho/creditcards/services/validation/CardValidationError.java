@@ -0,0 +1,9 @@
+package com.nacho.creditcards.services.validation;
+
+public enum CardValidationError {
+    INVALID_CARD_NUMBER,
+    INVALID_CHECKSUM,
+    INVALID_BRAND,
+    INVALID_EXPIRATION_DATE,
+    INVALID_HOLDER_NAME,
+}
@@ -0,0 +1,60 @@
+package com.nacho.creditcards.services.validation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of validating a credit card. Every combination of errors has a single
+ * shared instance, so producing a result never allocates.
+ */
+public final class CardValidationResult {
+
+    private static final CardValidationError[] ERRORS = CardValidationError.values();
+
+    private static final CardValidationResult[] BY_MASK = new CardValidationResult[1 << ERRORS.length];
+
+    static {
+        for (int mask = 0; mask < BY_MASK.length; mask++) {
+            BY_MASK[mask] = new CardValidationResult(mask);
+        }
+    }
+
+    public static final CardValidationResult VALID = BY_MASK[0];
+
+    private final int errorMask;
+
+    private CardValidationResult(int errorMask) {
+        this.errorMask = errorMask;
+    }
+
+    static CardValidationResult of(int errorMask) {
+        return BY_MASK[errorMask];
+    }
+
+    static int maskOf(CardValidationError error) {
+        return 1 << error.ordinal();
+    }
+
+    public boolean isValid() {
+        return errorMask == 0;
+    }
+
+    public boolean hasError(CardValidationError error) {
+        return (errorMask & maskOf(error)) != 0;
+    }
+
+    public List<CardValidationError> getErrors() {
+        List<CardValidationError> errors = new ArrayList<>(Integer.bitCount(errorMask));
+        for (CardValidationError error : ERRORS) {
+            if (hasError(error)) {
+                errors.add(error);
+            }
+        }
+        return errors;
+    }
+
+    @Override
+    public String toString() {
+        return isValid() ? "VALID" : getErrors().toString();
+    }
+}
@@ -0,0 +1,161 @@
+package com.nacho.creditcards.services.validation;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.nacho.creditcards.entities.CardBrand;
+import com.nacho.creditcards.entities.CreditCard;
+
+/**
+ * Validates credit cards by scanning their fields character by character: digits
+ * only, Luhn checksum, brand length and prefix, expiration date and holder name.
+ * Nothing is allocated while validating, neither on success nor on failure.
+ */
+public final class CardValidator {
+
+    private static final Map<CardBrand, BrandRule> BRAND_RULES = new EnumMap<>(CardBrand.class);
+
+    static {
+        BRAND_RULES.put(CardBrand.VISA, new BrandRule(16, "4"));
+        BRAND_RULES.put(CardBrand.AMEX, new BrandRule(15, "34", "37"));
+        BRAND_RULES.put(CardBrand.NARA, new BrandRule(16, "589562"));
+    }
+
+    private static volatile CurrentMonth currentMonth = CurrentMonth.now();
+
+    private CardValidator() {
+    }
+
+    public static CardValidationResult validate(CreditCard creditCard) {
+        return validate(creditCard, currentMonth());
+    }
+
+    public static CardValidationResult validate(CreditCard creditCard, YearMonth now) {
+        int errors = 0;
+
+        String cardNumber = creditCard.getCardNumber();
+        if (!isDigitsOnly(cardNumber)) {
+            errors |= CardValidationResult.maskOf(CardValidationError.INVALID_CARD_NUMBER);
+        } else {
+            if (!isLuhnValid(cardNumber)) {
+                errors |= CardValidationResult.maskOf(CardValidationError.INVALID_CHECKSUM);
+            }
+            if (!matchesBrand(cardNumber, creditCard.getBrand())) {
+                errors |= CardValidationResult.maskOf(CardValidationError.INVALID_BRAND);
+            }
+        }
+
+        YearMonth expirationDate = creditCard.getExpirationDate();
+        if (expirationDate == null || expirationDate.isBefore(now)) {
+            errors |= CardValidationResult.maskOf(CardValidationError.INVALID_EXPIRATION_DATE);
+        }
+
+        if (!isHolderNameValid(creditCard.getHolderName())) {
+            errors |= CardValidationResult.maskOf(CardValidationError.INVALID_HOLDER_NAME);
+        }
+
+        return CardValidationResult.of(errors);
+    }
+
+    public static boolean isDigitsOnly(String value) {
+        if (value == null || value.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static boolean isLuhnValid(String digits) {
+        int sum = 0;
+        boolean doubled = false;
+        for (int i = digits.length() - 1; i >= 0; i--) {
+            int digit = digits.charAt(i) - '0';
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return sum % 10 == 0;
+    }
+
+    public static boolean matchesBrand(String digits, CardBrand brand) {
+        BrandRule rule = brand == null ? null : BRAND_RULES.get(brand);
+        return rule != null && rule.matches(digits);
+    }
+
+    /**
+     * At least two whitespace separated parts made only of ASCII letters. The
+     * name cannot start with whitespace, trailing whitespace is allowed.
+     */
+    public static boolean isHolderNameValid(String holderName) {
+        if (holderName == null) {
+            return false;
+        }
+        int parts = 0;
+        boolean inPart = false;
+        for (int i = 0; i < holderName.length(); i++) {
+            char c = holderName.charAt(i);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z')) {
+                if (!inPart) {
+                    parts++;
+                    inPart = true;
+                }
+            } else if (isSpace(c) && i > 0) {
+                inPart = false;
+            } else {
+                return false;
+            }
+        }
+        return parts >= 2;
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static YearMonth currentMonth() {
+        CurrentMonth month = currentMonth;
+        if (System.currentTimeMillis() >= month.endsAtMillis()) {
+            month = CurrentMonth.now();
+            currentMonth = month;
+        }
+        return month.value();
+    }
+
+    private record BrandRule(int length, String... prefixes) {
+
+        boolean matches(String digits) {
+            if (digits.length() != length) {
+                return false;
+            }
+            for (String prefix : prefixes) {
+                if (digits.startsWith(prefix)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private record CurrentMonth(YearMonth value, long endsAtMillis) {
+
+        static CurrentMonth now() {
+            ZoneId zone = ZoneId.systemDefault();
+            YearMonth value = YearMonth.now(zone);
+            LocalDate nextMonth = value.plusMonths(1).atDay(1);
+            return new CurrentMonth(value, nextMonth.atStartOfDay(zone).toInstant().toEpochMilli());
+        }
+    }
+}
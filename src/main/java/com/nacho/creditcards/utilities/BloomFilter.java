@@ -0,0 +1,51 @@
+package com.nacho.creditcards.utilities;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread safe Bloom filter over hex encoded hashes such as {@link CardFingerprint}.
+ * The key is already a uniformly distributed hash, so the bit positions are
+ * derived from its first 32 hex digits with double hashing.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+
+    private final long bitCount;
+
+    private final int hashCount;
+
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(expectedInsertions, 1);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bits = new AtomicLongArray((int) Math.min((m + 63) >>> 6, Integer.MAX_VALUE - 8));
+        this.bitCount = (long) bits.length() << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    public void put(String hexHash) {
+        long h1 = Long.parseUnsignedLong(hexHash, 0, 16, 16);
+        long h2 = Long.parseUnsignedLong(hexHash, 16, 32, 16);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = bits.get(index);
+            while ((current & mask) == 0 && !bits.compareAndSet(index, current, current | mask)) {
+                current = bits.get(index);
+            }
+        }
+    }
+
+    public boolean mightContain(String hexHash) {
+        long h1 = Long.parseUnsignedLong(hexHash, 0, 16, 16);
+        long h2 = Long.parseUnsignedLong(hexHash, 16, 32, 16);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,59 @@
+package com.nacho.creditcards.utilities;
+
+/**
+ * A single range of an HTTP Range header: "bytes=first-last", "bytes=first-"
+ * or the suffix form "bytes=-length". Several ranges in one header are not
+ * supported and are parsed as no range, which makes the response a plain 200.
+ */
+public final class ByteRange {
+
+    private static final String UNIT = "bytes=";
+
+    private final long first;
+
+    private final long last;
+
+    private final long suffixLength;
+
+    private ByteRange(long first, long last, long suffixLength) {
+        this.first = first;
+        this.last = last;
+        this.suffixLength = suffixLength;
+    }
+
+    /** Returns the requested range, or null when the header is absent, malformed or asks for several ranges. */
+    public static ByteRange parse(String header) {
+        if (header == null || !header.startsWith(UNIT) || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring(UNIT.length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            if (dash == 0) {
+                long suffixLength = Long.parseLong(spec.substring(1));
+                return suffixLength > 0 ? new ByteRange(-1, -1, suffixLength) : null;
+            }
+            long first = Long.parseLong(spec.substring(0, dash));
+            long last = dash == spec.length() - 1 ? Long.MAX_VALUE : Long.parseLong(spec.substring(dash + 1));
+            return first >= 0 && last >= first ? new ByteRange(first, last, 0) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /** First byte served out of a body of the given length, or -1 when the range is not satisfiable. */
+    public long firstOf(long length) {
+        if (suffixLength > 0) {
+            return length == 0 ? -1 : Math.max(length - suffixLength, 0);
+        }
+        return first < length ? first : -1;
+    }
+
+    /** Last byte served out of a body of the given length. */
+    public long lastOf(long length) {
+        return suffixLength > 0 ? length - 1 : Math.min(last, length - 1);
+    }
+}
@@ -5,22 +5,26 @@ import com.nacho.creditcards.entities.CardBrand;
 import jakarta.persistence.AttributeConverter;
 import jakarta.persistence.Converter;
 
+/**
+ * Stores the brand as its small integer code. Codes fit in the range Short
+ * caches, so neither direction allocates.
+ */
 @Converter(autoApply = true)
-public class CardBrandAttributeConverter implements AttributeConverter<CardBrand, String> {
+public class CardBrandAttributeConverter implements AttributeConverter<CardBrand, Short> {
 
     @Override
-    public String convertToDatabaseColumn(CardBrand cardBrand) {
+    public Short convertToDatabaseColumn(CardBrand cardBrand) {
         if (cardBrand == null) {
             return null;
         }
-        return cardBrand.name();
+        return Short.valueOf(cardBrand.getCode());
     }
 
     @Override
-    public CardBrand convertToEntityAttribute(String columnValue) {
+    public CardBrand convertToEntityAttribute(Short columnValue) {
         if (columnValue == null) {
             return null;
         }
-        return CardBrand.valueOf(columnValue);
+        return CardBrand.fromCode(columnValue);
     }
 }
@@ -0,0 +1,39 @@
+package com.nacho.creditcards.utilities;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import com.nacho.creditcards.entities.CreditCard;
+
+/**
+ * SHA-256 of the four fields that identify a credit card (number, holder name,
+ * expiration date and brand), hex encoded. Two cards are duplicates when their
+ * fingerprints are equal.
+ */
+public final class CardFingerprint {
+
+    public static final int LENGTH = 64;
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private CardFingerprint() {
+    }
+
+    public static String of(CreditCard creditCard) {
+        String identity = creditCard.getCardNumber()
+                + '|' + creditCard.getHolderName()
+                + '|' + creditCard.getExpirationDate()
+                + '|' + creditCard.getBrand();
+        return HEX.formatHex(SHA_256.get().digest(identity.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,108 @@
+package com.nacho.creditcards.utilities;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Writes results as newline delimited JSON, either by walking keyset pages, by
+ * consuming a database cursor or by mapping NDJSON read from the request. Rows
+ * are written as they arrive and the response is flushed per page or per
+ * chunk, so memory stays bounded.
+ */
+public final class NdjsonStreamer {
+
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private static final byte NEW_LINE = '\n';
+
+    private NdjsonStreamer() {
+    }
+
+    public static <T> StreamingResponseBody keyset(ObjectMapper objectMapper,
+            BiFunction<Long, Integer, List<T>> pageFetcher, Function<T, Long> idExtractor, int pageSize) {
+        return outputStream -> {
+            Long after = 0L;
+            List<T> page = pageFetcher.apply(after, pageSize);
+            while (!page.isEmpty()) {
+                for (T row : page) {
+                    writeLine(objectMapper, outputStream, row);
+                }
+                outputStream.flush();
+                after = idExtractor.apply(page.get(page.size() - 1));
+                page = pageFetcher.apply(after, pageSize);
+            }
+        };
+    }
+
+    public static <T> StreamingResponseBody cursor(ObjectMapper objectMapper, Consumer<Consumer<T>> source,
+            int flushEvery) {
+        int chunk = Math.max(flushEvery, 1);
+        return outputStream -> {
+            int[] written = {0};
+            try {
+                source.accept(row -> {
+                    try {
+                        writeLine(objectMapper, outputStream, row);
+                        if (++written[0] % chunk == 0) {
+                            outputStream.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            outputStream.flush();
+        };
+    }
+
+    /**
+     * Reads NDJSON rows from the request in chunks, maps every chunk and writes
+     * the mapped rows back in the same order.
+     */
+    public static <I, O> StreamingResponseBody transform(ObjectMapper objectMapper, InputStream inputStream,
+            Class<I> rowType, int chunkSize, Function<List<I>, List<O>> mapper) {
+        int chunk = Math.max(chunkSize, 1);
+        return outputStream -> {
+            try (MappingIterator<I> rows = objectMapper.readerFor(rowType).readValues(inputStream)) {
+                List<I> input = new ArrayList<>(chunk);
+                while (rows.hasNextValue()) {
+                    input.add(rows.nextValue());
+                    if (input.size() == chunk) {
+                        writeChunk(objectMapper, outputStream, mapper.apply(input));
+                        input.clear();
+                    }
+                }
+                if (!input.isEmpty()) {
+                    writeChunk(objectMapper, outputStream, mapper.apply(input));
+                }
+            }
+        };
+    }
+
+    private static void writeChunk(ObjectMapper objectMapper, OutputStream outputStream, List<?> rows)
+            throws IOException {
+        for (Object row : rows) {
+            writeLine(objectMapper, outputStream, row);
+        }
+        outputStream.flush();
+    }
+
+    public static void writeLine(ObjectMapper objectMapper, OutputStream outputStream, Object row) throws IOException {
+        outputStream.write(objectMapper.writeValueAsBytes(row));
+        outputStream.write(NEW_LINE);
+    }
+}
@@ -0,0 +1,61 @@
+package com.nacho.creditcards.utilities;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.nacho.creditcards.exceptions.UploadTooLargeException;
+
+/**
+ * Passes a stream through until more than maxBytes have been read, then fails
+ * with UploadTooLargeException. Bounds request bodies that are read directly
+ * and so are not covered by the multipart size limits.
+ */
+public class SizeLimitedInputStream extends FilterInputStream {
+
+    private final long maxBytes;
+
+    private long count;
+
+    public SizeLimitedInputStream(InputStream in, long maxBytes) {
+        super(in);
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int read = super.read();
+        if (read >= 0) {
+            count(1);
+        }
+        return read;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int read = super.read(buffer, offset, length);
+        if (read > 0) {
+            count(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        count(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void count(long read) throws UploadTooLargeException {
+        count += read;
+        if (count > maxBytes) {
+            throw new UploadTooLargeException("Upload exceeds " + maxBytes + " bytes");
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.nacho.creditcards.utilities;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import com.nacho.creditcards.dto.SlowQuery;
+
+/**
+ * Times every statement execution and hands the ones slower than the threshold
+ * to a {@link SlowQueryLog}, with the SQL, the number of bound parameters, the
+ * batch size and the application method that ran it. The caller is only looked
+ * up for slow statements, so fast ones pay for two clock reads.
+ */
+public class SlowQueryDataSource extends DelegatingDataSource {
+
+    private static final String APPLICATION_PACKAGE = "com.nacho.creditcards.";
+
+    private static final String SERVICES_PACKAGE = APPLICATION_PACKAGE + "services.";
+
+    private final long thresholdNanos;
+
+    private final SlowQueryLog slowQueryLog;
+
+    public SlowQueryDataSource(DataSource targetDataSource, long thresholdMillis, SlowQueryLog slowQueryLog) {
+        super(targetDataSource);
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return timed(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return timed(super.getConnection(username, password));
+    }
+
+    private Connection timed(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    if ("equals".equals(method.getName())) {
+                        return proxy == args[0];
+                    }
+                    if ("hashCode".equals(method.getName())) {
+                        return System.identityHashCode(proxy);
+                    }
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof Statement statement) {
+                        String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                        return timed(statement, method.getReturnType(), sql);
+                    }
+                    return result;
+                });
+    }
+
+    private Object timed(Statement statement, Class<?> type, String preparedSql) {
+        Class<?> statementType = type == CallableStatement.class || type == PreparedStatement.class ? type : Statement.class;
+        StatementState state = new StatementState(preparedSql);
+        return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[] {statementType},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if ("equals".equals(name)) {
+                        return proxy == args[0];
+                    }
+                    if ("hashCode".equals(name)) {
+                        return System.identityHashCode(proxy);
+                    }
+                    if (name.startsWith("execute")) {
+                        long start = System.nanoTime();
+                        try {
+                            return invoke(statement, method, args);
+                        } finally {
+                            long elapsed = System.nanoTime() - start;
+                            if (elapsed >= thresholdNanos) {
+                                String sql = args != null && args.length > 0 && args[0] instanceof String text
+                                        ? text : state.sql;
+                                report(sql, state, elapsed);
+                            }
+                            if ("executeBatch".equals(name) || "executeLargeBatch".equals(name)) {
+                                state.batchSize = 0;
+                            }
+                        }
+                    }
+                    if ("addBatch".equals(name)) {
+                        state.batchSize++;
+                    } else if ("clearBatch".equals(name)) {
+                        state.batchSize = 0;
+                    } else if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                        state.bindCount = Math.max(state.bindCount, index);
+                    }
+                    return invoke(statement, method, args);
+                });
+    }
+
+    private void report(String sql, StatementState state, long elapsedNanos) {
+        slowQueryLog.submit(SlowQuery.builder()
+                .timestamp(Instant.now().toString())
+                .durationMillis(elapsedNanos / 1_000_000.0)
+                .sql(sql)
+                .bindCount(state.bindCount)
+                .batchSize(state.batchSize)
+                .caller(caller())
+                .thread(Thread.currentThread().getName())
+                .build());
+    }
+
+    /** The closest service method on the stack, or else the closest application method. */
+    private static String caller() {
+        return StackWalker.getInstance().walk(frames -> {
+            String firstApplicationFrame = null;
+            for (StackWalker.StackFrame frame : (Iterable<StackWalker.StackFrame>) frames::iterator) {
+                String className = frame.getClassName();
+                if (!className.startsWith(APPLICATION_PACKAGE) || className.contains("$$")
+                        || className.startsWith(SlowQueryDataSource.class.getName())) {
+                    continue;
+                }
+                String location = className.substring(className.lastIndexOf('.') + 1) + "." + frame.getMethodName();
+                if (className.startsWith(SERVICES_PACKAGE)) {
+                    return Optional.of(location);
+                }
+                if (firstApplicationFrame == null) {
+                    firstApplicationFrame = location;
+                }
+            }
+            return Optional.ofNullable(firstApplicationFrame);
+        }).orElse(null);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static class StatementState {
+
+        private final String sql;
+
+        private int bindCount;
+
+        private int batchSize;
+
+        StatementState(String sql) {
+            this.sql = sql;
+        }
+    }
+}
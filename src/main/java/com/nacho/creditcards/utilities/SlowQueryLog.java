@@ -0,0 +1,82 @@
+package com.nacho.creditcards.utilities;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nacho.creditcards.dto.SlowQuery;
+
+/**
+ * Writes slow queries as one JSON object per line to the
+ * {@code com.nacho.creditcards.slowquery} logger from a background thread.
+ * Queries are queued without blocking; when the queue is full they are dropped
+ * and counted instead of slowing the caller down.
+ */
+public class SlowQueryLog implements AutoCloseable {
+
+    public static final String LOGGER_NAME = "com.nacho.creditcards.slowquery";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LOGGER_NAME);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final BlockingQueue<SlowQuery> queue;
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private final Thread writer;
+
+    private volatile boolean running = true;
+
+    public SlowQueryLog(int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writer = new Thread(this::writeLoop, "slow-query-log");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public void submit(SlowQuery slowQuery) {
+        if (!queue.offer(slowQuery)) {
+            droppedCount.incrementAndGet();
+        }
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join();
+    }
+
+    private void writeLoop() {
+        while (running || !queue.isEmpty()) {
+            try {
+                write(queue.take());
+            } catch (InterruptedException e) {
+                // drain what is left and stop
+                SlowQuery slowQuery;
+                while ((slowQuery = queue.poll()) != null) {
+                    write(slowQuery);
+                }
+                return;
+            }
+        }
+    }
+
+    private void write(SlowQuery slowQuery) {
+        try {
+            LOGGER.warn(objectMapper.writeValueAsString(slowQuery));
+        } catch (JsonProcessingException e) {
+            LOGGER.warn("Could not serialize slow query {}", slowQuery, e);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.nacho.creditcards.utilities;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nacho.creditcards.dto.TransactionSummary;
+
+/**
+ * Writes transaction exports as gzip-compressed CSV or NDJSON, row by row as the
+ * source produces them. The gzip header carries no timestamp and the deflater
+ * is never flushed early, so the same rows always compress to the same bytes
+ * and an unchanged export keeps its ETag.
+ */
+public final class TransactionExportWriter {
+
+    public static final String APPLICATION_GZIP = "application/gzip";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final byte[] CSV_HEADER = "id,date_time,amount,credit_card_id,brand\n".getBytes(StandardCharsets.UTF_8);
+
+    public enum Format {
+        CSV, NDJSON;
+
+        public String getExtension() {
+            return name().toLowerCase();
+        }
+    }
+
+    private TransactionExportWriter() {
+    }
+
+    public static StreamingResponseBody gzip(Format format, ObjectMapper objectMapper,
+            Consumer<Consumer<TransactionSummary>> source) {
+        return outputStream -> {
+            GZIPOutputStream gzip = new GZIPOutputStream(outputStream, BUFFER_SIZE);
+            if (format == Format.CSV) {
+                gzip.write(CSV_HEADER);
+            }
+            try {
+                source.accept(row -> {
+                    try {
+                        if (format == Format.CSV) {
+                            gzip.write(csvLine(row));
+                        } else {
+                            NdjsonStreamer.writeLine(objectMapper, gzip, row);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            // the response stream is closed by the container
+            gzip.finish();
+            outputStream.flush();
+        };
+    }
+
+    static byte[] csvLine(TransactionSummary row) {
+        StringBuilder line = new StringBuilder(64)
+                .append(row.getId()).append(',')
+                .append(row.getDateTime() == null ? "" : DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(row.getDateTime()))
+                .append(',')
+                .append(row.getAmount() == null ? "" : row.getAmount().toPlainString()).append(',')
+                .append(row.getCreditCardId() == null ? "" : row.getCreditCardId()).append(',')
+                .append(row.getBrand() == null ? "" : row.getBrand())
+                .append('\n');
+        return line.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
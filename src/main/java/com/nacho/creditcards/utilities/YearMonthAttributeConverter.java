@@ -3,25 +3,57 @@ package com.nacho.creditcards.utilities;
 import jakarta.persistence.AttributeConverter;
 import jakarta.persistence.Converter;
 import java.time.YearMonth;
-import java.time.format.DateTimeFormatter;
 
+/**
+ * Stores a YearMonth as the integer yyyymm, which keeps the column small and
+ * sorts and compares like the dates it holds. Values between
+ * {@link #FIRST_CACHED_YEAR} and {@link #LAST_CACHED_YEAR} map to shared
+ * YearMonth and Integer instances, so converting them does not allocate.
+ */
 @Converter(autoApply = true)
-public class YearMonthAttributeConverter implements AttributeConverter<YearMonth, String> {
-    private static final String PATTERN = "yyyy-MM";
+public class YearMonthAttributeConverter implements AttributeConverter<YearMonth, Integer> {
+
+    static final int FIRST_CACHED_YEAR = 2000;
+
+    static final int LAST_CACHED_YEAR = 2099;
+
+    private static final int CACHED_MONTHS = (LAST_CACHED_YEAR - FIRST_CACHED_YEAR + 1) * 12;
+
+    private static final YearMonth[] YEAR_MONTHS = new YearMonth[CACHED_MONTHS];
+
+    private static final Integer[] VALUES = new Integer[CACHED_MONTHS];
+
+    static {
+        for (int i = 0; i < CACHED_MONTHS; i++) {
+            YearMonth yearMonth = YearMonth.of(FIRST_CACHED_YEAR + i / 12, i % 12 + 1);
+            YEAR_MONTHS[i] = yearMonth;
+            VALUES[i] = yearMonth.getYear() * 100 + yearMonth.getMonthValue();
+        }
+    }
 
     @Override
-    public String convertToDatabaseColumn(YearMonth yearMonth) {
+    public Integer convertToDatabaseColumn(YearMonth yearMonth) {
         if (yearMonth == null) {
             return null;
         }
-        return yearMonth.format(DateTimeFormatter.ofPattern(PATTERN));
+        int year = yearMonth.getYear();
+        int month = yearMonth.getMonthValue();
+        if (year >= FIRST_CACHED_YEAR && year <= LAST_CACHED_YEAR) {
+            return VALUES[(year - FIRST_CACHED_YEAR) * 12 + month - 1];
+        }
+        return year * 100 + month;
     }
 
     @Override
-    public YearMonth convertToEntityAttribute(String value) {
+    public YearMonth convertToEntityAttribute(Integer value) {
         if (value == null) {
             return null;
         }
-        return YearMonth.parse(value, DateTimeFormatter.ofPattern(PATTERN));
+        int year = value / 100;
+        int month = value % 100;
+        if (year >= FIRST_CACHED_YEAR && year <= LAST_CACHED_YEAR && month >= 1 && month <= 12) {
+            return YEAR_MONTHS[(year - FIRST_CACHED_YEAR) * 12 + month - 1];
+        }
+        return YearMonth.of(year, month);
     }
 }
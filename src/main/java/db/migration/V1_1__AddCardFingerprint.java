@@ -0,0 +1,81 @@
+package db.migration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import com.nacho.creditcards.entities.CardBrand;
+import com.nacho.creditcards.entities.CreditCard;
+import com.nacho.creditcards.utilities.CardFingerprint;
+
+/**
+ * Adds credit_card.fingerprint with its unique index. The fingerprint is a
+ * SHA-256 computed by CardFingerprint, so the existing cards are filled in here
+ * rather than in SQL. Fails on the unique index when the table already holds
+ * duplicate cards, which have to be merged by hand first.
+ */
+public class V1_1__AddCardFingerprint extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String PAGE_SQL = "select id, card_number, holder_name, expiration_date, brand "
+            + "from credit_card where id > ? order by id limit " + BATCH_SIZE;
+
+    private static final String UPDATE_SQL = "update credit_card set fingerprint = ? where id = ?";
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        if (hasFingerprint(connection)) {
+            // created by ddl-auto after the fingerprint was added to the entity
+            return;
+        }
+        execute(connection, "alter table credit_card add column fingerprint varchar(" + CardFingerprint.LENGTH + ") null");
+        try (PreparedStatement page = connection.prepareStatement(PAGE_SQL);
+                PreparedStatement update = connection.prepareStatement(UPDATE_SQL)) {
+            long after = 0;
+            int read;
+            do {
+                read = 0;
+                page.setLong(1, after);
+                try (ResultSet rows = page.executeQuery()) {
+                    while (rows.next()) {
+                        after = rows.getLong(1);
+                        CreditCard creditCard = CreditCard.builder()
+                                .cardNumber(rows.getString(2))
+                                .holderName(rows.getString(3))
+                                .expirationDate(YearMonth.parse(rows.getString(4)))
+                                .brand(CardBrand.valueOf(rows.getString(5)))
+                                .build();
+                        update.setString(1, CardFingerprint.of(creditCard));
+                        update.setLong(2, after);
+                        update.addBatch();
+                        read++;
+                    }
+                }
+                update.executeBatch();
+            } while (read == BATCH_SIZE);
+        }
+        execute(connection, "alter table credit_card modify fingerprint varchar(" + CardFingerprint.LENGTH + ") not null, "
+                + "add constraint ux_credit_card_fingerprint unique (fingerprint)");
+    }
+
+    private static boolean hasFingerprint(Connection connection) throws SQLException {
+        try (ResultSet columns = connection.getMetaData()
+                .getColumns(connection.getCatalog(), null, "credit_card", "fingerprint")) {
+            return columns.next();
+        }
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+-- Running totals per card and month and per brand and month, kept by
+-- TransactionAggregateService. Transactions stored before this version are not
+-- counted until the aggregates are rebuilt (POST /journal/replay/aggregates).
+
+create table if not exists transaction_aggregates (
+    aggregate_key varchar(64) not null,
+    transaction_count bigint not null,
+    amount_total decimal(38, 2),
+    fee_total decimal(38, 6),
+    primary key (aggregate_key)
+) engine = InnoDB;
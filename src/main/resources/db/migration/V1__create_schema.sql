@@ -0,0 +1,21 @@
+-- Schema as previously generated by spring.jpa.hibernate.ddl-auto=create, before
+-- card fingerprints and aggregates were added (V1_1, V1_2). Databases created
+-- that way are baselined at this version (spring.flyway.baseline-on-migrate).
+
+create table credit_card (
+    id bigint not null auto_increment,
+    card_number varchar(255) not null,
+    holder_name varchar(255) not null,
+    expiration_date varchar(255) not null,
+    brand varchar(255) not null,
+    primary key (id)
+) engine = InnoDB;
+
+create table transactions (
+    id bigint not null auto_increment,
+    credit_card_id bigint,
+    date_time datetime(6),
+    amount decimal(38, 2),
+    primary key (id),
+    constraint fk_transactions_credit_card foreign key (credit_card_id) references credit_card (id)
+) engine = InnoDB;
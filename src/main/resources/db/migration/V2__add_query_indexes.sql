@@ -0,0 +1,9 @@
+-- lookups by card number, holder, expiration and brand go through the unique
+-- fingerprint index: the four utf8mb4 varchar(255) columns exceed InnoDB's
+-- 3072-byte index key limit
+
+-- transactions of a card (join fetch, aggregates per card), optionally by time
+create index ix_transactions_credit_card_date_time on transactions (credit_card_id, date_time);
+
+-- transactions by time
+create index ix_transactions_date_time on transactions (date_time);
@@ -0,0 +1,24 @@
+-- expiration_date: 'yyyy-MM' string -> int yyyymm; brand: enum name -> small int code (CardBrand.getCode)
+
+alter table credit_card
+    add column expiration_yyyymm int null,
+    add column brand_code smallint null;
+
+update credit_card set
+    expiration_yyyymm = cast(substring(expiration_date, 1, 4) as unsigned) * 100 + cast(substring(expiration_date, 6, 2) as unsigned),
+    brand_code = case brand when 'VISA' then 1 when 'NARA' then 2 when 'AMEX' then 3 end;
+
+alter table credit_card
+    drop column expiration_date,
+    drop column brand;
+
+alter table credit_card
+    rename column expiration_yyyymm to expiration_date,
+    rename column brand_code to brand;
+
+alter table credit_card
+    modify expiration_date int not null,
+    modify brand smallint not null;
+
+-- CreditCardRepository.findExpiringBetween
+create index ix_credit_card_expiration_date on credit_card (expiration_date);
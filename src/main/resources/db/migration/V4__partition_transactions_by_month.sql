@@ -0,0 +1,29 @@
+-- Monthly range partitions on transactions.date_time. MySQL requires the
+-- partitioning column in every unique key and does not support foreign keys on
+-- partitioned tables, so the primary key becomes (id, date_time) and the card
+-- reference is checked by the application. Only the catch-all pmax partition is
+-- created here; TransactionPartitionService splits it into months.
+
+-- databases baselined from ddl-auto=create have a generated foreign key name
+set @fk_name = (
+    select constraint_name from information_schema.referential_constraints
+    where constraint_schema = database() and table_name = 'transactions' and referenced_table_name = 'credit_card'
+    limit 1);
+set @drop_fk = if(@fk_name is null, 'do 0', concat('alter table transactions drop foreign key `', @fk_name, '`'));
+prepare drop_fk from @drop_fk;
+execute drop_fk;
+deallocate prepare drop_fk;
+
+-- rows without a date land in the first monthly partition, which
+-- TransactionPartitionService bounds by creditcards.partitions.months-back
+update transactions set date_time = '1970-01-01 00:00:00' where date_time is null;
+
+alter table transactions
+    modify date_time datetime(6) not null,
+    drop primary key,
+    add primary key (id, date_time);
+
+alter table transactions
+    partition by range columns (date_time) (
+        partition pmax values less than (maxvalue)
+    );
@@ -0,0 +1,15 @@
+-- Idempotency-Key of POST /transactions with the stored result of the first request.
+-- response is null while that request is being processed.
+create table idempotency_key (
+    id bigint not null auto_increment,
+    idempotency_key varchar(255) not null,
+    request_hash char(64) not null,
+    response mediumtext,
+    created_at datetime(6) not null,
+    completed_at datetime(6),
+    primary key (id),
+    constraint ux_idempotency_key unique (idempotency_key)
+) engine = InnoDB;
+
+-- purge of expired keys
+create index ix_idempotency_key_created_at on idempotency_key (created_at);
@@ -0,0 +1,27 @@
+package com.nacho.creditcards;
+
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Tests start from an empty schema built by the migrations, as they did when
+ * Hibernate recreated the schema on every start.
+ */
+@Configuration
+public class FlywayTestConfig {
+
+    @Bean
+    public FlywayConfigurationCustomizer cleanEnabledCustomizer() {
+        return configuration -> configuration.cleanDisabled(false);
+    }
+
+    @Bean
+    public FlywayMigrationStrategy cleanMigrateStrategy() {
+        return flyway -> {
+            flyway.clean();
+            flyway.migrate();
+        };
+    }
+}
@@ -0,0 +1,114 @@
+package com.nacho.creditcards.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.nacho.creditcards.exceptions.TransactionAmountInvalidException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ExceptionMetricsAspectTest {
+
+    private SimpleMeterRegistry registry;
+
+    private FailingService service;
+
+    private FailingController controller;
+
+    private CallingService callingService;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        ExceptionMetricsAspect aspect = new ExceptionMetricsAspect();
+        ReflectionTestUtils.setField(aspect, "meterRegistry", registry);
+        service = proxy(new FailingService(), aspect);
+        controller = proxy(new FailingController(service), aspect);
+        callingService = proxy(new CallingService(service), aspect);
+    }
+
+    @Test
+    public void testCountsExceptionsByTypeAndMethod() {
+        assertThrows(TransactionAmountInvalidException.class, () -> service.fail());
+        assertThrows(TransactionAmountInvalidException.class, () -> service.fail());
+        service.succeed();
+
+        assertThat(registry.get(ExceptionMetricsAspect.EXCEPTION_COUNTER)
+                .tag("exception", "TransactionAmountInvalidException")
+                .tag("method", "fail")
+                .counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    public void testExceptionsRethrownByControllersAreCountedOnce() {
+        assertThrows(TransactionAmountInvalidException.class, () -> controller.fail());
+
+        assertThat(registry.get(ExceptionMetricsAspect.EXCEPTION_COUNTER).counters()).hasSize(1);
+        assertThat(registry.get(ExceptionMetricsAspect.EXCEPTION_COUNTER)
+                .tag("class", "FailingService")
+                .counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void testExceptionsPassingThroughSeveralServicesAreCountedOnce() {
+        assertThrows(TransactionAmountInvalidException.class, () -> callingService.fail());
+
+        assertThat(registry.get(ExceptionMetricsAspect.EXCEPTION_COUNTER).counters()).hasSize(1);
+        assertThat(registry.get(ExceptionMetricsAspect.EXCEPTION_COUNTER)
+                .tag("class", "FailingService")
+                .counter().count()).isEqualTo(1.0);
+    }
+
+    private static <T> T proxy(T target, ExceptionMetricsAspect aspect) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+
+    @Service
+    static class FailingService {
+
+        public void fail() {
+            throw new TransactionAmountInvalidException("Transaction amount is invalid");
+        }
+
+        public void succeed() {
+        }
+    }
+
+    @RestController
+    static class FailingController {
+
+        private final FailingService service;
+
+        FailingController(FailingService service) {
+            this.service = service;
+        }
+
+        public void fail() {
+            service.fail();
+        }
+    }
+
+    @Service
+    static class CallingService {
+
+        private final FailingService service;
+
+        CallingService(FailingService service) {
+            this.service = service;
+        }
+
+        public void fail() {
+            service.fail();
+        }
+    }
+}
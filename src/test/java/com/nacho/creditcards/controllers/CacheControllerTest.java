@@ -0,0 +1,60 @@
+package com.nacho.creditcards.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nacho.creditcards.config.CacheConfig;
+
+@ExtendWith(MockitoExtension.class)
+public class CacheControllerTest {
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @InjectMocks
+    private CacheController controller;
+
+    @Test
+    public void testGetCacheStats() {
+        // Arrange
+        CaffeineCache cache = new CaffeineCache(CacheConfig.CREDIT_CARDS,
+                Caffeine.newBuilder().maximumSize(10).recordStats().build());
+        cache.put(1L, "card");
+        cache.get(1L);
+        cache.get(2L);
+        when(cacheManager.getCache(CacheConfig.CREDIT_CARDS)).thenReturn(cache);
+
+        // Act
+        ResponseEntity<Map<String, Object>> response = controller.getCacheStats(CacheConfig.CREDIT_CARDS);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody())
+                .containsEntry("size", 1L)
+                .containsEntry("hitCount", 1L)
+                .containsEntry("missCount", 1L)
+                .containsEntry("evictionCount", 0L);
+    }
+
+    @Test
+    public void testGetCacheStatsUnknownCache() {
+        when(cacheManager.getCache("unknown")).thenReturn(null);
+
+        ResponseEntity<Map<String, Object>> response = controller.getCacheStats("unknown");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+}
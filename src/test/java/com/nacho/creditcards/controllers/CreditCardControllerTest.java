@@ -4,6 +4,8 @@ import com.nacho.creditcards.entities.CardBrand;
 import com.nacho.creditcards.entities.CreditCard;
 import com.nacho.creditcards.exceptions.CreditCardNotValidException;
 import com.nacho.creditcards.services.interfaces.ICreditCardService;
+import com.nacho.creditcards.services.validation.CardValidationResult;
+import com.nacho.creditcards.services.validation.CardValidator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -11,19 +13,32 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 
 import java.time.YearMonth;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -95,6 +110,68 @@ public class CreditCardControllerTest {
         assertThat(response.getBody()).isEqualTo(creditCards);
     }
 
+    @Test
+    public void testGetCreditCardsPage() {
+        // Arrange
+        List<CreditCard> creditCards = Arrays.asList(
+            CreditCard.builder().id(11L).brand(CardBrand.AMEX).build(),
+            CreditCard.builder().id(12L).brand(CardBrand.NARA).build()
+        );
+        when(creditCardService.getCreditCardsAfter(10L, 2)).thenReturn(creditCards);
+
+        // Act
+        ResponseEntity<List<CreditCard>> response = controller.getCreditCardsPage(10L, 2);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(creditCards);
+    }
+
+    @Test
+    public void testGetCreditCardsExpiringBetween() {
+        YearMonth from = YearMonth.of(2025, 1);
+        YearMonth to = YearMonth.of(2025, 12);
+        List<CreditCard> creditCards = List.of(CreditCard.builder().id(3L).expirationDate(YearMonth.of(2025, 6)).build());
+        when(creditCardService.getCreditCardsExpiringBetween(from, to, null, 0L, 100)).thenReturn(creditCards);
+
+        ResponseEntity<List<CreditCard>> response = controller.getCreditCardsExpiringBetween(from, to, null, 0L, 100);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(creditCards);
+    }
+
+    @Test
+    public void testGetCreditCardsExpiringBetweenRejectsInvertedRange() {
+        ResponseEntity<List<CreditCard>> response = controller.getCreditCardsExpiringBetween(
+                YearMonth.of(2026, 1), YearMonth.of(2025, 1), null, 0L, 100);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testStreamCreditCardsWritesOneLinePerCard() throws Exception {
+        // Arrange
+        controller.objectMapper = new ObjectMapper().findAndRegisterModules();
+        doAnswer(invocation -> {
+            Consumer<CreditCard> consumer = invocation.getArgument(0);
+            consumer.accept(CreditCard.builder().id(1L).holderName("John Doe").build());
+            consumer.accept(CreditCard.builder().id(2L).holderName("Jane Doe").build());
+            return null;
+        }).when(creditCardService).streamCreditCards(any(Consumer.class));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // Act
+        ResponseEntity<StreamingResponseBody> response = controller.streamCreditCards(1);
+        response.getBody().writeTo(outputStream);
+
+        // Assert
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).contains("\"id\":1");
+        assertThat(lines[1]).contains("\"holderName\":\"Jane Doe\"");
+    }
+
     @Test
     public void testCreateCreditCard() throws CreditCardNotValidException {
         // Arrange
@@ -157,6 +234,45 @@ public class CreditCardControllerTest {
         assertThat(response.getBody()).isEqualTo(updatedCreditCard);
     }
     
+    @Test
+    public void testCreateDuplicateCreditCard() throws CreditCardNotValidException {
+        // Arrange
+        CreditCard creditCard = CreditCard.builder()
+                .cardNumber("1234 5678 9012 3456")
+                .holderName("John Doe")
+                .expirationDate(YearMonth.of(2025, 12))
+                .brand(CardBrand.VISA)
+                .build();
+        when(creditCardService.createCreditCard(creditCard))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry for key 'ux_credit_card_fingerprint'"));
+
+        // Act
+        ResponseEntity<CreditCard> response = controller.createCreditCard(creditCard);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    public void testUpdateCreditCardToDuplicate() {
+        // Arrange
+        Long id = 1L;
+        CreditCard creditCard = CreditCard.builder()
+                .cardNumber("1234 5678 9012 3456")
+                .holderName("John Doe")
+                .expirationDate(YearMonth.of(2025, 12))
+                .brand(CardBrand.VISA)
+                .build();
+        when(creditCardService.updateCreditCard(id, creditCard))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry for key 'ux_credit_card_fingerprint'"));
+
+        // Act
+        ResponseEntity<CreditCard> response = controller.updateCreditCard(id, creditCard);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+    }
+
     @Test
     public void testDeleteCreditCard() throws Exception {
         // Arrange
@@ -172,6 +288,20 @@ public class CreditCardControllerTest {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
         verify(creditCardService, times(1)).deleteCreditCard(id);
     }
+
+    @Test
+    public void testDeleteCreditCardWithTransactions() throws Exception {
+        // Arrange
+        Long id = 1L;
+        doThrow(new DataIntegrityViolationException("Credit card 1 still has transactions"))
+                .when(creditCardService).deleteCreditCard(id);
+
+        // Act
+        ResponseEntity<Void> response = controller.deleteCreditCard(id);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+    }
     
     @Test
     public void testIsCreditCardValid() throws Exception {
@@ -220,5 +350,58 @@ public class CreditCardControllerTest {
         assertTrue(response.getBody());
         verify(creditCardService, times(1)).isCreditCardDistinct(eq(creditCard));
     }
-    
+
+    @Test
+    public void testValidateCreditCard() {
+        CreditCard creditCard = CreditCard.builder()
+                .cardNumber("4111111111111111")
+                .holderName("John Doe")
+                .expirationDate(YearMonth.now().plusYears(1))
+                .brand(CardBrand.VISA)
+                .build();
+        when(creditCardService.validateCreditCard(creditCard)).thenReturn(CardValidationResult.VALID);
+
+        ResponseEntity<CardValidationResult> response = controller.validateCreditCard(creditCard);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().isValid()).isTrue();
+    }
+
+    @Test
+    public void testValidateCreditCardsRejectsTooManyCards() {
+        List<CreditCard> creditCards = Collections.nCopies(CreditCardController.MAX_BULK_VALIDATION_SIZE + 1,
+                CreditCard.builder().build());
+
+        ResponseEntity<List<CardValidationResult>> response = controller.validateCreditCards(creditCards);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        verify(creditCardService, never()).validateCreditCards(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testValidateCreditCardsStreamWritesVerdictsInOrder() throws Exception {
+        // Arrange
+        controller.objectMapper = new ObjectMapper().findAndRegisterModules();
+        String input = "{\"cardNumber\":\"4111111111111111\",\"holderName\":\"John Doe\",\"expirationDate\":\"2099-01\",\"brand\":\"VISA\"}\n"
+                + "{\"cardNumber\":\"123\",\"holderName\":\"Jane Doe\",\"expirationDate\":\"2099-01\",\"brand\":\"VISA\"}\n";
+        when(creditCardService.validateCreditCards(any(List.class))).thenAnswer(invocation -> {
+            List<CreditCard> creditCards = invocation.getArgument(0);
+            return creditCards.stream()
+                    .map(creditCard -> CardValidator.validate(creditCard, YearMonth.of(2024, 1)))
+                    .toList();
+        });
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // Act
+        ResponseEntity<StreamingResponseBody> response = controller.validateCreditCardsStream(
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+        response.getBody().writeTo(outputStream);
+
+        // Assert
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).contains("\"valid\":true");
+        assertThat(lines[1]).contains("\"valid\":false").contains("INVALID_CARD_NUMBER");
+    }
 }
@@ -0,0 +1,94 @@
+package com.nacho.creditcards.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.servlet.function.EntityResponse;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import com.nacho.creditcards.dto.FeeQuote;
+import com.nacho.creditcards.entities.CardBrand;
+import com.nacho.creditcards.services.fees.AmexFeeRule;
+import com.nacho.creditcards.services.fees.FeeEngine;
+import com.nacho.creditcards.services.fees.NaraFeeRule;
+import com.nacho.creditcards.services.fees.VisaFeeRule;
+
+public class FeeQuoteHandlerTest {
+
+    @Spy
+    private FeeEngine feeEngine = new FeeEngine(List.of(new VisaFeeRule(), new NaraFeeRule(), new AmexFeeRule()));
+
+    @InjectMocks
+    private FeeQuoteHandler handler;
+
+    private final List<HttpMessageConverter<?>> messageConverters = List.of(new MappingJackson2HttpMessageConverter());
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    private ServerRequest request(MockHttpServletRequest servletRequest) {
+        return ServerRequest.create(servletRequest, messageConverters);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testQuote() {
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET", "/fees/quote");
+        servletRequest.addParameter("brand", "amex");
+        servletRequest.addParameter("amount", "100");
+        doReturn(new BigDecimal("1.25")).when(feeEngine)
+                .calculateFee(eq(CardBrand.AMEX), any(LocalDateTime.class), eq(new BigDecimal("100")));
+
+        ServerResponse response = handler.quote(request(servletRequest));
+
+        assertThat(response.statusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(((EntityResponse<BigDecimal>) response).entity()).isEqualByComparingTo("1.25");
+    }
+
+    @Test
+    public void testQuoteWithUnknownBrand() {
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET", "/fees/quote");
+        servletRequest.addParameter("brand", "diners");
+        servletRequest.addParameter("amount", "100");
+
+        ServerResponse response = handler.quote(request(servletRequest));
+
+        assertThat(response.statusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testQuoteBatch() throws Exception {
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest("POST", "/fees/quote/batch");
+        servletRequest.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        servletRequest.setContent("[{\"brand\":\"visa\",\"amount\":10},{\"brand\":\"NARA\",\"amount\":20}]"
+                .getBytes(StandardCharsets.UTF_8));
+
+        ServerResponse response = handler.quoteBatch(request(servletRequest));
+
+        assertThat(response.statusCode()).isEqualTo(HttpStatus.OK);
+        List<FeeQuote> quotes = ((EntityResponse<List<FeeQuote>>) response).entity();
+        assertThat(quotes).extracting(FeeQuote::getBrand).containsExactly("VISA", "NARA");
+        assertThat(quotes).allMatch(quote -> quote.getFee() != null);
+    }
+}
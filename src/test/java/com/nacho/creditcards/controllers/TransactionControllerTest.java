@@ -1,25 +1,50 @@
 package com.nacho.creditcards.controllers;
 
+import com.nacho.creditcards.dto.TransactionBatchResult;
+import com.nacho.creditcards.dto.TransactionExportFilter;
+import com.nacho.creditcards.dto.TransactionSummary;
 import com.nacho.creditcards.entities.CardBrand;
 import com.nacho.creditcards.entities.CreditCard;
 import com.nacho.creditcards.entities.Transaction;
+import com.nacho.creditcards.exceptions.IdempotencyKeyInProgressException;
+import com.nacho.creditcards.exceptions.IdempotencyKeyReusedException;
+import com.nacho.creditcards.exceptions.TransactionQueueFullException;
+import com.nacho.creditcards.services.exports.TransactionExportSpool;
+import com.nacho.creditcards.services.interfaces.IIdempotencyService;
 import com.nacho.creditcards.services.interfaces.ITransactionService;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -29,9 +54,15 @@ public class TransactionControllerTest {
     
     @Mock
     private ITransactionService transactionService;
+
+    @Mock
+    private IIdempotencyService idempotencyService;
     
     @InjectMocks
     private TransactionController controller;
+
+    @TempDir
+    Path exportDirectory;
     
     @Test
     public void testGetTransactionById() throws Exception {
@@ -75,6 +106,32 @@ public class TransactionControllerTest {
         assertThat(response.getBody()).isEqualTo(transactions);
     }
     
+    @Test
+    public void testGetTransactionsPage() {
+        // Arrange
+        List<Transaction> transactions = Arrays.asList(
+                Transaction.builder().id(3L).amount(BigDecimal.valueOf(10.00)).build(),
+                Transaction.builder().id(4L).amount(BigDecimal.valueOf(20.00)).build()
+        );
+        when(transactionService.getTransactionsAfter(2L, 2)).thenReturn(transactions);
+
+        // Act
+        ResponseEntity<List<Transaction>> response = controller.getTransactionsPage(2L, 2);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(transactions);
+    }
+
+    @Test
+    public void testGetTransactionsPageEmpty() {
+        when(transactionService.getTransactionsAfter(100L, 10)).thenReturn(List.of());
+
+        ResponseEntity<List<Transaction>> response = controller.getTransactionsPage(100L, 10);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+    }
+    
     @Test
     public void testCreateTransaction() throws Exception {
         // Arrange
@@ -100,7 +157,7 @@ public class TransactionControllerTest {
         when(transactionService.createTransaction(creditCard, amount)).thenReturn(createdTransaction);
 
         // Act
-        ResponseEntity<Transaction> response = controller.createTransaction(transaction);
+        ResponseEntity<Transaction> response = controller.createTransaction(transaction, null);
 
         // Assert
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
@@ -108,6 +165,113 @@ public class TransactionControllerTest {
         verify(transactionService, times(1)).createTransaction(creditCard, amount);
     }
 
+    @Test
+    public void testCreateTransactionInWriteBehindMode() {
+        BigDecimal amount = BigDecimal.valueOf(100);
+        CreditCard creditCard = CreditCard.builder().id(1L).brand(CardBrand.VISA).build();
+        Transaction transaction = Transaction.builder().amount(amount).creditCard(creditCard).build();
+        when(transactionService.isWriteBehindEnabled()).thenReturn(true);
+        when(transactionService.enqueueTransaction(creditCard, amount)).thenReturn(transaction);
+
+        ResponseEntity<Transaction> response = controller.createTransaction(transaction, null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        assertThat(response.getBody()).isEqualTo(transaction);
+        verify(transactionService, never()).createTransaction(creditCard, amount);
+    }
+
+    @Test
+    public void testCreateTransactionWhenWriteBehindQueueIsFull() {
+        BigDecimal amount = BigDecimal.valueOf(100);
+        CreditCard creditCard = CreditCard.builder().id(1L).brand(CardBrand.VISA).build();
+        Transaction transaction = Transaction.builder().amount(amount).creditCard(creditCard).build();
+        when(transactionService.isWriteBehindEnabled()).thenReturn(true);
+        when(transactionService.enqueueTransaction(creditCard, amount))
+                .thenThrow(new TransactionQueueFullException("The transaction queue is full, retry later"));
+
+        ResponseEntity<Transaction> response = controller.createTransaction(transaction, null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCreateTransactionWithIdempotencyKeyReturnsTheStoredResult() {
+        CreditCard creditCard = CreditCard.builder().id(1L).brand(CardBrand.VISA).build();
+        Transaction transaction = Transaction.builder().amount(BigDecimal.TEN).creditCard(creditCard).build();
+        Transaction original = Transaction.builder().id(7L).amount(BigDecimal.TEN).creditCard(creditCard).build();
+        when(idempotencyService.execute(eq("retry-1"), eq(transaction), eq(Transaction.class), any(Supplier.class)))
+                .thenReturn(original);
+
+        ResponseEntity<Transaction> response = controller.createTransaction(transaction, "retry-1");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(response.getBody()).isEqualTo(original);
+        verify(transactionService, never()).createTransaction(any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCreateTransactionWithIdempotencyKeyRunsTheCreationOnce() {
+        BigDecimal amount = BigDecimal.TEN;
+        CreditCard creditCard = CreditCard.builder().id(1L).brand(CardBrand.VISA).build();
+        Transaction transaction = Transaction.builder().amount(amount).creditCard(creditCard).build();
+        Transaction created = Transaction.builder().id(7L).amount(amount).creditCard(creditCard).build();
+        when(transactionService.createTransaction(creditCard, amount)).thenReturn(created);
+        when(idempotencyService.execute(eq("new-1"), eq(transaction), eq(Transaction.class), any(Supplier.class)))
+                .thenAnswer(invocation -> ((Supplier<Transaction>) invocation.getArgument(3)).get());
+
+        ResponseEntity<Transaction> response = controller.createTransaction(transaction, "new-1");
+
+        assertThat(response.getBody()).isEqualTo(created);
+        verify(transactionService, times(1)).createTransaction(creditCard, amount);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCreateTransactionWithIdempotencyKeyConflicts() {
+        Transaction transaction = Transaction.builder().amount(BigDecimal.TEN).build();
+        when(idempotencyService.execute(any(), eq(transaction), eq(Transaction.class), any(Supplier.class)))
+                .thenThrow(new IdempotencyKeyInProgressException("in progress"))
+                .thenThrow(new IdempotencyKeyReusedException("reused"));
+
+        assertThat(controller.createTransaction(transaction, "busy").getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(controller.createTransaction(transaction, "reused").getStatusCode())
+                .isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+        assertThat(controller.createTransaction(transaction, " ").getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    public void testCreateTransactions() {
+        // Arrange
+        List<Transaction> transactions = Arrays.asList(
+                Transaction.builder().amount(BigDecimal.valueOf(10.00)).creditCard(CreditCard.builder().id(1L).build()).build(),
+                Transaction.builder().amount(BigDecimal.valueOf(5000.00)).creditCard(CreditCard.builder().id(1L).build()).build()
+        );
+        List<TransactionBatchResult> results = Arrays.asList(
+                TransactionBatchResult.builder().index(0).transactionId(1L).created(true).build(),
+                TransactionBatchResult.builder().index(1).error("Transaction amount is invalid").build()
+        );
+        when(transactionService.createTransactions(transactions)).thenReturn(results);
+
+        // Act
+        ResponseEntity<List<TransactionBatchResult>> response = controller.createTransactions(transactions);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(results);
+    }
+
+    @Test
+    public void testCreateTransactionsRejectsOversizedBatch() {
+        List<Transaction> transactions = Collections.nCopies(TransactionController.MAX_BATCH_SIZE + 1, new Transaction());
+
+        ResponseEntity<List<TransactionBatchResult>> response = controller.createTransactions(transactions);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
     @Test
     public void testUpdateTransaction() throws Exception {
         // Arrange
@@ -148,6 +312,144 @@ public class TransactionControllerTest {
         verify(transactionService, times(1)).deleteTransaction(id);
     }
     
+    @Test
+    public void testGetTransactionsBetween() {
+        // Arrange
+        LocalDateTime from = LocalDateTime.of(2024, 3, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 4, 1, 0, 0);
+        List<Transaction> transactions = List.of(Transaction.builder().id(1L).dateTime(from.plusDays(1)).build());
+        when(transactionService.getTransactionsBetween(from, to, null, 0L, 100)).thenReturn(transactions);
+
+        // Act
+        ResponseEntity<List<Transaction>> response = controller.getTransactionsBetween(from, to, null, 0L, 100);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(transactions);
+    }
+
+    @Test
+    public void testGetTransactionsBetweenRejectsEmptyRange() {
+        // Arrange
+        LocalDateTime from = LocalDateTime.of(2024, 4, 1, 0, 0);
+
+        // Act
+        ResponseEntity<List<Transaction>> response = controller.getTransactionsBetween(from, from, null, 0L, 100);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        verify(transactionService, never()).getTransactionsBetween(from, from, null, 0L, 100);
+    }
+
+    @Test
+    public void testGetTransactionSummariesBetweenWithoutResults() {
+        // Arrange
+        LocalDateTime from = LocalDateTime.of(2024, 3, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 4, 1, 0, 0);
+        when(transactionService.getTransactionSummariesBetween(from, to, null, 0L, 100)).thenReturn(Collections.emptyList());
+
+        // Act
+        ResponseEntity<List<TransactionSummary>> response = controller.getTransactionSummariesBetween(from, to, null, 0L, 100);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+    }
+
+    @Test
+    public void testExportTransactionsAsGzipCsv() throws Exception {
+        // Arrange
+        stubExport();
+
+        // Act
+        ResponseEntity<StreamingResponseBody> response = controller.exportTransactions("csv", null, null, null, null,
+                null, null, null);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isNotNull();
+        assertThat(response.getHeaders().getContentDisposition().getFilename()).isEqualTo("transactions-5.csv.gz");
+        assertThat(gunzip(write(response.getBody()))).isEqualTo("id,date_time,amount,credit_card_id,brand\n"
+                + "4,2024-03-01T10:15:00,12.50,1,VISA\n"
+                + "5,2024-03-02T08:00:00.5,7.00,2,AMEX\n");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testExportTransactionsResumesFromTheRequestedByte() throws Exception {
+        // Arrange
+        stubExport();
+        ResponseEntity<StreamingResponseBody> full = controller.exportTransactions("csv", null, null, null, null,
+                null, null, null);
+        byte[] fullBody = write(full.getBody());
+        String etag = full.getHeaders().getETag();
+
+        // Act
+        ResponseEntity<StreamingResponseBody> response = controller.exportTransactions("csv", null, null, null, null,
+                null, "bytes=10-", etag);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE))
+                .isEqualTo("bytes 10-" + (fullBody.length - 1) + "/" + fullBody.length);
+        assertThat(write(response.getBody())).isEqualTo(Arrays.copyOfRange(fullBody, 10, fullBody.length));
+        verify(transactionService, times(1)).getLatestTransactionId();
+        verify(transactionService, times(1)).exportTransactions(any(TransactionExportFilter.class), any(Consumer.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testExportTransactionsIgnoresTheRangeOfAnUnknownEtag() throws Exception {
+        // Arrange
+        stubExport();
+
+        // Act
+        ResponseEntity<StreamingResponseBody> response = controller.exportTransactions("csv", null, null, null, null,
+                null, "bytes=10-", "\"expired\"");
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isNull();
+        assertThat(gunzip(write(response.getBody()))).startsWith("id,date_time,amount,credit_card_id,brand\n");
+    }
+
+    @Test
+    public void testExportTransactionsRejectsUnknownBrand() throws Exception {
+        // Act
+        ResponseEntity<StreamingResponseBody> response = controller.exportTransactions("csv", null, "diners", null, null,
+                null, null, null);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubExport() throws Exception {
+        TransactionExportSpool transactionExportSpool = new TransactionExportSpool(exportDirectory.toString(), 60, 10);
+        transactionExportSpool.init();
+        ReflectionTestUtils.setField(controller, "transactionExportSpool", transactionExportSpool);
+        when(transactionService.getLatestTransactionId()).thenReturn(5L);
+        doAnswer(invocation -> {
+            Consumer<TransactionSummary> consumer = invocation.getArgument(1);
+            consumer.accept(new TransactionSummary(4L, LocalDateTime.of(2024, 3, 1, 10, 15), new BigDecimal("12.50"), 1L,
+                    CardBrand.VISA));
+            consumer.accept(new TransactionSummary(5L, LocalDateTime.of(2024, 3, 2, 8, 0, 0, 500_000_000),
+                    new BigDecimal("7.00"), 2L, CardBrand.AMEX));
+            return null;
+        }).when(transactionService).exportTransactions(any(TransactionExportFilter.class), any(Consumer.class));
+    }
+
+    private static byte[] write(StreamingResponseBody body) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        body.writeTo(outputStream);
+        return outputStream.toByteArray();
+    }
+
+    private static String gunzip(byte[] compressed) throws Exception {
+        try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
     @Test
     public void testValidateTransaction() {
         // Arrange
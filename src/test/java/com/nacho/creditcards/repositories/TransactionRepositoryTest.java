@@ -9,15 +9,21 @@ import java.time.YearMonth;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
 
+import com.nacho.creditcards.dto.TransactionSummary;
 import com.nacho.creditcards.entities.CardBrand;
 import com.nacho.creditcards.entities.CreditCard;
 import com.nacho.creditcards.entities.Transaction;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
 
-@SpringBootTest
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 public class TransactionRepositoryTest {
@@ -28,6 +34,9 @@ public class TransactionRepositoryTest {
     @Autowired
     private CreditCardRepository creditCardRepository;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     private CreditCard creditCard;
 
     @BeforeAll
@@ -110,4 +119,79 @@ public class TransactionRepositoryTest {
 
         assertThat(transactionRepository.findById(transaction.getId())).isEmpty();
     }
+
+    @Test
+    @Order(5)
+    public void testListingWithCreditCardsUsesSingleStatement() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<Transaction> transactions = transactionRepository.findAllWithCreditCard();
+        transactions.forEach(transaction -> assertThat(transaction.getCreditCard().getBrand()).isEqualTo(CardBrand.VISA));
+
+        assertThat(transactions).isNotEmpty();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    @Order(6)
+    public void testSummariesUseSingleStatement() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<TransactionSummary> summaries = transactionRepository.findSummariesAfter(0L, PageRequest.of(0, 100));
+
+        assertThat(summaries).isNotEmpty().allMatch(summary -> summary.getBrand() == CardBrand.VISA);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    @Order(7)
+    public void testFindPageBetweenReturnsOnlyTheRange() {
+        LocalDateTime march = LocalDateTime.of(2024, 3, 15, 12, 0);
+        Transaction inRange = transactionRepository.save(Transaction.builder()
+                .amount(new BigDecimal("10.00"))
+                .dateTime(march)
+                .creditCard(creditCard)
+                .build());
+        transactionRepository.save(Transaction.builder()
+                .amount(new BigDecimal("20.00"))
+                .dateTime(march.plusMonths(1))
+                .creditCard(creditCard)
+                .build());
+
+        List<Transaction> page = transactionRepository.findPageBetween(LocalDateTime.of(2024, 3, 1, 0, 0), 0L,
+                LocalDateTime.of(2024, 4, 1, 0, 0), PageRequest.of(0, 10));
+
+        assertThat(page).extracting(Transaction::getId).containsExactly(inRange.getId());
+    }
+
+    @Test
+    @Order(8)
+    public void testFindPageBetweenResumesAfterTheLastDateTimeAndId() {
+        LocalDateTime may = LocalDateTime.of(2024, 5, 10, 12, 0);
+        Transaction first = transactionRepository.save(Transaction.builder()
+                .amount(new BigDecimal("10.00"))
+                .dateTime(may)
+                .creditCard(creditCard)
+                .build());
+        Transaction second = transactionRepository.save(Transaction.builder()
+                .amount(new BigDecimal("20.00"))
+                .dateTime(may)
+                .creditCard(creditCard)
+                .build());
+        Transaction earlier = transactionRepository.save(Transaction.builder()
+                .amount(new BigDecimal("30.00"))
+                .dateTime(may.minusDays(1))
+                .creditCard(creditCard)
+                .build());
+        LocalDateTime from = LocalDateTime.of(2024, 5, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 6, 1, 0, 0);
+
+        List<Transaction> firstPage = transactionRepository.findPageBetween(from, 0L, to, PageRequest.of(0, 2));
+        List<Transaction> secondPage = transactionRepository.findPageBetween(may, first.getId(), to, PageRequest.of(0, 2));
+
+        assertThat(firstPage).extracting(Transaction::getId).containsExactly(earlier.getId(), first.getId());
+        assertThat(secondPage).extracting(Transaction::getId).containsExactly(second.getId());
+    }
 }
@@ -0,0 +1,161 @@
+package com.nacho.creditcards.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nacho.creditcards.dto.CardImportStatus;
+import com.nacho.creditcards.entities.CreditCard;
+import com.nacho.creditcards.exceptions.CardImportQueueFullException;
+import com.nacho.creditcards.repositories.CreditCardBatchRepository;
+import com.nacho.creditcards.services.imports.CardImportFormat;
+import com.nacho.creditcards.services.imports.CardImportJob;
+import com.nacho.creditcards.services.interfaces.ICreditCardService;
+import com.nacho.creditcards.services.validation.CardValidator;
+
+public class CardImportServiceTest {
+
+    private static final String EXPIRATION = YearMonth.now().plusYears(3).toString();
+
+    @Mock
+    private ICreditCardService creditCardService;
+
+    @Mock
+    private CreditCardBatchRepository creditCardBatchRepository;
+
+    @Spy
+    private CardFingerprintIndex fingerprintIndex = new CardFingerprintIndex();
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @InjectMocks
+    private CardImportService cardImportService;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(cardImportService, "directory", directory.toString());
+        ReflectionTestUtils.setField(cardImportService, "batchSize", 2);
+        ReflectionTestUtils.setField(cardImportService, "maxQueued", 1);
+        when(creditCardService.validateCreditCards(anyList())).thenAnswer(invocation ->
+                ((List<CreditCard>) invocation.getArgument(0)).stream().map(CardValidator::validate).toList());
+        when(creditCardService.areCreditCardsDistinct(anyList())).thenAnswer(invocation ->
+                new ArrayList<>(Collections.nCopies(((List<?>) invocation.getArgument(0)).size(), true)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testValidCardsAreInsertedOnceAndTheRestCounted() throws IOException {
+        CardImportJob job = job(CardImportFormat.CSV,
+                "card_number,holder_name,expiration_date,brand\n"
+                        + "4111111111111111,Bob Smith," + EXPIRATION + ",VISA\n"
+                        + "4111111111111111,Bob Smith," + EXPIRATION + ",VISA\n"
+                        + "4111111111111112,Bob Smith," + EXPIRATION + ",VISA\n"
+                        + "378282246310005,Ann Lee," + EXPIRATION + ",DINERS\n");
+
+        cardImportService.run(job);
+
+        CardImportStatus status = job.toStatus();
+        assertThat(status.getState()).isEqualTo(CardImportStatus.State.COMPLETED);
+        assertThat(status.getRead()).isEqualTo(4);
+        assertThat(status.getImported()).isEqualTo(1);
+        assertThat(status.getDuplicates()).isEqualTo(1);
+        assertThat(status.getInvalid()).isEqualTo(2);
+        assertThat(status.getErrors()).containsExactlyInAnyOrder("line 4: [INVALID_CHECKSUM]", "line 5: unknown brand DINERS");
+        assertThat(status.getBytesRead()).isEqualTo(status.getTotalBytes());
+        ArgumentCaptor<List<CreditCard>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(creditCardBatchRepository).upsertAll(inserted.capture());
+        assertThat(inserted.getValue()).extracting(CreditCard::getCardNumber).containsExactly("4111111111111111");
+        assertThat(fingerprintIndex.isWarm()).isFalse();
+        verify(fingerprintIndex).add(inserted.getValue().get(0).getFingerprint());
+    }
+
+    @Test
+    public void testStoredCardsAreDuplicates() throws IOException {
+        when(creditCardService.areCreditCardsDistinct(anyList())).thenReturn(List.of(false));
+        CardImportJob job = job(CardImportFormat.NDJSON,
+                "{\"cardNumber\":\"4111111111111111\",\"holderName\":\"Bob Smith\",\"expirationDate\":\""
+                        + EXPIRATION + "\",\"brand\":\"VISA\"}\n");
+
+        cardImportService.run(job);
+
+        assertThat(job.toStatus().getDuplicates()).isEqualTo(1);
+        assertThat(job.toStatus().getImported()).isZero();
+        verify(creditCardBatchRepository, never()).upsertAll(anyList());
+    }
+
+    @Test
+    public void testUnreadableFileFailsTheImport() throws IOException {
+        CardImportJob job = job(CardImportFormat.CSV, "number,holder\n");
+
+        cardImportService.run(job);
+
+        assertThat(job.toStatus().getState()).isEqualTo(CardImportStatus.State.FAILED);
+        assertThat(job.toStatus().getFailure()).contains("card_number");
+    }
+
+    @Test
+    public void testLocalFilesMustBeInTheImportDirectory() throws IOException {
+        Path outside = Files.createTempFile("cards", ".csv");
+        try {
+            assertThatThrownBy(() -> cardImportService.importFile(outside.toString(), null))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> cardImportService.importFile("../" + outside.getFileName(), null))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> cardImportService.importFile("missing.csv", null))
+                    .isInstanceOf(IllegalArgumentException.class);
+        } finally {
+            Files.deleteIfExists(outside);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testImportsAreRejectedWhileTheQueueIsFull() throws IOException {
+        CardImportJob queued = job(CardImportFormat.CSV, "card_number,holder_name,expiration_date,brand\n");
+        ((Map<String, CardImportJob>) ReflectionTestUtils.getField(cardImportService, "jobs")).put(queued.getId(), queued);
+        Files.writeString(directory.resolve("more.csv"), "card_number,holder_name,expiration_date,brand\n");
+
+        assertThatThrownBy(() -> cardImportService.importFile("more.csv", null))
+                .isInstanceOf(CardImportQueueFullException.class);
+        assertThatThrownBy(() -> cardImportService.importUpload(
+                new ByteArrayInputStream(new byte[0]), "upload.csv", null))
+                .isInstanceOf(CardImportQueueFullException.class);
+    }
+
+    private CardImportJob job(CardImportFormat format, String content) throws IOException {
+        Path file = Files.writeString(directory.resolve("cards." + format.name().toLowerCase()), content,
+                StandardCharsets.UTF_8);
+        return new CardImportJob("job", "file:" + file.getFileName(), file, format, false, false);
+    }
+}
@@ -4,19 +4,32 @@ import com.nacho.creditcards.entities.CardBrand;
 import com.nacho.creditcards.entities.CreditCard;
 import com.nacho.creditcards.exceptions.CreditCardNotValidException;
 import com.nacho.creditcards.repositories.CreditCardRepository;
+import com.nacho.creditcards.repositories.TransactionRepository;
+import com.nacho.creditcards.services.archive.TransactionArchive;
 import com.nacho.creditcards.services.interfaces.ICreditCardService;
+import com.nacho.creditcards.services.validation.CardValidationError;
+import com.nacho.creditcards.services.validation.CardValidationResult;
+import com.nacho.creditcards.utilities.CardFingerprint;
+
+import jakarta.persistence.EntityManager;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 
 import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -28,6 +41,18 @@ public class CreditCardServiceTest {
     @Mock
     private CreditCardRepository creditCardRepository;
 
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private TransactionArchive transactionArchive;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private CardFingerprintIndex fingerprintIndex = new CardFingerprintIndex();
+
     @InjectMocks
     private ICreditCardService creditCardService = new CreditCardService();
 
@@ -132,6 +157,30 @@ public class CreditCardServiceTest {
     }
 
 
+    @Test
+    public void testUpdateCreditCardBrandWithTransactions() {
+        Long id = 1L;
+        CreditCard existingCreditCard = CreditCard.builder()
+                .id(id)
+                .cardNumber("1234567890123456")
+                .holderName("John Doe")
+                .expirationDate(YearMonth.of(2023, 12))
+                .brand(CardBrand.VISA)
+                .build();
+        CreditCard newCreditCard = CreditCard.builder()
+                .cardNumber("1234567890123456")
+                .holderName("John Doe")
+                .expirationDate(YearMonth.of(2023, 12))
+                .brand(CardBrand.AMEX)
+                .build();
+        when(creditCardRepository.findById(id)).thenReturn(Optional.of(existingCreditCard));
+        when(transactionRepository.existsByCreditCardId(id)).thenReturn(true);
+        Assertions.assertThrows(DataIntegrityViolationException.class, () -> creditCardService.updateCreditCard(id, newCreditCard));
+        verify(creditCardRepository, never()).save(any());
+        Assertions.assertEquals(CardBrand.VISA, existingCreditCard.getBrand());
+    }
+
+
     @Test
     public void testUpdateCreditCardNotFound() {
         Long id = 1L;
@@ -156,7 +205,23 @@ public class CreditCardServiceTest {
         creditCardService.deleteCreditCard(id);
         verify(creditCardRepository, times(1)).deleteById(id);
     }
+
+    @Test
+    public void testDeleteCreditCardWithTransactions() {
+        Long id = 1L;
+        when(transactionRepository.existsByCreditCardId(id)).thenReturn(true);
+        Assertions.assertThrows(DataIntegrityViolationException.class, () -> creditCardService.deleteCreditCard(id));
+        verify(creditCardRepository, never()).deleteById(id);
+    }
     
+    @Test
+    public void testDeleteCreditCardWithArchivedTransactions() {
+        Long id = 1L;
+        when(transactionArchive.containsCreditCard(id)).thenReturn(true);
+        Assertions.assertThrows(DataIntegrityViolationException.class, () -> creditCardService.deleteCreditCard(id));
+        verify(creditCardRepository, never()).deleteById(id);
+    }
+
     @Test
     public void testFindByCardNumberAndHolderNameAndExpirationDateAndBrand() {
         String cardNumber = "1234 5678 9012 3456";
@@ -171,12 +236,12 @@ public class CreditCardServiceTest {
                 .brand(brand)
                 .build();
     
-        when(creditCardRepository.findByCardNumberAndHolderNameAndExpirationDateAndBrand(cardNumber, holderName, expirationDate, brand))
+        when(creditCardRepository.findByFingerprint(CardFingerprint.of(expectedCreditCard)))
                 .thenReturn(expectedCreditCard);
     
         CreditCard retrievedCreditCard = creditCardService.findByCardNumberAndHolderNameAndExpirationDateAndBrand(cardNumber, holderName, expirationDate, brand);
     
-        verify(creditCardRepository, times(1)).findByCardNumberAndHolderNameAndExpirationDateAndBrand(cardNumber, holderName, expirationDate, brand);
+        verify(creditCardRepository, times(1)).findByFingerprint(CardFingerprint.of(expectedCreditCard));
     
         assertThat(retrievedCreditCard).isNotNull();
         assertThat(retrievedCreditCard.getCardNumber()).isEqualTo(expectedCreditCard.getCardNumber());
@@ -224,9 +289,9 @@ public class CreditCardServiceTest {
     @Test
     public void testIsValidCreditCardWithValidCard() throws CreditCardNotValidException {
     CreditCard validCreditCard = CreditCard.builder()
-            .cardNumber("1234567890123456")
+            .cardNumber("4111111111111111")
             .holderName("John Doe")
-            .expirationDate(YearMonth.of(2025, 12))
+            .expirationDate(YearMonth.now().plusYears(1))
             .brand(CardBrand.VISA)
             .build();
     
@@ -234,6 +299,25 @@ public class CreditCardServiceTest {
     
     assertThat(isValid).isTrue();
     }
+
+    @Test
+    public void testIsValidCreditCardReturnsFalseInsteadOfThrowing() {
+        CreditCard invalidCreditCard = CreditCard.builder()
+                .cardNumber("1234567890123456")
+                .holderName("John")
+                .expirationDate(YearMonth.of(2000, 1))
+                .brand(CardBrand.VISA)
+                .build();
+
+        CardValidationResult result = creditCardService.validateCreditCard(invalidCreditCard);
+
+        assertFalse(creditCardService.isValidCreditCard(invalidCreditCard));
+        assertThat(result.getErrors()).containsExactly(
+                CardValidationError.INVALID_CHECKSUM,
+                CardValidationError.INVALID_BRAND,
+                CardValidationError.INVALID_EXPIRATION_DATE,
+                CardValidationError.INVALID_HOLDER_NAME);
+    }
     
     @Test
     public void testIsCreditCardDistinct() {
@@ -246,20 +330,7 @@ public class CreditCardServiceTest {
                 .brand(CardBrand.VISA)
                 .build();
 
-        CreditCard existingCard = CreditCard.builder()
-                .id(2L)
-                .cardNumber("1111 2222 3333 4444")
-                .holderName("Jane Doe")
-                .expirationDate(YearMonth.of(2023, 11))
-                .brand(CardBrand.AMEX)
-                .build();
-
-        when(creditCardRepository.findByCardNumberAndHolderNameAndExpirationDateAndBrand(
-                creditCard.getCardNumber(),
-                creditCard.getHolderName(),
-                creditCard.getExpirationDate(),
-                creditCard.getBrand()
-        )).thenReturn(existingCard);
+        when(creditCardRepository.existsByFingerprint(CardFingerprint.of(creditCard))).thenReturn(true);
 
         // Act
         boolean isDistinct = creditCardService.isCreditCardDistinct(creditCard);
@@ -267,4 +338,129 @@ public class CreditCardServiceTest {
         // Assert
         assertThat(isDistinct).isFalse();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetCreditCardsAfter() {
+        List<CreditCard> page = List.of(CreditCard.builder().id(6L).build(), CreditCard.builder().id(7L).build());
+        when(creditCardRepository.findPageAfter(eq(5L), any(Pageable.class))).thenReturn(page);
+
+        List<CreditCard> result = creditCardService.getCreditCardsAfter(5L, 0);
+
+        assertThat(result).isEqualTo(page);
+        verify(creditCardRepository).findPageAfter(eq(5L), argThat((Pageable pageable) -> pageable.getPageSize() == 1));
+    }
+
+    @Test
+    public void testGetCreditCardsExpiringBetweenResumesAtTheCursor() {
+        YearMonth from = YearMonth.of(2025, 1);
+        YearMonth to = YearMonth.of(2025, 12);
+        YearMonth afterExpirationDate = YearMonth.of(2025, 6);
+
+        creditCardService.getCreditCardsExpiringBetween(from, to, afterExpirationDate, 7L, 10);
+        creditCardService.getCreditCardsExpiringBetween(from, to, null, 7L, 10);
+
+        verify(creditCardRepository).findExpiringBetween(eq(afterExpirationDate), eq(7L), eq(to), any(Pageable.class));
+        verify(creditCardRepository).findExpiringBetween(eq(from), eq(0L), eq(to), any(Pageable.class));
+    }
+
+    @Test
+    public void testStreamCreditCardsDetachesEachRow() {
+        CreditCard first = CreditCard.builder().id(1L).build();
+        CreditCard second = CreditCard.builder().id(2L).build();
+        when(creditCardRepository.streamAll()).thenReturn(Stream.of(first, second));
+        List<CreditCard> consumed = new ArrayList<>();
+
+        creditCardService.streamCreditCards(consumed::add);
+
+        assertThat(consumed).containsExactly(first, second);
+        verify(entityManager).detach(first);
+        verify(entityManager).detach(second);
+    }
+
+    @Test
+    public void testValidateCreditCardsKeepsInputOrder() {
+        List<CreditCard> creditCards = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            creditCards.add(CreditCard.builder()
+                    .cardNumber(i % 2 == 0 ? "4111111111111111" : "4111111111111112")
+                    .holderName("John Doe")
+                    .expirationDate(YearMonth.now().plusYears(1))
+                    .brand(CardBrand.VISA)
+                    .build());
+        }
+
+        List<CardValidationResult> results = creditCardService.validateCreditCards(creditCards);
+
+        assertThat(results).hasSize(1000);
+        for (int i = 0; i < results.size(); i++) {
+            assertThat(results.get(i).isValid()).isEqualTo(i % 2 == 0);
+        }
+    }
+
+    @Test
+    public void testIsCreditCardDistinctSkipsDatabaseWhenIndexIsWarm() {
+        CreditCard stored = CreditCard.builder()
+                .cardNumber("4111111111111111")
+                .holderName("John Doe")
+                .expirationDate(YearMonth.of(2030, 1))
+                .brand(CardBrand.VISA)
+                .build();
+        CreditCard candidate = CreditCard.builder()
+                .cardNumber("378282246310005")
+                .holderName("Jane Doe")
+                .expirationDate(YearMonth.of(2030, 1))
+                .brand(CardBrand.AMEX)
+                .build();
+        when(creditCardRepository.count()).thenReturn(1L);
+        when(creditCardRepository.streamAllFingerprints()).thenReturn(Stream.of(CardFingerprint.of(stored)));
+        ((CreditCardService) creditCardService).warmUpFingerprintIndex();
+
+        InOrder order = inOrder(creditCardRepository);
+        order.verify(creditCardRepository).count();
+        order.verify(creditCardRepository).streamAllFingerprints();
+        assertTrue(creditCardService.isCreditCardDistinct(candidate));
+        verify(creditCardRepository, never()).existsByFingerprint(any());
+    }
+
+    @Test
+    public void testCardSavedDuringWarmUpIsNotReportedAbsent() {
+        CreditCard saved = CreditCard.builder()
+                .cardNumber("4111111111111111")
+                .holderName("John Doe")
+                .expirationDate(YearMonth.of(2030, 1))
+                .brand(CardBrand.VISA)
+                .build();
+        // committed after the warm-up started but missing from the fingerprints it reads
+        when(creditCardRepository.count()).thenAnswer(invocation -> {
+            fingerprintIndex.add(CardFingerprint.of(saved));
+            return 0L;
+        });
+        when(creditCardRepository.streamAllFingerprints()).thenReturn(Stream.empty());
+        when(creditCardRepository.existsByFingerprint(CardFingerprint.of(saved))).thenReturn(true);
+        ((CreditCardService) creditCardService).warmUpFingerprintIndex();
+
+        assertFalse(creditCardService.isCreditCardDistinct(saved));
+    }
+
+    @Test
+    public void testAreCreditCardsDistinctUsesOneQuery() {
+        CreditCard first = CreditCard.builder()
+                .cardNumber("4111111111111111")
+                .holderName("John Doe")
+                .expirationDate(YearMonth.of(2030, 1))
+                .brand(CardBrand.VISA)
+                .build();
+        CreditCard second = CreditCard.builder()
+                .cardNumber("378282246310005")
+                .holderName("Jane Doe")
+                .expirationDate(YearMonth.of(2030, 1))
+                .brand(CardBrand.AMEX)
+                .build();
+        when(creditCardRepository.findExistingFingerprints(any())).thenReturn(List.of(CardFingerprint.of(second)));
+
+        List<Boolean> distinct = creditCardService.areCreditCardsDistinct(List.of(first, second));
+
+        assertThat(distinct).containsExactly(true, false);
+        verify(creditCardRepository, times(1)).findExistingFingerprints(any());
+    }
+}
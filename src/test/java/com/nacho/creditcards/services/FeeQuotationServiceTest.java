@@ -0,0 +1,87 @@
+package com.nacho.creditcards.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+
+import com.nacho.creditcards.dto.FeeMatrix;
+import com.nacho.creditcards.dto.FeeMatrixRequest;
+import com.nacho.creditcards.entities.CardBrand;
+import com.nacho.creditcards.services.fees.AmexFeeRule;
+import com.nacho.creditcards.services.fees.FeeEngine;
+import com.nacho.creditcards.services.fees.NaraFeeRule;
+import com.nacho.creditcards.services.fees.VisaFeeRule;
+
+public class FeeQuotationServiceTest {
+
+    @Spy
+    private FeeEngine feeEngine = new FeeEngine(List.of(new VisaFeeRule(), new NaraFeeRule(), new AmexFeeRule()));
+
+    @InjectMocks
+    private FeeQuotationService feeQuotationService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    public void testMatrixMatchesFeeEngine() {
+        List<CardBrand> brands = List.of(CardBrand.VISA, CardBrand.NARA, CardBrand.AMEX);
+        List<BigDecimal> amounts = List.of(new BigDecimal("100.00"), new BigDecimal("333.33"), BigDecimal.ZERO);
+        LocalDate from = LocalDate.of(2024, 2, 27);
+        FeeMatrixRequest request = new FeeMatrixRequest(brands, amounts, from, LocalDate.of(2024, 3, 2));
+
+        FeeMatrix matrix = feeQuotationService.quoteFeeMatrix(request);
+
+        assertThat(matrix.getFees().length).isEqualTo(3);
+        assertThat(matrix.getFees()[0].length).isEqualTo(5);
+        for (int b = 0; b < brands.size(); b++) {
+            for (int d = 0; d < 5; d++) {
+                LocalDateTime dateTime = from.plusDays(d).atStartOfDay();
+                for (int a = 0; a < amounts.size(); a++) {
+                    BigDecimal expected = feeEngine.calculateFee(brands.get(b), dateTime, amounts.get(a))
+                            .setScale(FeeQuotationService.FEE_SCALE, RoundingMode.HALF_UP);
+                    assertThat(BigDecimal.valueOf(matrix.getFees()[b][d][a], matrix.getFeeScale()))
+                            .isEqualByComparingTo(expected);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRejectsTooLongRange() {
+        FeeMatrixRequest request = new FeeMatrixRequest(List.of(CardBrand.VISA), List.of(BigDecimal.TEN),
+                LocalDate.of(2000, 1, 1), LocalDate.of(2030, 1, 1));
+
+        assertThrows(IllegalArgumentException.class, () -> feeQuotationService.quoteFeeMatrix(request));
+    }
+
+    @Test
+    public void testRejectsNegativeAmounts() {
+        FeeMatrixRequest request = new FeeMatrixRequest(List.of(CardBrand.VISA), List.of(BigDecimal.ONE.negate()),
+                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 1));
+
+        assertThrows(IllegalArgumentException.class, () -> feeQuotationService.quoteFeeMatrix(request));
+    }
+
+    @Test
+    public void testRejectsNullBrands() {
+        FeeMatrixRequest request = new FeeMatrixRequest(Arrays.asList(CardBrand.VISA, null), List.of(BigDecimal.TEN),
+                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 1));
+
+        assertThrows(IllegalArgumentException.class, () -> feeQuotationService.quoteFeeMatrix(request));
+    }
+}
@@ -0,0 +1,202 @@
+package com.nacho.creditcards.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nacho.creditcards.dto.IdempotencyRecord;
+import com.nacho.creditcards.entities.Transaction;
+import com.nacho.creditcards.exceptions.IdempotencyKeyInProgressException;
+import com.nacho.creditcards.exceptions.IdempotencyKeyReusedException;
+import com.nacho.creditcards.exceptions.TransactionAmountInvalidException;
+import com.nacho.creditcards.repositories.IdempotencyKeyRepository;
+
+public class IdempotencyServiceTest {
+
+    private static final Transaction REQUEST = Transaction.builder().amount(BigDecimal.TEN).build();
+
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        idempotencyService = new IdempotencyService(24, 100, 200, 60_000);
+        ReflectionTestUtils.setField(idempotencyService, "idempotencyKeyRepository", idempotencyKeyRepository);
+        ReflectionTestUtils.setField(idempotencyService, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(idempotencyService, "transactionManager", transactionManager);
+        idempotencyService.init();
+        when(idempotencyKeyRepository.claim(anyString(), anyString(), any())).thenReturn(true);
+        when(idempotencyKeyRepository.complete(anyString(), anyString(), any(), any())).thenReturn(true);
+    }
+
+    @Test
+    public void testRetryReturnsTheFirstResultWithoutRunningAgain() {
+        AtomicInteger runs = new AtomicInteger();
+
+        Transaction first = idempotencyService.execute("key", REQUEST, Transaction.class, () -> created(runs.incrementAndGet()));
+        Transaction retry = idempotencyService.execute("key", REQUEST, Transaction.class, () -> created(runs.incrementAndGet()));
+
+        assertThat(runs).hasValue(1);
+        assertThat(retry).isEqualTo(first);
+        assertThat(retry.getId()).isEqualTo(1L);
+        verify(idempotencyKeyRepository, times(1)).claim(eq("key"), anyString(), any());
+        verify(idempotencyKeyRepository).complete(eq("key"), anyString(), any(), any());
+    }
+
+    @Test
+    public void testKeyCannotBeReusedForAnotherRequest() {
+        idempotencyService.execute("key", REQUEST, Transaction.class, () -> created(1));
+
+        Transaction other = Transaction.builder().amount(BigDecimal.ONE).build();
+        assertThatThrownBy(() -> idempotencyService.execute("key", other, Transaction.class, () -> created(2)))
+                .isInstanceOf(IdempotencyKeyReusedException.class);
+    }
+
+    @Test
+    public void testFailedRequestReleasesItsKey() {
+        assertThatThrownBy(() -> idempotencyService.execute("key", REQUEST, Transaction.class, () -> {
+            throw new TransactionAmountInvalidException("Transaction amount is not valid");
+        })).isInstanceOf(TransactionAmountInvalidException.class);
+
+        Transaction retry = idempotencyService.execute("key", REQUEST, Transaction.class, () -> created(2));
+
+        verify(idempotencyKeyRepository).release(eq("key"), any());
+        assertThat(retry.getId()).isEqualTo(2L);
+    }
+
+    @Test
+    public void testRequestRollsBackWhenItsResultCannotBeStored() {
+        doThrow(new DataAccessResourceFailureException("connection lost"))
+                .when(idempotencyKeyRepository).complete(eq("key"), anyString(), any(), any());
+
+        assertThatThrownBy(() -> idempotencyService.execute("key", REQUEST, Transaction.class, () -> created(1)))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+        verify(idempotencyKeyRepository).release(eq("key"), any());
+    }
+
+    @Test
+    public void testRequestRollsBackWhenItsClaimWasTakenOver() {
+        ArgumentCaptor<LocalDateTime> claimedAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        when(idempotencyKeyRepository.complete(eq("key"), anyString(), any(), any())).thenReturn(false);
+
+        assertThatThrownBy(() -> idempotencyService.execute("key", REQUEST, Transaction.class, () -> created(1)))
+                .isInstanceOf(IdempotencyKeyInProgressException.class);
+
+        verify(idempotencyKeyRepository).claim(eq("key"), anyString(), claimedAt.capture());
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+        // only this request's own claim is released, not the one that took it over
+        verify(idempotencyKeyRepository).release("key", claimedAt.getValue());
+    }
+
+    @Test
+    public void testResultStoredByAnotherInstanceIsReturned() {
+        String[] hash = new String[1];
+        when(idempotencyKeyRepository.claim(eq("key"), anyString(), any())).thenAnswer(invocation -> {
+            hash[0] = invocation.getArgument(1);
+            return false;
+        });
+        when(idempotencyKeyRepository.find("key")).thenAnswer(invocation -> IdempotencyRecord.builder()
+                .key("key")
+                .requestHash(hash[0])
+                .response("{\"id\":9,\"amount\":10}")
+                .createdAt(LocalDateTime.now())
+                .build());
+        AtomicInteger runs = new AtomicInteger();
+
+        Transaction stored = idempotencyService.execute("key", REQUEST, Transaction.class, () -> created(runs.incrementAndGet()));
+
+        assertThat(stored.getId()).isEqualTo(9L);
+        assertThat(runs).hasValue(0);
+    }
+
+    @Test
+    public void testRequestStillRunningElsewhereIsAConflict() {
+        String[] hash = new String[1];
+        when(idempotencyKeyRepository.claim(eq("key"), anyString(), any())).thenAnswer(invocation -> {
+            hash[0] = invocation.getArgument(1);
+            return false;
+        });
+        when(idempotencyKeyRepository.find("key")).thenAnswer(invocation -> IdempotencyRecord.builder()
+                .key("key")
+                .requestHash(hash[0])
+                .createdAt(LocalDateTime.now())
+                .build());
+
+        assertThatThrownBy(() -> idempotencyService.execute("key", REQUEST, Transaction.class, () -> created(1)))
+                .isInstanceOf(IdempotencyKeyInProgressException.class);
+        verify(idempotencyKeyRepository, never()).complete(any(), any(), any(), any());
+    }
+
+    @Test
+    public void testConcurrentDuplicatesShareOneExecution() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Transaction> first = executor.submit(() -> idempotencyService.execute("key", REQUEST, Transaction.class, () -> {
+                started.countDown();
+                await(finish);
+                return created(runs.incrementAndGet());
+            }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<Transaction> duplicate = executor.submit(() ->
+                    idempotencyService.execute("key", REQUEST, Transaction.class, () -> created(runs.incrementAndGet())));
+            finish.countDown();
+
+            assertThat(duplicate.get(5, TimeUnit.SECONDS)).isEqualTo(first.get(5, TimeUnit.SECONDS));
+            assertThat(runs).hasValue(1);
+            verify(idempotencyKeyRepository, times(1)).claim(eq("key"), anyString(), any());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Transaction created(long id) {
+        return Transaction.builder().id(id).amount(BigDecimal.TEN).build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
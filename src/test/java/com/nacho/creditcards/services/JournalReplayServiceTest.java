@@ -0,0 +1,102 @@
+package com.nacho.creditcards.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.nacho.creditcards.dto.TransactionSummary;
+import com.nacho.creditcards.entities.CardBrand;
+import com.nacho.creditcards.entities.CreditCard;
+import com.nacho.creditcards.entities.Transaction;
+import com.nacho.creditcards.repositories.TransactionAggregateRepository;
+import com.nacho.creditcards.repositories.TransactionBatchRepository;
+import com.nacho.creditcards.repositories.TransactionRepository;
+import com.nacho.creditcards.services.archive.TransactionArchive;
+import com.nacho.creditcards.services.interfaces.ICreditCardService;
+import com.nacho.creditcards.services.interfaces.ITransactionAggregateService;
+import com.nacho.creditcards.services.journal.TransactionJournal;
+
+public class JournalReplayServiceTest {
+
+    @Mock
+    private TransactionJournal transactionJournal;
+
+    @Mock
+    private TransactionBatchRepository transactionBatchRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private TransactionAggregateRepository transactionAggregateRepository;
+
+    @Mock
+    private ITransactionAggregateService transactionAggregateService;
+
+    @Mock
+    private ICreditCardService creditCardService;
+
+    @Mock
+    private TransactionArchive transactionArchive;
+
+    @InjectMocks
+    private JournalReplayService journalReplayService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    public void testRebuildAggregatesCountsStoredAndArchivedTransactions() {
+        LocalDateTime march = LocalDateTime.of(2024, 3, 10, 12, 0);
+        when(transactionRepository.findSummariesAfter(eq(0L), any()))
+                .thenReturn(List.of(new TransactionSummary(5L, march, BigDecimal.TEN, 1L, CardBrand.VISA)));
+        YearMonth january = YearMonth.of(2023, 1);
+        when(transactionArchive.months()).thenReturn(new TreeSet<>(List.of(january)));
+        Transaction archived = Transaction.builder()
+                .id(2L)
+                .creditCard(CreditCard.builder().id(1L).brand(CardBrand.VISA).build())
+                .dateTime(january.atDay(5).atStartOfDay())
+                .amount(BigDecimal.ONE)
+                .build();
+        doAnswer(invocation -> {
+            invocation.<Consumer<Transaction>>getArgument(2).accept(archived);
+            return null;
+        }).when(transactionArchive).forEach(eq(january), isNull(), any());
+        List<Long> recorded = new ArrayList<>();
+        doAnswer(invocation -> {
+            invocation.<List<Transaction>>getArgument(0).forEach(transaction -> recorded.add(transaction.getId()));
+            return null;
+        }).when(transactionAggregateService).record(anyList());
+
+        long counted = journalReplayService.rebuildAggregates();
+
+        assertThat(counted).isEqualTo(2);
+        assertThat(recorded).containsExactlyInAnyOrder(5L, 2L);
+        InOrder order = inOrder(transactionAggregateRepository, transactionAggregateService);
+        order.verify(transactionAggregateRepository).deleteAllInBatch();
+        order.verify(transactionAggregateService, atLeastOnce()).record(anyList());
+    }
+}
@@ -0,0 +1,125 @@
+package com.nacho.creditcards.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+
+import com.nacho.creditcards.entities.CardBrand;
+import com.nacho.creditcards.entities.CreditCard;
+import com.nacho.creditcards.entities.Transaction;
+import com.nacho.creditcards.entities.TransactionAggregate;
+import com.nacho.creditcards.repositories.TransactionAggregateRepository;
+import com.nacho.creditcards.services.fees.AmexFeeRule;
+import com.nacho.creditcards.services.fees.FeeEngine;
+import com.nacho.creditcards.services.fees.NaraFeeRule;
+import com.nacho.creditcards.services.fees.VisaFeeRule;
+import com.nacho.creditcards.services.interfaces.ICreditCardService;
+
+public class TransactionAggregateServiceTest {
+
+    @Mock
+    private TransactionAggregateRepository transactionAggregateRepository;
+
+    @Mock
+    private ICreditCardService creditCardService;
+
+    @Spy
+    private FeeEngine feeEngine = new FeeEngine(List.of(new VisaFeeRule(), new NaraFeeRule(), new AmexFeeRule()));
+
+    @InjectMocks
+    private TransactionAggregateService transactionAggregateService;
+
+    private final LocalDateTime march = LocalDateTime.of(2024, 3, 10, 12, 0);
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    public void testRecordGroupsTransactionsPerCardAndBrand() {
+        CreditCard creditCard = CreditCard.builder().id(1L).brand(CardBrand.AMEX).build();
+        when(creditCardService.getCreditCardById(1L)).thenReturn(creditCard);
+        List<Transaction> transactions = List.of(
+                Transaction.builder().creditCard(creditCard).amount(new BigDecimal("100.00")).dateTime(march).build(),
+                Transaction.builder().creditCard(creditCard).amount(new BigDecimal("50.00")).dateTime(march).build());
+
+        transactionAggregateService.record(transactions);
+
+        // AMEX in March: 3 * 0.1 = 0.3% of 150.00
+        verify(transactionAggregateRepository, times(1)).addToAggregate(
+                eq("CARD:1:2024-03"), eq(2L), eq(new BigDecimal("150.00")),
+                argThat((BigDecimal fee) -> fee.compareTo(new BigDecimal("0.45")) == 0));
+        verify(transactionAggregateRepository, times(1)).addToAggregate(
+                eq("BRAND:AMEX:2024-03"), eq(2L), eq(new BigDecimal("150.00")),
+                argThat((BigDecimal fee) -> fee.compareTo(new BigDecimal("0.45")) == 0));
+    }
+
+    @Test
+    public void testUnrecordSubtractsAndResolvesBrandFromCardId() {
+        when(creditCardService.getCreditCardById(2L))
+                .thenReturn(CreditCard.builder().id(2L).brand(CardBrand.NARA).build());
+        Transaction transaction = Transaction.builder()
+                .creditCard(CreditCard.builder().id(2L).build())
+                .amount(new BigDecimal("10.00"))
+                .dateTime(march)
+                .build();
+
+        transactionAggregateService.unrecord(List.of(transaction));
+
+        verify(transactionAggregateRepository, times(1)).addToAggregate(
+                eq("BRAND:NARA:2024-03"), eq(-1L), eq(new BigDecimal("-10.00")), any());
+    }
+
+    @Test
+    public void testRecordUsesTheStoredBrandInKeyOrder() {
+        when(creditCardService.getCreditCardById(3L))
+                .thenReturn(CreditCard.builder().id(3L).brand(CardBrand.VISA).build());
+        Transaction transaction = Transaction.builder()
+                .creditCard(CreditCard.builder().id(3L).brand(CardBrand.AMEX).build())
+                .amount(new BigDecimal("10.00"))
+                .dateTime(march)
+                .build();
+
+        transactionAggregateService.record(List.of(transaction, transaction));
+
+        InOrder inOrder = inOrder(transactionAggregateRepository);
+        inOrder.verify(transactionAggregateRepository).addToAggregate(
+                eq("BRAND:VISA:2024-03"), eq(2L), eq(new BigDecimal("20.00")), any());
+        inOrder.verify(transactionAggregateRepository).addToAggregate(
+                eq("CARD:3:2024-03"), eq(2L), eq(new BigDecimal("20.00")), any());
+        verify(transactionAggregateRepository, times(0)).addToAggregate(eq("BRAND:AMEX:2024-03"), anyLong(), any(), any());
+        verify(creditCardService, times(1)).getCreditCardById(3L);
+    }
+
+    @Test
+    public void testMissingAggregateIsEmpty() {
+        when(transactionAggregateRepository.findById(any())).thenReturn(Optional.empty());
+
+        TransactionAggregate aggregate = transactionAggregateService.getCardAggregate(9L, YearMonth.of(2024, 1));
+
+        assertThat(aggregate.getAggregateKey()).isEqualTo("CARD:9:2024-01");
+        assertThat(aggregate.getTransactionCount()).isZero();
+        verify(transactionAggregateRepository, times(0)).addToAggregate(any(), anyLong(), any(), any());
+    }
+}
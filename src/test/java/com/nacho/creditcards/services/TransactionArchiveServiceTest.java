@@ -0,0 +1,104 @@
+package com.nacho.creditcards.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.nacho.creditcards.entities.CardBrand;
+import com.nacho.creditcards.entities.CreditCard;
+import com.nacho.creditcards.entities.Transaction;
+import com.nacho.creditcards.repositories.TransactionArchiveRepository;
+import com.nacho.creditcards.repositories.TransactionBatchRepository;
+import com.nacho.creditcards.repositories.TransactionPartitionRepository;
+import com.nacho.creditcards.services.archive.TransactionArchive;
+
+public class TransactionArchiveServiceTest {
+
+    private static final YearMonth JANUARY = YearMonth.of(2023, 1);
+
+    @Mock
+    private TransactionArchiveRepository transactionArchiveRepository;
+
+    @Mock
+    private TransactionPartitionRepository transactionPartitionRepository;
+
+    @Mock
+    private TransactionBatchRepository transactionBatchRepository;
+
+    @Mock
+    private TransactionArchive transactionArchive;
+
+    @InjectMocks
+    private TransactionArchiveService transactionArchiveService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(transactionArchiveService, "rowsPerFile", 100);
+    }
+
+    @Test
+    public void testArchivesEachBrandBeforeDeletingTheRows() {
+        Transaction visa = transaction(1L, CardBrand.VISA);
+        Transaction amex = transaction(2L, CardBrand.AMEX);
+        LocalDateTime from = JANUARY.atDay(1).atStartOfDay();
+        LocalDateTime to = JANUARY.plusMonths(1).atDay(1).atStartOfDay();
+        when(transactionPartitionRepository.findOldestMonth()).thenReturn(JANUARY);
+        when(transactionArchiveRepository.findChunk(from, to, 0L, 100)).thenReturn(List.of(visa, amex));
+        when(transactionArchiveRepository.findChunk(from, to, 2L, 100)).thenReturn(List.of());
+
+        long archived = transactionArchiveService.archiveBefore(JANUARY.plusMonths(1));
+
+        assertThat(archived).isEqualTo(2);
+        InOrder order = inOrder(transactionArchive, transactionBatchRepository);
+        order.verify(transactionArchive).write(JANUARY, CardBrand.VISA, 1L, List.of(visa));
+        order.verify(transactionArchive).write(JANUARY, CardBrand.AMEX, 1L, List.of(amex));
+        order.verify(transactionBatchRepository).deleteAllById(List.of(1L, 2L));
+    }
+
+    @Test
+    public void testNothingToArchiveWhenTheTableIsEmpty() {
+        when(transactionPartitionRepository.findOldestMonth()).thenReturn(null);
+
+        assertThat(transactionArchiveService.archiveBefore(JANUARY)).isZero();
+        verify(transactionArchiveRepository, never()).findChunk(any(), any(), anyLong(), anyInt());
+    }
+
+    @Test
+    public void testMonthsFromTheCutoffOnAreKept() {
+        when(transactionPartitionRepository.findOldestMonth()).thenReturn(JANUARY);
+
+        transactionArchiveService.archiveBefore(JANUARY);
+
+        verify(transactionArchiveRepository, never()).findChunk(any(), any(), anyLong(), anyInt());
+        verify(transactionArchive, never()).write(eq(JANUARY), any(), anyLong(), any());
+    }
+
+    private static Transaction transaction(long id, CardBrand brand) {
+        return Transaction.builder()
+                .id(id)
+                .creditCard(CreditCard.builder().id(id).brand(brand).build())
+                .dateTime(JANUARY.atDay(5).atStartOfDay())
+                .amount(BigDecimal.TEN)
+                .build();
+    }
+}
@@ -0,0 +1,101 @@
+package com.nacho.creditcards.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.nacho.creditcards.repositories.TransactionPartitionRepository;
+
+public class TransactionPartitionServiceTest {
+
+    private static final YearMonth NOW = YearMonth.of(2024, 5);
+
+    @Mock
+    private TransactionPartitionRepository transactionPartitionRepository;
+
+    @InjectMocks
+    private TransactionPartitionService transactionPartitionService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(transactionPartitionService, "enabled", true);
+        ReflectionTestUtils.setField(transactionPartitionService, "monthsAhead", 2);
+        ReflectionTestUtils.setField(transactionPartitionService, "retentionMonths", 0);
+        ReflectionTestUtils.setField(transactionPartitionService, "monthsBack", 24);
+    }
+
+    @Test
+    public void testAddsMonthsAfterTheLastPartition() {
+        when(transactionPartitionRepository.findMonthlyPartitions())
+                .thenReturn(List.of(YearMonth.of(2024, 4), YearMonth.of(2024, 5)));
+
+        List<YearMonth> added = transactionPartitionService.addMissingPartitions(NOW);
+
+        assertThat(added).containsExactly(YearMonth.of(2024, 6), YearMonth.of(2024, 7));
+        verify(transactionPartitionRepository).addMonthlyPartitions(added);
+    }
+
+    @Test
+    public void testFirstPartitionStartsAtTheOldestTransaction() {
+        when(transactionPartitionRepository.findMonthlyPartitions()).thenReturn(List.of());
+        when(transactionPartitionRepository.findOldestMonth()).thenReturn(YearMonth.of(2024, 3));
+
+        List<YearMonth> added = transactionPartitionService.addMissingPartitions(NOW);
+
+        assertThat(added).containsExactly(YearMonth.of(2024, 3), YearMonth.of(2024, 4), YearMonth.of(2024, 5),
+                YearMonth.of(2024, 6), YearMonth.of(2024, 7));
+    }
+
+    @Test
+    public void testFirstPartitionGoesNoFurtherBackThanMonthsBack() {
+        ReflectionTestUtils.setField(transactionPartitionService, "monthsBack", 1);
+        when(transactionPartitionRepository.findMonthlyPartitions()).thenReturn(List.of());
+        when(transactionPartitionRepository.findOldestMonth()).thenReturn(YearMonth.of(1970, 1));
+
+        List<YearMonth> added = transactionPartitionService.addMissingPartitions(NOW);
+
+        assertThat(added).containsExactly(YearMonth.of(2024, 4), YearMonth.of(2024, 5), YearMonth.of(2024, 6),
+                YearMonth.of(2024, 7));
+    }
+
+    @Test
+    public void testDropsPartitionsOlderThanTheRetention() {
+        ReflectionTestUtils.setField(transactionPartitionService, "retentionMonths", 2);
+        when(transactionPartitionRepository.findMonthlyPartitions()).thenReturn(List.of(YearMonth.of(2024, 2),
+                YearMonth.of(2024, 3), YearMonth.of(2024, 4), YearMonth.of(2024, 5)));
+
+        List<YearMonth> dropped = transactionPartitionService.dropExpiredPartitions(NOW);
+
+        assertThat(dropped).containsExactly(YearMonth.of(2024, 2), YearMonth.of(2024, 3));
+        verify(transactionPartitionRepository).dropMonthlyPartition(YearMonth.of(2024, 2));
+        verify(transactionPartitionRepository).dropMonthlyPartition(YearMonth.of(2024, 3));
+    }
+
+    @Test
+    public void testKeepsEverythingWithoutRetention() {
+        assertThat(transactionPartitionService.dropExpiredPartitions(NOW)).isEmpty();
+        verify(transactionPartitionRepository, never()).dropMonthlyPartition(any());
+    }
+
+    @Test
+    public void testSkipsTablesThatAreNotPartitioned() {
+        when(transactionPartitionRepository.isPartitioned()).thenReturn(false);
+
+        transactionPartitionService.maintainPartitions();
+
+        verify(transactionPartitionRepository, never()).addMonthlyPartitions(any());
+    }
+}
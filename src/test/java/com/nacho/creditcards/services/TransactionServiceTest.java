@@ -1,12 +1,25 @@
 package com.nacho.creditcards.services;
 
+import com.nacho.creditcards.dto.TransactionBatchResult;
+import com.nacho.creditcards.dto.TransactionExportFilter;
+import com.nacho.creditcards.dto.TransactionSummary;
 import com.nacho.creditcards.entities.CardBrand;
 import com.nacho.creditcards.entities.CreditCard;
 import com.nacho.creditcards.entities.Transaction;
+import com.nacho.creditcards.entities.TransactionAggregate;
 import com.nacho.creditcards.exceptions.CreditCardNotFoundException;
 import com.nacho.creditcards.exceptions.TransactionAmountInvalidException;
+import com.nacho.creditcards.repositories.TransactionBatchRepository;
 import com.nacho.creditcards.repositories.TransactionRepository;
+import com.nacho.creditcards.services.archive.TransactionArchive;
+import com.nacho.creditcards.services.fees.AmexFeeRule;
+import com.nacho.creditcards.services.fees.FeeEngine;
+import com.nacho.creditcards.services.fees.NaraFeeRule;
+import com.nacho.creditcards.services.fees.VisaFeeRule;
+import com.nacho.creditcards.services.interfaces.ITransactionAggregateService;
 import com.nacho.creditcards.services.interfaces.ITransactionService;
+import com.nacho.creditcards.services.journal.JournalRecord;
+import com.nacho.creditcards.services.journal.TransactionJournal;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,16 +31,30 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Pageable;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 public class TransactionServiceTest {
@@ -38,6 +65,24 @@ public class TransactionServiceTest {
     @Mock
     private CreditCardService creditCardService;
 
+    @Mock
+    private TransactionBatchRepository transactionBatchRepository;
+
+    @Mock
+    private ITransactionAggregateService transactionAggregateService;
+
+    @Mock
+    private TransactionJournal transactionJournal;
+
+    @Mock
+    private TransactionWriteBehindQueue transactionWriteBehindQueue;
+
+    @Mock
+    private TransactionArchive transactionArchive;
+
+    @Spy
+    private FeeEngine feeEngine = new FeeEngine(List.of(new VisaFeeRule(), new NaraFeeRule(), new AmexFeeRule()));
+
     @InjectMocks
     private ITransactionService transactionService = new TransactionService(transactionRepository);
     
@@ -50,6 +95,7 @@ public class TransactionServiceTest {
         MockitoAnnotations.openMocks(this);
 
         validCreditCard = CreditCard.builder()
+                .id(1L)
                 .cardNumber("1234567890123456")
                 .holderName("John Doe")
                 .expirationDate(YearMonth.of(2025, 12))
@@ -58,6 +104,8 @@ public class TransactionServiceTest {
 
         validAmount = BigDecimal.valueOf(500.0);
         invalidAmount = BigDecimal.valueOf(1001.0);
+
+        when(creditCardService.getCreditCardById(1L)).thenReturn(validCreditCard);
     }
 
     @Test
@@ -74,8 +122,52 @@ public class TransactionServiceTest {
 
         assertThat(createdTransaction).isEqualTo(transaction);
         verify(transactionRepository, times(1)).save(any());
+        verify(transactionAggregateService, times(1)).record(List.of(transaction));
+        verify(transactionJournal, times(1)).appendAfterCommit(JournalRecord.Type.CREATE, List.of(transaction));
     }
     
+    @Test
+    public void testCreateTransactionWithUnknownCreditCard() {
+        validCreditCard.setId(9L);
+        when(creditCardService.getCreditCardById(9L)).thenReturn(null);
+
+        assertThrows(CreditCardNotFoundException.class,
+                () -> transactionService.createTransaction(validCreditCard, validAmount));
+        verify(transactionRepository, never()).save(any());
+        verify(transactionJournal, never()).appendAfterCommit(any(), anyList());
+    }
+
+    @Test
+    public void testEnqueueTransactionDoesNotInsert() {
+        validCreditCard.setId(1L);
+
+        Transaction transaction = transactionService.enqueueTransaction(validCreditCard, validAmount);
+
+        assertThat(transaction.getId()).isNull();
+        assertThat(transaction.getAmount()).isEqualTo(validAmount);
+        verify(transactionWriteBehindQueue, times(1)).enqueue(transaction);
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    public void testEnqueueTransactionValidatesFirst() {
+        validCreditCard.setId(1L);
+
+        assertThrows(TransactionAmountInvalidException.class,
+                () -> transactionService.enqueueTransaction(validCreditCard, invalidAmount));
+        verify(transactionWriteBehindQueue, never()).enqueue(any());
+    }
+
+    @Test
+    public void testEnqueueTransactionRejectsUnknownCreditCard() {
+        validCreditCard.setId(9L);
+        when(creditCardService.getCreditCardById(9L)).thenReturn(null);
+
+        assertThrows(CreditCardNotFoundException.class,
+                () -> transactionService.enqueueTransaction(validCreditCard, validAmount));
+        verify(transactionWriteBehindQueue, never()).enqueue(any());
+    }
+
     @Test
     public void testCreateTransactionWithInvalidAmount() {
         assertThrows(TransactionAmountInvalidException.class,
@@ -204,4 +296,214 @@ public class TransactionServiceTest {
         assertTrue(fee instanceof BigDecimal);
         assertEquals(fee, expectedFee);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetTransactionsAfterClampsPageSize() {
+        List<Transaction> page = Arrays.asList(
+                Transaction.builder().id(11L).amount(validAmount).creditCard(validCreditCard).build(),
+                Transaction.builder().id(12L).amount(validAmount).creditCard(validCreditCard).build());
+        when(transactionRepository.findPageAfter(eq(10L), any(Pageable.class))).thenReturn(page);
+
+        List<Transaction> result = transactionService.getTransactionsAfter(10L, 50_000);
+
+        assertThat(result).isEqualTo(page);
+        verify(transactionRepository).findPageAfter(eq(10L),
+                argThat((Pageable pageable) -> pageable.getPageSize() == TransactionService.MAX_PAGE_SIZE));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCreateTransactionsReportsPerItemResults() {
+        CreditCard storedCard = CreditCard.builder().id(7L).brand(CardBrand.VISA).build();
+        CreditCard unknownCard = CreditCard.builder().id(8L).brand(CardBrand.VISA).build();
+        List<Transaction> batch = Arrays.asList(
+                Transaction.builder().creditCard(storedCard).amount(validAmount).build(),
+                Transaction.builder().creditCard(storedCard).amount(invalidAmount).build(),
+                Transaction.builder().amount(validAmount).build(),
+                Transaction.builder().creditCard(storedCard).amount(BigDecimal.TEN).build(),
+                Transaction.builder().creditCard(unknownCard).amount(validAmount).build());
+        when(creditCardService.findExistingCreditCardIds(Set.of(7L, 8L))).thenReturn(Set.of(7L));
+        doAnswer(invocation -> {
+            List<Transaction> inserted = invocation.getArgument(0);
+            long id = 100L;
+            for (Transaction transaction : inserted) {
+                transaction.setId(id++);
+            }
+            return null;
+        }).when(transactionBatchRepository).insertAll(any(List.class));
+
+        List<TransactionBatchResult> results = transactionService.createTransactions(batch);
+
+        assertThat(results).hasSize(5);
+        assertThat(results.get(0).isCreated()).isTrue();
+        assertThat(results.get(0).getTransactionId()).isEqualTo(100L);
+        assertThat(results.get(1).isCreated()).isFalse();
+        assertThat(results.get(1).getError()).isEqualTo("Transaction amount is invalid");
+        assertThat(results.get(2).getError()).isEqualTo("Credit card not found");
+        assertThat(results.get(3).getTransactionId()).isEqualTo(101L);
+        assertThat(results.get(4).isCreated()).isFalse();
+        assertThat(results.get(4).getError()).isEqualTo("Credit card with id: 8 not found");
+        verify(creditCardService, times(1)).findExistingCreditCardIds(any());
+        verify(transactionBatchRepository, times(1)).insertAll(argThat((List<Transaction> inserted) -> inserted.size() == 2));
+    }
+
+    @Test
+    public void testGetAllTransactionsFetchesCreditCards() {
+        List<Transaction> transactions = List.of(
+                Transaction.builder().id(1L).creditCard(validCreditCard).amount(validAmount).build());
+        when(transactionRepository.findAllWithCreditCard()).thenReturn(transactions);
+
+        assertThat(transactionService.getAllTransactions()).isEqualTo(transactions);
+        verify(transactionRepository, never()).findAll();
+    }
+
+    @Test
+    public void testGetTransactionSummariesAfter() {
+        List<TransactionSummary> summaries = List.of(
+                new TransactionSummary(5L, LocalDateTime.now(), validAmount, 1L, CardBrand.VISA));
+        when(transactionRepository.findSummariesAfter(eq(4L), any(Pageable.class))).thenReturn(summaries);
+
+        assertThat(transactionService.getTransactionSummariesAfter(4L, 10)).isEqualTo(summaries);
+    }
+
+    @Test
+    public void testGetTransactionsBetweenClampsPageSize() {
+        LocalDateTime from = LocalDateTime.of(2024, 3, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 4, 1, 0, 0);
+        List<Transaction> page = List.of(
+                Transaction.builder().id(3L).dateTime(from.plusDays(2)).amount(validAmount).creditCard(validCreditCard).build());
+        when(transactionRepository.findPageBetween(eq(from), eq(0L), eq(to), any(Pageable.class))).thenReturn(page);
+
+        List<Transaction> result = transactionService.getTransactionsBetween(from, to, null, null, 50_000);
+
+        assertThat(result).isEqualTo(page);
+        verify(transactionRepository).findPageBetween(eq(from), eq(0L), eq(to),
+                argThat((Pageable pageable) -> pageable.getPageSize() == TransactionService.MAX_PAGE_SIZE));
+    }
+
+    @Test
+    public void testGetTransactionSummariesBetween() {
+        LocalDateTime from = LocalDateTime.of(2024, 3, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 4, 1, 0, 0);
+        LocalDateTime afterDateTime = from.plusHours(1);
+        List<TransactionSummary> summaries = List.of(
+                new TransactionSummary(5L, afterDateTime, validAmount, 1L, CardBrand.VISA));
+        when(transactionRepository.findSummariesBetween(eq(afterDateTime), eq(4L), eq(to), any(Pageable.class)))
+                .thenReturn(summaries);
+
+        assertThat(transactionService.getTransactionSummariesBetween(from, to, afterDateTime, 4L, 10)).isEqualTo(summaries);
+    }
+
+    @Test
+    public void testGetTransactionsBetweenIgnoresACursorBeforeTheRange() {
+        LocalDateTime from = LocalDateTime.of(2024, 3, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 4, 1, 0, 0);
+
+        transactionService.getTransactionsBetween(from, to, from.minusDays(1), 9L, 10);
+
+        verify(transactionRepository).findPageBetween(eq(from), eq(0L), eq(to), any(Pageable.class));
+        verify(transactionArchive).findBetween(from, 0L, to, 10);
+    }
+
+    @Test
+    public void testGetTransactionByIdFallsBackToTheArchive() {
+        Transaction archived = Transaction.builder()
+                .id(8L)
+                .creditCard(CreditCard.builder().id(1L).brand(CardBrand.VISA).build())
+                .dateTime(LocalDateTime.of(2022, 1, 5, 10, 0))
+                .amount(validAmount)
+                .build();
+        when(transactionRepository.findById(8L)).thenReturn(Optional.empty());
+        when(transactionArchive.findById(8L)).thenReturn(Optional.of(archived));
+        when(creditCardService.getCreditCardById(1L)).thenReturn(validCreditCard);
+
+        Transaction transaction = transactionService.getTransactionById(8L);
+
+        assertThat(transaction.getId()).isEqualTo(8L);
+        assertThat(transaction.getCreditCard()).isEqualTo(validCreditCard);
+    }
+
+    @Test
+    public void testGetTransactionsBetweenMergesArchivedMonths() {
+        LocalDateTime from = LocalDateTime.of(2022, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<Transaction> stored = List.of(
+                Transaction.builder().id(2L).dateTime(LocalDateTime.of(2023, 6, 1, 0, 0)).amount(validAmount).creditCard(validCreditCard).build(),
+                Transaction.builder().id(21L).dateTime(LocalDateTime.of(2023, 6, 2, 0, 0)).amount(validAmount).creditCard(validCreditCard).build());
+        List<Transaction> archived = List.of(
+                Transaction.builder().id(3L).dateTime(LocalDateTime.of(2022, 2, 1, 0, 0)).amount(validAmount)
+                        .creditCard(CreditCard.builder().id(9L).brand(CardBrand.AMEX).build()).build());
+        when(transactionRepository.findPageBetween(eq(from), eq(0L), eq(to), any(Pageable.class))).thenReturn(stored);
+        when(transactionArchive.findBetween(from, 0L, to, 2)).thenReturn(archived);
+
+        List<Transaction> page = transactionService.getTransactionsBetween(from, to, null, 0L, 2);
+
+        // merged by date time, then id
+        assertThat(page).extracting(Transaction::getId).containsExactly(3L, 2L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGetArchivedBrandAggregate() {
+        YearMonth period = YearMonth.of(2022, 1);
+        LocalDateTime dateTime = LocalDateTime.of(2022, 1, 10, 0, 0);
+        doAnswer(invocation -> {
+            Consumer<Transaction> consumer = invocation.getArgument(2);
+            consumer.accept(Transaction.builder().id(1L).dateTime(dateTime).amount(new BigDecimal("100.00"))
+                    .creditCard(CreditCard.builder().id(1L).brand(CardBrand.VISA).build()).build());
+            consumer.accept(Transaction.builder().id(2L).dateTime(dateTime).amount(new BigDecimal("50.00"))
+                    .creditCard(CreditCard.builder().id(2L).brand(CardBrand.VISA).build()).build());
+            return null;
+        }).when(transactionArchive).forEach(eq(period), eq(CardBrand.VISA), any(Consumer.class));
+
+        TransactionAggregate aggregate = transactionService.getArchivedBrandAggregate(CardBrand.VISA, period);
+
+        assertThat(aggregate.getTransactionCount()).isEqualTo(2);
+        assertThat(aggregate.getAmountTotal()).isEqualByComparingTo("150.00");
+        assertThat(aggregate.getFeeTotal()).isEqualByComparingTo(
+                feeEngine.calculateFee(CardBrand.VISA, dateTime, new BigDecimal("150.00")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testExportAppendsArchivedTransactionsInIdOrder() {
+        YearMonth period = YearMonth.of(2022, 1);
+        LocalDateTime dateTime = LocalDateTime.of(2022, 1, 10, 0, 0);
+        TransactionExportFilter filter = TransactionExportFilter.builder().untilId(20L).creditCardId(1L).build();
+        when(transactionRepository.streamForExport(20L, 1L, null, null, null)).thenReturn(
+                Stream.of(new TransactionSummary(9L, LocalDateTime.of(2024, 3, 1, 0, 0), BigDecimal.TEN, 1L, CardBrand.VISA)));
+        when(transactionArchive.months()).thenReturn(new TreeSet<>(List.of(period)));
+        doAnswer(invocation -> {
+            Consumer<Transaction> consumer = invocation.getArgument(2);
+            consumer.accept(Transaction.builder().id(4L).dateTime(dateTime).amount(BigDecimal.ONE)
+                    .creditCard(CreditCard.builder().id(1L).brand(CardBrand.VISA).build()).build());
+            consumer.accept(Transaction.builder().id(3L).dateTime(dateTime).amount(BigDecimal.ONE)
+                    .creditCard(CreditCard.builder().id(2L).brand(CardBrand.VISA).build()).build());
+            consumer.accept(Transaction.builder().id(2L).dateTime(dateTime).amount(BigDecimal.ONE)
+                    .creditCard(CreditCard.builder().id(1L).brand(CardBrand.VISA).build()).build());
+            return null;
+        }).when(transactionArchive).forEach(eq(period), isNull(), any(Consumer.class));
+        List<Long> exported = new ArrayList<>();
+
+        transactionService.exportTransactions(filter, row -> exported.add(row.getId()));
+
+        assertThat(exported).containsExactly(9L, 2L, 4L);
+    }
+
+    @Test
+    public void testDeleteTransactionRemovesItFromAggregates() {
+        Transaction transaction = Transaction.builder()
+                .id(3L)
+                .creditCard(validCreditCard)
+                .amount(validAmount)
+                .dateTime(LocalDateTime.now())
+                .build();
+        when(transactionRepository.findById(3L)).thenReturn(Optional.of(transaction));
+
+        transactionService.deleteTransaction(3L);
+
+        verify(transactionAggregateService, times(1)).unrecord(List.of(transaction));
+        verify(transactionRepository, times(1)).delete(transaction);
+        verify(transactionJournal, times(1)).appendAfterCommit(JournalRecord.Type.DELETE, List.of(transaction));
+    }
+}
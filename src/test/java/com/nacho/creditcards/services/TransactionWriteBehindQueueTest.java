@@ -0,0 +1,212 @@
+package com.nacho.creditcards.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.nacho.creditcards.entities.CardBrand;
+import com.nacho.creditcards.entities.CreditCard;
+import com.nacho.creditcards.entities.Transaction;
+import com.nacho.creditcards.exceptions.TransactionQueueFullException;
+import com.nacho.creditcards.repositories.TransactionBatchRepository;
+import com.nacho.creditcards.services.interfaces.ICreditCardService;
+import com.nacho.creditcards.services.interfaces.ITransactionAggregateService;
+import com.nacho.creditcards.services.journal.JournalReader;
+import com.nacho.creditcards.services.journal.JournalRecord;
+import com.nacho.creditcards.services.journal.TransactionJournal;
+
+public class TransactionWriteBehindQueueTest {
+
+    private final TransactionBatchRepository transactionBatchRepository = mock(TransactionBatchRepository.class);
+
+    private final ITransactionAggregateService transactionAggregateService = mock(ITransactionAggregateService.class);
+
+    private final TransactionJournal transactionJournal = mock(TransactionJournal.class);
+
+    private final ICreditCardService creditCardService = mock(ICreditCardService.class);
+
+    private TransactionWriteBehindQueue queue;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    public void setUp() {
+        when(creditCardService.findExistingCreditCardIds(anySet())).thenReturn(Set.of(1L));
+        when(transactionJournal.isEnabled()).thenReturn(true);
+        when(transactionJournal.getDirectory()).thenReturn(directory);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        if (queue != null) {
+            queue.stop();
+        }
+    }
+
+    @Test
+    public void testQueuedTransactionsAreWrittenInBatches() throws Exception {
+        List<Transaction> inserted = new ArrayList<>();
+        doAnswer(invocation -> inserted.addAll(invocation.getArgument(0)))
+                .when(transactionBatchRepository).insertAll(anyList());
+        when(transactionJournal.append(eq(JournalRecord.Type.ACCEPTED), anyList())).thenReturn(1L, 2L, 3L);
+        queue = start(100, 10);
+
+        queue.enqueue(transaction(10));
+        queue.enqueue(transaction(20));
+        queue.enqueue(transaction(30));
+        queue.stop();
+
+        assertThat(inserted).extracting(Transaction::getAmount)
+                .containsExactly(BigDecimal.valueOf(10), BigDecimal.valueOf(20), BigDecimal.valueOf(30));
+        assertThat(queue.getPendingCount()).isZero();
+        verify(transactionJournal).appendCreated(anyList(), any(long[].class));
+    }
+
+    @Test
+    public void testTransactionsOfDeletedCardsAreRejected() throws Exception {
+        List<Transaction> inserted = new ArrayList<>();
+        doAnswer(invocation -> inserted.addAll(invocation.getArgument(0)))
+                .when(transactionBatchRepository).insertAll(anyList());
+        queue = start(100, 10);
+
+        Transaction orphan = transaction(20);
+        orphan.getCreditCard().setId(2L);
+        queue.enqueue(transaction(10));
+        queue.enqueue(orphan);
+        queue.stop();
+
+        assertThat(inserted).extracting(Transaction::getAmount).containsExactly(BigDecimal.valueOf(10));
+        assertThat(queue.getRejectedCount()).isEqualTo(1);
+        verify(transactionJournal).appendRejected(eq(List.of(orphan)), any(long[].class));
+    }
+
+    @Test
+    public void testStartRequiresTheJournal() {
+        when(transactionJournal.isEnabled()).thenReturn(false);
+
+        assertThrows(IllegalStateException.class, () -> start(100, 10));
+    }
+
+    @Test
+    public void testRecoveryDoesNotInsertRowsCommittedBeforeTheirCreateRecord() throws Exception {
+        TransactionJournal journal = new TransactionJournal(true, directory.toString(), 4096, 0);
+        journal.open();
+        Transaction transaction = transaction(10);
+        long acceptedSequence = journal.append(JournalRecord.Type.ACCEPTED, List.of(transaction));
+        when(transactionBatchRepository.findMatchingIds(any())).thenReturn(List.of(42L));
+
+        queue = start(100, 10, journal);
+        queue.stop();
+        journal.close();
+
+        verify(transactionBatchRepository, never()).insertAll(argThat((List<Transaction> rows) -> !rows.isEmpty()));
+        List<JournalRecord> records = new ArrayList<>();
+        JournalReader.forEach(directory, records::add);
+        assertThat(records).hasSize(2);
+        assertThat(records.get(1).getType()).isEqualTo(JournalRecord.Type.CREATE);
+        assertThat(records.get(1).getTransactionId()).isEqualTo(42L);
+        assertThat(records.get(1).getReference()).isEqualTo(acceptedSequence);
+    }
+
+    @Test
+    public void testRecoveredDuplicatesAreNotCollapsedIntoOneRow() throws Exception {
+        TransactionJournal journal = new TransactionJournal(true, directory.toString(), 4096, 0);
+        journal.open();
+        Transaction transaction = transaction(10);
+        journal.append(JournalRecord.Type.CREATE, List.of(copy(transaction, 7L)));
+        journal.append(JournalRecord.Type.ACCEPTED, List.of(copy(transaction, null)));
+        journal.append(JournalRecord.Type.ACCEPTED, List.of(copy(transaction, null)));
+        // row 7 belongs to the journaled CREATE, row 42 to one of the two accepted records
+        when(transactionBatchRepository.findMatchingIds(any())).thenReturn(List.of(7L, 42L));
+        List<Transaction> inserted = new ArrayList<>();
+        doAnswer(invocation -> inserted.addAll(invocation.getArgument(0)))
+                .when(transactionBatchRepository).insertAll(anyList());
+
+        queue = start(100, 10, journal);
+        queue.stop();
+        journal.close();
+
+        assertThat(inserted).hasSize(1);
+        List<JournalRecord> records = new ArrayList<>();
+        JournalReader.forEach(directory, records::add);
+        assertThat(records).filteredOn(record -> record.getType() == JournalRecord.Type.CREATE)
+                .extracting(JournalRecord::getTransactionId)
+                .containsOnlyOnce(42L);
+    }
+
+    @Test
+    public void testEnqueueIsRejectedWhenQueueIsFull() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(transactionBatchRepository).insertAll(anyList());
+        queue = start(1, 1);
+
+        queue.enqueue(transaction(10));
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThrows(TransactionQueueFullException.class, () -> queue.enqueue(transaction(20)));
+        release.countDown();
+    }
+
+    private TransactionWriteBehindQueue start(int capacity, int batchSize) throws Exception {
+        return start(capacity, batchSize, transactionJournal);
+    }
+
+    private TransactionWriteBehindQueue start(int capacity, int batchSize, TransactionJournal journal) throws Exception {
+        TransactionWriteBehindQueue started = new TransactionWriteBehindQueue(true, capacity, batchSize, 5, 20);
+        ReflectionTestUtils.setField(started, "transactionBatchRepository", transactionBatchRepository);
+        ReflectionTestUtils.setField(started, "transactionAggregateService", transactionAggregateService);
+        ReflectionTestUtils.setField(started, "transactionJournal", journal);
+        ReflectionTestUtils.setField(started, "creditCardService", creditCardService);
+        ReflectionTestUtils.setField(started, "transactionManager", mock(PlatformTransactionManager.class));
+        started.start();
+        return started;
+    }
+
+    private static Transaction copy(Transaction transaction, Long id) {
+        return Transaction.builder()
+                .id(id)
+                .creditCard(CreditCard.builder().id(1L).brand(CardBrand.VISA).build())
+                .amount(transaction.getAmount())
+                .dateTime(transaction.getDateTime())
+                .build();
+    }
+
+    private static Transaction transaction(long amount) {
+        return Transaction.builder()
+                .creditCard(CreditCard.builder().id(1L).brand(CardBrand.VISA).build())
+                .amount(BigDecimal.valueOf(amount))
+                .dateTime(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,145 @@
+package com.nacho.creditcards.services.archive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.nacho.creditcards.entities.CardBrand;
+import com.nacho.creditcards.entities.CreditCard;
+import com.nacho.creditcards.entities.Transaction;
+
+public class TransactionArchiveTest {
+
+    private static final YearMonth MARCH = YearMonth.of(2024, 3);
+
+    private static final long CACHE_ROWS = 1000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testWrittenTransactionsAreReadBack() {
+        TransactionArchive archive = new TransactionArchive(directory.toString(), CACHE_ROWS);
+        List<Transaction> transactions = List.of(
+                transaction(5L, 1L, LocalDateTime.of(2024, 3, 1, 10, 0, 0, 123_456_000), new BigDecimal("10.50")),
+                transaction(9L, 3L, LocalDateTime.of(2024, 3, 31, 23, 59, 59), null),
+                transaction(12L, 1L, LocalDateTime.of(2024, 3, 2, 8, 30), new BigDecimal("999.99")));
+
+        archive.write(MARCH, CardBrand.VISA, 5L, transactions);
+        List<Transaction> read = new ArrayList<>();
+        new TransactionArchive(directory.toString(), CACHE_ROWS).forEach(MARCH, CardBrand.VISA, read::add);
+
+        assertThat(read).isEqualTo(transactions);
+    }
+
+    @Test
+    public void testFindsByIdUsingTheFileRanges() {
+        TransactionArchive archive = new TransactionArchive(directory.toString(), CACHE_ROWS);
+        archive.write(MARCH, CardBrand.VISA, 1L, List.of(
+                transaction(1L, 1L, LocalDateTime.of(2024, 3, 1, 0, 0), BigDecimal.ONE),
+                transaction(4L, 1L, LocalDateTime.of(2024, 3, 2, 0, 0), BigDecimal.TEN)));
+        archive.write(MARCH, CardBrand.AMEX, 1L, List.of(
+                transaction(2L, 2L, LocalDateTime.of(2024, 3, 1, 12, 0), BigDecimal.TEN)));
+
+        assertThat(archive.findById(2L)).get().extracting(Transaction::getId).isEqualTo(2L);
+        assertThat(archive.findById(4L)).get().extracting(t -> t.getCreditCard().getBrand()).isEqualTo(CardBrand.VISA);
+        assertThat(archive.findById(3L)).isEmpty();
+    }
+
+    @Test
+    public void testFindBetweenMergesBrandsInDateTimeOrder() {
+        TransactionArchive archive = new TransactionArchive(directory.toString(), CACHE_ROWS);
+        archive.write(MARCH, CardBrand.VISA, 1L, List.of(
+                transaction(1L, 1L, LocalDateTime.of(2024, 3, 11, 0, 0), BigDecimal.ONE),
+                transaction(3L, 1L, LocalDateTime.of(2024, 3, 20, 0, 0), BigDecimal.ONE)));
+        archive.write(MARCH, CardBrand.NARA, 1L, List.of(
+                transaction(2L, 2L, LocalDateTime.of(2024, 3, 10, 0, 0), BigDecimal.ONE)));
+
+        List<Transaction> found = archive.findBetween(LocalDateTime.of(2024, 3, 1, 0, 0), 0L,
+                LocalDateTime.of(2024, 3, 15, 0, 0), 10);
+
+        assertThat(found).extracting(Transaction::getId).containsExactly(2L, 1L);
+    }
+
+    @Test
+    public void testFindBetweenResumesAfterTheCursorAndSkipsLaterMonths() throws IOException {
+        TransactionArchive archive = new TransactionArchive(directory.toString(), CACHE_ROWS);
+        archive.write(MARCH, CardBrand.VISA, 1L, List.of(
+                transaction(1L, 1L, LocalDateTime.of(2024, 3, 1, 0, 0), BigDecimal.ONE),
+                transaction(4L, 1L, LocalDateTime.of(2024, 3, 2, 0, 0), BigDecimal.ONE),
+                transaction(6L, 1L, LocalDateTime.of(2024, 3, 3, 0, 0), BigDecimal.ONE)));
+        archive.write(MARCH, CardBrand.AMEX, 2L, List.of(
+                transaction(2L, 2L, LocalDateTime.of(2024, 3, 1, 0, 0), BigDecimal.ONE),
+                transaction(5L, 2L, LocalDateTime.of(2024, 3, 2, 0, 0), BigDecimal.ONE)));
+        ArchiveFile april = archive.write(MARCH.plusMonths(1), CardBrand.VISA, 7L, List.of(
+                transaction(7L, 1L, LocalDateTime.of(2024, 4, 1, 0, 0), BigDecimal.ONE)));
+        // a later month is never decoded once the page is full
+        byte[] header = Arrays.copyOf(Files.readAllBytes(april.getPath()), ArchiveCodec.HEADER_SIZE);
+        Files.write(april.getPath(), header);
+
+        List<Transaction> found = archive.findBetween(LocalDateTime.of(2024, 3, 1, 0, 0), 1L,
+                LocalDateTime.of(2024, 5, 1, 0, 0), 3);
+
+        assertThat(found).extracting(Transaction::getId).containsExactly(2L, 4L, 5L);
+    }
+
+    @Test
+    public void testFindsArchivedIds() {
+        TransactionArchive archive = new TransactionArchive(directory.toString(), CACHE_ROWS);
+        archive.write(MARCH, CardBrand.VISA, 1L, List.of(
+                transaction(1L, 1L, LocalDateTime.of(2024, 3, 1, 0, 0), BigDecimal.ONE),
+                transaction(4L, 1L, LocalDateTime.of(2024, 3, 2, 0, 0), BigDecimal.ONE)));
+
+        assertThat(archive.findArchivedIds(List.of(1L, 2L, 4L, 9L))).containsExactlyInAnyOrder(1L, 4L);
+        assertThat(archive.findArchivedIds(List.of())).isEmpty();
+    }
+
+    @Test
+    public void testFindsCardsWithArchivedTransactions() {
+        TransactionArchive archive = new TransactionArchive(directory.toString(), CACHE_ROWS);
+        archive.write(MARCH, CardBrand.VISA, 1L, List.of(
+                transaction(1L, 3L, LocalDateTime.of(2024, 3, 1, 0, 0), BigDecimal.ONE),
+                transaction(4L, 7L, LocalDateTime.of(2024, 3, 2, 0, 0), BigDecimal.ONE)));
+
+        assertThat(archive.containsCreditCard(7L)).isTrue();
+        assertThat(archive.containsCreditCard(5L)).isFalse();
+        // the same answers from the decoded columns once the file is cached
+        archive.forEach(MARCH, null, transaction -> { });
+        assertThat(archive.containsCreditCard(3L)).isTrue();
+        assertThat(archive.containsCreditCard(5L)).isFalse();
+    }
+
+    @Test
+    public void testRewritingAChunkReplacesItsFile() {
+        TransactionArchive archive = new TransactionArchive(directory.toString(), CACHE_ROWS);
+        archive.write(MARCH, CardBrand.VISA, 1L, List.of(transaction(1L, 1L, LocalDateTime.of(2024, 3, 1, 0, 0), BigDecimal.ONE)));
+        assertThat(archive.findById(1L)).isPresent();
+        archive.write(MARCH, CardBrand.VISA, 1L, List.of(
+                transaction(1L, 1L, LocalDateTime.of(2024, 3, 1, 0, 0), BigDecimal.ONE),
+                transaction(2L, 1L, LocalDateTime.of(2024, 3, 1, 0, 0), BigDecimal.ONE)));
+
+        assertThat(new TransactionArchive(directory.toString(), CACHE_ROWS).files()).hasSize(1);
+        assertThat(archive.files().get(0).getRowCount()).isEqualTo(2);
+        assertThat(archive.findById(2L)).isPresent();
+    }
+
+    private static Transaction transaction(long id, long creditCardId, LocalDateTime dateTime, BigDecimal amount) {
+        return Transaction.builder()
+                .id(id)
+                .creditCard(CreditCard.builder().id(creditCardId).brand(CardBrand.VISA).build())
+                .dateTime(dateTime)
+                .amount(amount)
+                .build();
+    }
+}
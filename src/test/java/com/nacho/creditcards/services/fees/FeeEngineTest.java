@@ -0,0 +1,72 @@
+package com.nacho.creditcards.services.fees;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.nacho.creditcards.entities.CardBrand;
+
+public class FeeEngineTest {
+
+    private final FeeEngine feeEngine = new FeeEngine(List.of(new VisaFeeRule(), new NaraFeeRule(), new AmexFeeRule()));
+
+    private final BigDecimal amount = new BigDecimal("250.00");
+
+    @Test
+    public void testVisaFeeMatchesYearOverMonthRate() {
+        LocalDateTime dateTime = LocalDateTime.of(2023, 7, 15, 10, 0);
+        BigDecimal rate = BigDecimal.valueOf(23).divide(BigDecimal.valueOf(7), 2, RoundingMode.HALF_UP);
+        BigDecimal expected = amount.multiply(rate).divide(BigDecimal.valueOf(100));
+
+        BigDecimal fee = feeEngine.calculateFee(CardBrand.VISA, dateTime, amount);
+
+        assertThat(fee).isEqualTo(expected);
+    }
+
+    @Test
+    public void testFeeKeepsTheScaleOfAmountTimesRate() {
+        // 24 / 5 = 4.80% of 100.00
+        LocalDateTime dateTime = LocalDateTime.of(2024, 5, 1, 0, 0);
+
+        BigDecimal fee = feeEngine.calculateFee(CardBrand.VISA, dateTime, new BigDecimal("100.00"));
+
+        assertEquals(new BigDecimal("4.8000"), fee);
+        // 28 * 0.5 = 14.0% of 250.00
+        assertEquals(new BigDecimal("35.000"), feeEngine.calculateFee(CardBrand.NARA, LocalDateTime.of(2023, 2, 28, 0, 0), amount));
+    }
+
+    @Test
+    public void testNaraFeeDependsOnDayOfMonth() {
+        LocalDateTime dateTime = LocalDateTime.of(2023, 2, 28, 23, 59);
+
+        BigDecimal fee = feeEngine.calculateFee(CardBrand.NARA, dateTime, amount);
+
+        // 28 * 0.5 = 14% of 250.00
+        assertThat(fee).isEqualByComparingTo("35.00");
+    }
+
+    @Test
+    public void testAmexFeeDependsOnMonth() {
+        LocalDateTime dateTime = LocalDateTime.of(2024, 12, 31, 0, 0);
+
+        BigDecimal fee = feeEngine.calculateFee(CardBrand.AMEX, dateTime, amount);
+
+        // 12 * 0.1 = 1.2% of 250.00
+        assertThat(fee).isEqualByComparingTo("3.00");
+    }
+
+    @Test
+    public void testBrandWithoutRuleHasNoFee() {
+        FeeEngine visaOnly = new FeeEngine(List.of(new VisaFeeRule()));
+
+        BigDecimal fee = visaOnly.calculateFee(CardBrand.AMEX, LocalDateTime.of(2024, 1, 1, 0, 0), amount);
+
+        assertEquals(BigDecimal.ZERO, fee);
+    }
+}
@@ -0,0 +1,88 @@
+package com.nacho.creditcards.services.imports;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nacho.creditcards.entities.CardBrand;
+import com.nacho.creditcards.entities.CreditCard;
+
+public class CardFileReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    public void testReadsCsvColumnsInHeaderOrder() throws IOException {
+        List<CardFileReader.Row> rows = read(CardImportFormat.CSV,
+                "brand,expiration_date,holder_name,card_number\n"
+                        + "VISA,2030-01,\"Smith, Bob\",4111111111111111\n"
+                        + "\n"
+                        + "amex,2031-12,Ann \"\"Lee\"\",378282246310005\n");
+
+        assertThat(rows).extracting(CardFileReader.Row::getLine).containsExactly(2L, 4L);
+        assertThat(rows.get(0).getCreditCard()).isEqualTo(
+                new CreditCard("4111111111111111", "Smith, Bob", YearMonth.of(2030, 1), CardBrand.VISA));
+        assertThat(rows.get(1).getCreditCard().getHolderName()).isEqualTo("Ann \"Lee\"");
+        assertThat(rows.get(1).getCreditCard().getBrand()).isEqualTo(CardBrand.AMEX);
+    }
+
+    @Test
+    public void testUnparsableLinesAreReportedAndReadingGoesOn() throws IOException {
+        List<CardFileReader.Row> rows = read(CardImportFormat.CSV,
+                "card_number,holder_name,expiration_date,brand\n"
+                        + "4111111111111111,Bob,2030-13,VISA\n"
+                        + "4111111111111111,Bob,2030-01,DINERS\n"
+                        + "4111111111111111,Bob\n"
+                        + "4111111111111111,Bob,2030-01,VISA\n");
+
+        assertThat(rows).extracting(CardFileReader.Row::getError).containsExactly(
+                "invalid expiration date 2030-13", "unknown brand DINERS", "expected 4 columns, found 2", null);
+    }
+
+    @Test
+    public void testCsvWithoutTheIdentityColumnsIsRejected() {
+        assertThatThrownBy(() -> read(CardImportFormat.CSV, "card_number,holder_name,brand\n"))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("expiration_date");
+    }
+
+    @Test
+    public void testReadsNdjsonLines() throws IOException {
+        List<CardFileReader.Row> rows = read(CardImportFormat.NDJSON,
+                "{\"cardNumber\":\"4111111111111111\",\"holderName\":\"Bob\",\"expirationDate\":\"2030-01\",\"brand\":\"VISA\"}\n"
+                        + "{\"cardNumber\":\n");
+
+        assertThat(rows.get(0).getCreditCard().getExpirationDate()).isEqualTo(YearMonth.of(2030, 1));
+        assertThat(rows.get(1).getCreditCard()).isNull();
+        assertThat(rows.get(1).getError()).startsWith("malformed JSON");
+    }
+
+    @Test
+    public void testFormatFollowsTheFileExtension() {
+        assertThat(CardImportFormat.fromFileName("cards.CSV")).isEqualTo(CardImportFormat.CSV);
+        assertThat(CardImportFormat.fromFileName("cards.ndjson.gz")).isEqualTo(CardImportFormat.NDJSON);
+        assertThat(CardImportFormat.isGzip("cards.ndjson.gz")).isTrue();
+        assertThat(CardImportFormat.fromFileName("cards.xlsx")).isNull();
+    }
+
+    private List<CardFileReader.Row> read(CardImportFormat format, String content) throws IOException {
+        List<CardFileReader.Row> rows = new ArrayList<>();
+        try (CardFileReader reader = new CardFileReader(
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), format, objectMapper)) {
+            CardFileReader.Row row;
+            while ((row = reader.next()) != null) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,161 @@
+package com.nacho.creditcards.services.journal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import com.nacho.creditcards.entities.CardBrand;
+import com.nacho.creditcards.entities.CreditCard;
+import com.nacho.creditcards.entities.Transaction;
+
+public class TransactionJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testAppendedRecordsAreReadBack() throws Exception {
+        TransactionJournal journal = new TransactionJournal(true, directory.toString(), 4096, 0);
+        journal.open();
+        Transaction transaction = transaction(7L, new BigDecimal("123.45"));
+        journal.append(JournalRecord.Type.CREATE, List.of(transaction));
+        journal.append(JournalRecord.Type.DELETE, List.of(transaction));
+        journal.close();
+
+        List<JournalRecord> records = readAll();
+
+        assertThat(records).hasSize(2);
+        assertThat(records.get(0).getSequence()).isEqualTo(1L);
+        assertThat(records.get(0).getType()).isEqualTo(JournalRecord.Type.CREATE);
+        assertThat(records.get(0).toTransaction()).isEqualTo(transaction);
+        assertThat(records.get(1).getType()).isEqualTo(JournalRecord.Type.DELETE);
+    }
+
+    @Test
+    public void testRollsSegmentsAndContinuesSequenceAfterReopen() throws Exception {
+        TransactionJournal journal = new TransactionJournal(true, directory.toString(), 4096, 0);
+        journal.open();
+        List<Transaction> transactions = new ArrayList<>();
+        for (long id = 1; id <= 200; id++) {
+            transactions.add(transaction(id, BigDecimal.valueOf(id, 2)));
+        }
+        journal.append(JournalRecord.Type.CREATE, transactions);
+        journal.close();
+
+        journal = new TransactionJournal(true, directory.toString(), 4096, 0);
+        journal.open();
+        journal.append(JournalRecord.Type.UPDATE, List.of(transaction(1L, BigDecimal.TEN)));
+        journal.close();
+
+        List<JournalRecord> records = readAll();
+
+        assertThat(JournalReader.segments(directory).size()).isGreaterThan(1);
+        assertThat(records).hasSize(201);
+        for (int i = 0; i < records.size(); i++) {
+            assertThat(records.get(i).getSequence()).isEqualTo(i + 1L);
+        }
+        assertThat(records.get(200).getAmount()).isEqualByComparingTo(BigDecimal.TEN);
+    }
+
+    @Test
+    public void testStaleRecordsPastTheLastOneAreNotReadBack() throws Exception {
+        TransactionJournal journal = new TransactionJournal(true, directory.toString(), 4096, 0);
+        journal.open();
+        journal.append(JournalRecord.Type.CREATE, List.of(transaction(1L, BigDecimal.ONE), transaction(2L, BigDecimal.ONE)));
+        journal.close();
+        // a record left from before a crash right after the last one, with a gap in the sequence
+        Path segment = JournalReader.segments(directory).get(0);
+        int end;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            JournalCodec.decode(buffer);
+            JournalCodec.decode(buffer);
+            end = buffer.position();
+            JournalCodec.encode(JournalRecord.of(9L, JournalRecord.Type.DELETE, transaction(1L, null)), buffer);
+            buffer.force();
+        }
+
+        assertThat(readAll()).extracting(JournalRecord::getSequence).containsExactly(1L, 2L);
+
+        journal = new TransactionJournal(true, directory.toString(), 4096, 0);
+        journal.open();
+        journal.close();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.position(end);
+            assertThat(JournalCodec.decode(buffer)).isNull();
+        }
+    }
+
+    @Test
+    public void testAppendAfterCommitWaitsForTheCommit() throws Exception {
+        TransactionJournal journal = new TransactionJournal(true, directory.toString(), 4096, 0);
+        journal.open();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            journal.appendAfterCommit(JournalRecord.Type.CREATE, List.of(transaction(1L, BigDecimal.ONE)));
+            assertThat(readAll()).isEmpty();
+
+            TransactionSynchronizationUtils.triggerAfterCommit();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        journal.close();
+
+        assertThat(readAll()).extracting(JournalRecord::getTransactionId).containsExactly(1L);
+    }
+
+    @Test
+    public void testAppendAfterCommitSkipsRolledBackTransactions() throws Exception {
+        TransactionJournal journal = new TransactionJournal(true, directory.toString(), 4096, 0);
+        journal.open();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            journal.appendAfterCommit(JournalRecord.Type.CREATE, List.of(transaction(1L, BigDecimal.ONE)));
+            TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        journal.close();
+
+        assertThat(readAll()).isEmpty();
+    }
+
+    @Test
+    public void testDisabledJournalWritesNothing() throws Exception {
+        TransactionJournal journal = new TransactionJournal(false, directory.toString(), 4096, 0);
+        journal.open();
+        journal.append(JournalRecord.Type.CREATE, List.of(transaction(1L, BigDecimal.ONE)));
+        journal.close();
+
+        assertThat(JournalReader.segments(directory)).isEmpty();
+    }
+
+    private List<JournalRecord> readAll() throws Exception {
+        List<JournalRecord> records = new ArrayList<>();
+        JournalReader.forEach(directory, records::add);
+        return records;
+    }
+
+    private static Transaction transaction(Long id, BigDecimal amount) {
+        return Transaction.builder()
+                .id(id)
+                .creditCard(CreditCard.builder().id(3L).brand(CardBrand.AMEX).build())
+                .dateTime(LocalDateTime.of(2024, 3, 1, 10, 15, 30, 123_000_000))
+                .amount(amount)
+                .build();
+    }
+}
@@ -0,0 +1,75 @@
+package com.nacho.creditcards.services.validation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.YearMonth;
+
+import org.junit.jupiter.api.Test;
+
+import com.nacho.creditcards.entities.CardBrand;
+import com.nacho.creditcards.entities.CreditCard;
+
+public class CardValidatorTest {
+
+    private static final YearMonth NOW = YearMonth.of(2024, 6);
+
+    private CreditCard card(String cardNumber, CardBrand brand) {
+        return CreditCard.builder()
+                .cardNumber(cardNumber)
+                .holderName("John Doe")
+                .expirationDate(YearMonth.of(2026, 1))
+                .brand(brand)
+                .build();
+    }
+
+    @Test
+    public void testValidCardsForEachBrand() {
+        assertSame(CardValidationResult.VALID, CardValidator.validate(card("4111111111111111", CardBrand.VISA), NOW));
+        assertSame(CardValidationResult.VALID, CardValidator.validate(card("378282246310005", CardBrand.AMEX), NOW));
+        assertSame(CardValidationResult.VALID, CardValidator.validate(card("5895620000000002", CardBrand.NARA), NOW));
+    }
+
+    @Test
+    public void testCardNumberWithSpacesIsRejected() {
+        CardValidationResult result = CardValidator.validate(card("4111 1111 1111 1111", CardBrand.VISA), NOW);
+
+        assertThat(result.getErrors()).containsExactly(CardValidationError.INVALID_CARD_NUMBER);
+    }
+
+    @Test
+    public void testLuhnChecksum() {
+        assertTrue(CardValidator.isLuhnValid("4111111111111111"));
+        assertFalse(CardValidator.isLuhnValid("4111111111111112"));
+    }
+
+    @Test
+    public void testBrandLengthAndPrefix() {
+        CardValidationResult result = CardValidator.validate(card("4111111111111111", CardBrand.AMEX), NOW);
+
+        assertThat(result.getErrors()).containsExactly(CardValidationError.INVALID_BRAND);
+        assertFalse(CardValidator.matchesBrand("4111111111111111", null));
+    }
+
+    @Test
+    public void testExpirationInCurrentMonthIsValid() {
+        CreditCard creditCard = card("4111111111111111", CardBrand.VISA);
+        creditCard.setExpirationDate(NOW);
+
+        assertTrue(CardValidator.validate(creditCard, NOW).isValid());
+        assertTrue(CardValidator.validate(creditCard, NOW.plusMonths(1)).hasError(CardValidationError.INVALID_EXPIRATION_DATE));
+    }
+
+    @Test
+    public void testHolderName() {
+        assertTrue(CardValidator.isHolderNameValid("John Doe"));
+        assertTrue(CardValidator.isHolderNameValid("John  Ronald\tTolkien "));
+        assertFalse(CardValidator.isHolderNameValid(" John Doe"));
+        assertFalse(CardValidator.isHolderNameValid("John"));
+        assertFalse(CardValidator.isHolderNameValid("John D0e"));
+        assertFalse(CardValidator.isHolderNameValid("   "));
+        assertFalse(CardValidator.isHolderNameValid(null));
+    }
+}
@@ -0,0 +1,54 @@
+package com.nacho.creditcards.utilities;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.YearMonth;
+
+import org.junit.jupiter.api.Test;
+
+import com.nacho.creditcards.entities.CardBrand;
+import com.nacho.creditcards.entities.CreditCard;
+
+class BloomFilterTest {
+
+    private String fingerprint(int i) {
+        return CardFingerprint.of(CreditCard.builder()
+                .cardNumber(String.format("4%015d", i))
+                .holderName("John Doe")
+                .expirationDate(YearMonth.of(2030, 1))
+                .brand(CardBrand.VISA)
+                .build());
+    }
+
+    @Test
+    void testInsertedFingerprintsAreAlwaysFound() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(fingerprint(i));
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain(fingerprint(i)));
+        }
+    }
+
+    @Test
+    void testFalsePositiveRateStaysNearTarget() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(fingerprint(i));
+        }
+        int falsePositives = 0;
+        for (int i = 10_000; i < 20_000; i++) {
+            if (filter.mightContain(fingerprint(i))) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(300);
+    }
+
+    @Test
+    void testFingerprintIsStableAndHexEncoded() {
+        assertThat(fingerprint(1)).isEqualTo(fingerprint(1)).hasSize(CardFingerprint.LENGTH).matches("[0-9a-f]+");
+    }
+}
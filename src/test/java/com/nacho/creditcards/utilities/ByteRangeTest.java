@@ -0,0 +1,34 @@
+package com.nacho.creditcards.utilities;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+public class ByteRangeTest {
+
+    @Test
+    public void testParsesTheSingleRangeForms() {
+        ByteRange closed = ByteRange.parse("bytes=10-19");
+        ByteRange open = ByteRange.parse("bytes=10-");
+        ByteRange suffix = ByteRange.parse("bytes=-5");
+
+        assertThat(closed.firstOf(100)).isEqualTo(10);
+        assertThat(closed.lastOf(100)).isEqualTo(19);
+        assertThat(open.lastOf(100)).isEqualTo(99);
+        assertThat(suffix.firstOf(100)).isEqualTo(95);
+        assertThat(suffix.lastOf(100)).isEqualTo(99);
+    }
+
+    @Test
+    public void testUnsupportedHeadersAreNoRange() {
+        assertThat(ByteRange.parse(null)).isNull();
+        assertThat(ByteRange.parse("bytes=0-1,5-6")).isNull();
+        assertThat(ByteRange.parse("bytes=9-3")).isNull();
+        assertThat(ByteRange.parse("items=0-1")).isNull();
+    }
+
+    @Test
+    public void testRangeStartingPastTheEndIsNotSatisfiable() {
+        assertThat(ByteRange.parse("bytes=100-").firstOf(100)).isEqualTo(-1);
+    }
+}
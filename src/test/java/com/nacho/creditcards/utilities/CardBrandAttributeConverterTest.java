@@ -0,0 +1,35 @@
+package com.nacho.creditcards.utilities;
+
+import org.junit.jupiter.api.Test;
+
+import com.nacho.creditcards.entities.CardBrand;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CardBrandAttributeConverterTest {
+
+    private final CardBrandAttributeConverter converter = new CardBrandAttributeConverter();
+
+    @Test
+    void testRoundTripForEveryBrand() {
+        for (CardBrand brand : CardBrand.values()) {
+            assertEquals(brand, converter.convertToEntityAttribute(converter.convertToDatabaseColumn(brand)));
+        }
+    }
+
+    @Test
+    void testCodesAreStable() {
+        assertEquals((short) 1, converter.convertToDatabaseColumn(CardBrand.VISA));
+        assertEquals((short) 2, converter.convertToDatabaseColumn(CardBrand.NARA));
+        assertEquals((short) 3, converter.convertToDatabaseColumn(CardBrand.AMEX));
+    }
+
+    @Test
+    void testNullAndUnknownCodes() {
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertNull(converter.convertToEntityAttribute(null));
+        assertThrows(IllegalArgumentException.class, () -> converter.convertToEntityAttribute((short) 9));
+    }
+}
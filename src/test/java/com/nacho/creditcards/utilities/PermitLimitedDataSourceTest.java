@@ -0,0 +1,56 @@
+package com.nacho.creditcards.utilities;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+
+class PermitLimitedDataSourceTest {
+
+    @Test
+    void testPermitIsReturnedOnceWhenConnectionIsClosed() throws SQLException {
+        DataSource target = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(target.getConnection()).thenReturn(connection);
+        PermitLimitedDataSource dataSource = new PermitLimitedDataSource(target, 2, 10);
+
+        Connection first = dataSource.getConnection();
+        assertThat(dataSource.getAvailablePermits()).isEqualTo(1);
+
+        first.close();
+        first.close();
+        assertThat(dataSource.getAvailablePermits()).isEqualTo(2);
+        verify(connection, times(2)).close();
+    }
+
+    @Test
+    void testGetConnectionTimesOutWhenNoPermitIsLeft() throws SQLException {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenReturn(mock(Connection.class));
+        PermitLimitedDataSource dataSource = new PermitLimitedDataSource(target, 1, 10);
+
+        dataSource.getConnection();
+
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+    }
+
+    @Test
+    void testPermitIsReturnedWhenPoolFails() throws SQLException {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenThrow(new SQLException("pool exhausted"));
+        PermitLimitedDataSource dataSource = new PermitLimitedDataSource(target, 1, 10);
+
+        assertThrows(SQLException.class, dataSource::getConnection);
+        assertThat(dataSource.getAvailablePermits()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,29 @@
+package com.nacho.creditcards.utilities;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.nacho.creditcards.exceptions.UploadTooLargeException;
+
+public class SizeLimitedInputStreamTest {
+
+    @Test
+    public void testStreamUpToTheLimitIsReadWhole() throws IOException {
+        InputStream in = new SizeLimitedInputStream(new ByteArrayInputStream(new byte[10]), 10);
+
+        assertThat(in.readAllBytes()).hasSize(10);
+    }
+
+    @Test
+    public void testReadingPastTheLimitFails() {
+        InputStream in = new SizeLimitedInputStream(new ByteArrayInputStream(new byte[11]), 10);
+
+        assertThatThrownBy(in::readAllBytes).isInstanceOf(UploadTooLargeException.class);
+    }
+}
@@ -0,0 +1,71 @@
+package com.nacho.creditcards.utilities;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.nacho.creditcards.dto.SlowQuery;
+
+class SlowQueryDataSourceTest {
+
+    private static final String SQL = "insert into transactions (credit_card_id, date_time, amount) values (?, ?, ?)";
+
+    @Test
+    void testSlowStatementIsReportedWithBindsBatchAndCaller() throws SQLException {
+        SlowQueryLog slowQueryLog = mock(SlowQueryLog.class);
+        SlowQueryDataSource dataSource = new SlowQueryDataSource(target(), 0, slowQueryLog);
+
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(SQL)) {
+            for (int i = 0; i < 2; i++) {
+                statement.setLong(1, 1L);
+                statement.setObject(2, null);
+                statement.setBigDecimal(3, null);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+
+        ArgumentCaptor<SlowQuery> captor = ArgumentCaptor.forClass(SlowQuery.class);
+        verify(slowQueryLog).submit(captor.capture());
+        SlowQuery slowQuery = captor.getValue();
+        assertThat(slowQuery.getSql()).isEqualTo(SQL);
+        assertThat(slowQuery.getBindCount()).isEqualTo(3);
+        assertThat(slowQuery.getBatchSize()).isEqualTo(2);
+        assertThat(slowQuery.getCaller()).isEqualTo("SlowQueryDataSourceTest.testSlowStatementIsReportedWithBindsBatchAndCaller");
+    }
+
+    @Test
+    void testFastStatementIsNotReported() throws SQLException {
+        SlowQueryLog slowQueryLog = mock(SlowQueryLog.class);
+        SlowQueryDataSource dataSource = new SlowQueryDataSource(target(), 60_000, slowQueryLog);
+
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(SQL)) {
+            statement.executeUpdate();
+        }
+
+        verify(slowQueryLog, never()).submit(any());
+    }
+
+    private static DataSource target() throws SQLException {
+        DataSource target = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(mock(PreparedStatement.class));
+        return target;
+    }
+}
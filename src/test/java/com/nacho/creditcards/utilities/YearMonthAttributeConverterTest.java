@@ -6,6 +6,7 @@ import java.time.YearMonth;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 class YearMonthAttributeConverterTest {
 
@@ -14,19 +15,19 @@ class YearMonthAttributeConverterTest {
     @Test
     void testConvertToDatabaseColumn() {
         YearMonth yearMonth = YearMonth.of(2022, 3);
-        String result = converter.convertToDatabaseColumn(yearMonth);
-        assertEquals("2022-03", result);
+        Integer result = converter.convertToDatabaseColumn(yearMonth);
+        assertEquals(202203, result);
     }
 
     @Test
     void testConvertToDatabaseColumnWithNull() {
-        String result = converter.convertToDatabaseColumn(null);
+        Integer result = converter.convertToDatabaseColumn(null);
         assertNull(result);
     }
 
     @Test
     void testConvertToEntityAttribute() {
-        String value = "2022-03";
+        Integer value = 202203;
         YearMonth result = converter.convertToEntityAttribute(value);
         assertEquals(YearMonth.of(2022, 3), result);
     }
@@ -36,4 +37,17 @@ class YearMonthAttributeConverterTest {
         YearMonth result = converter.convertToEntityAttribute(null);
         assertNull(result);
     }
+
+    @Test
+    void testCachedRangeReusesInstances() {
+        assertSame(converter.convertToEntityAttribute(209912), converter.convertToEntityAttribute(209912));
+        assertSame(converter.convertToDatabaseColumn(YearMonth.of(2000, 1)),
+                converter.convertToDatabaseColumn(YearMonth.of(2000, 1)));
+    }
+
+    @Test
+    void testValuesOutsideCachedRange() {
+        assertEquals(199912, converter.convertToDatabaseColumn(YearMonth.of(1999, 12)));
+        assertEquals(YearMonth.of(2100, 1), converter.convertToEntityAttribute(210001));
+    }
 }